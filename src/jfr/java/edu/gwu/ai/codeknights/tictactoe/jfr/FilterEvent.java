@@ -0,0 +1,50 @@
+package edu.gwu.ai.codeknights.tictactoe.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Enabled;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * One call of a cell filter inside a search (once per interior node).
+ *
+ * NOTE: there are millions of these per move, so the event is disabled by default; enable it (e.g., with a threshold)
+ * in a custom recording settings file to see it.
+ *
+ * @author ajv
+ */
+@Name("edu.gwu.ai.codeknights.tictactoe.Filter")
+@Label("Filter")
+@Category({"Tic Tac Toe", "Search"})
+@Description("One call of a cell filter inside a search")
+@Enabled(false)
+@StackTrace(false)
+public class FilterEvent extends Event implements GameEvents.Filter {
+
+  @Label("Game Id")
+  @Description("Id of the game (zero for offline games that were not given one)")
+  private long gameId;
+
+  @Label("Filter")
+  private String filter;
+
+  @Label("Depth")
+  @Description("Remaining depth of the node, in plies")
+  private int depth;
+
+  @Label("Cells")
+  @Description("Number of cells the filter selected")
+  private int numCells;
+
+  @Override
+  public void record(final long gameId, final String filter, final int depth, final int numCells) {
+    this.gameId = gameId;
+    this.filter = filter;
+    this.depth = depth;
+    this.numCells = numCells;
+    commit();
+  }
+}
@@ -0,0 +1,38 @@
+package edu.gwu.ai.codeknights.tictactoe.jfr;
+
+/**
+ * Creates and begins the {@code jdk.jfr} events of this package. {@link GameEvents} loads this class by name, so that
+ * the main sources never refer to {@code jdk.jfr}.
+ *
+ * @author ajv
+ */
+final class JfrEventFactory implements GameEvents.EventFactory {
+
+  @Override
+  public GameEvents.SearchIteration beginSearchIteration() {
+    final SearchIterationEvent event = new SearchIterationEvent();
+    event.begin();
+    return event;
+  }
+
+  @Override
+  public GameEvents.RuleEvaluation beginRuleEvaluation() {
+    final RuleEvaluationEvent event = new RuleEvaluationEvent();
+    event.begin();
+    return event;
+  }
+
+  @Override
+  public GameEvents.Filter beginFilter() {
+    final FilterEvent event = new FilterEvent();
+    event.begin();
+    return event;
+  }
+
+  @Override
+  public GameEvents.OnlineCall beginOnlineCall() {
+    final OnlineCallEvent event = new OnlineCallEvent();
+    event.begin();
+    return event;
+  }
+}
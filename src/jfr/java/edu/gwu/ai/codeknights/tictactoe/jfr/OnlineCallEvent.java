@@ -0,0 +1,43 @@
+package edu.gwu.ai.codeknights.tictactoe.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * One call to the online game server.
+ *
+ * @author ajv
+ */
+@Name("edu.gwu.ai.codeknights.tictactoe.OnlineCall")
+@Label("Online Call")
+@Category({"Tic Tac Toe", "Online"})
+@Description("One call to the online game server")
+public class OnlineCallEvent extends Event implements GameEvents.OnlineCall {
+
+  @Label("Game Id")
+  @Description("Id of the game (zero for offline games that were not given one)")
+  private long gameId;
+
+  @Label("Call")
+  private String call;
+
+  @Label("HTTP Status")
+  @Description("HTTP status code of the response, or -1 if there was none")
+  private int httpStatus;
+
+  @Label("Success")
+  @Description("Whether the server reported success")
+  private boolean success;
+
+  @Override
+  public void record(final long gameId, final String call, final int httpStatus, final boolean success) {
+    this.gameId = gameId;
+    this.call = call;
+    this.httpStatus = httpStatus;
+    this.success = success;
+    commit();
+  }
+}
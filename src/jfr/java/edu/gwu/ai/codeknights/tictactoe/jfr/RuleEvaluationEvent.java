@@ -0,0 +1,45 @@
+package edu.gwu.ai.codeknights.tictactoe.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * The evaluation of one rule of the rule-based chooser.
+ *
+ * @author ajv
+ */
+@Name("edu.gwu.ai.codeknights.tictactoe.RuleEvaluation")
+@Label("Rule Evaluation")
+@Category({"Tic Tac Toe", "Rules"})
+@Description("The evaluation of one rule of the rule-based chooser")
+@StackTrace(false)
+public class RuleEvaluationEvent extends Event implements GameEvents.RuleEvaluation {
+
+  @Label("Game Id")
+  @Description("Id of the game (zero for offline games that were not given one)")
+  private long gameId;
+
+  @Label("Rule")
+  private String rule;
+
+  @Label("Candidate Cells")
+  @Description("Number of cells the rule chose from")
+  private int numCells;
+
+  @Label("Matched")
+  @Description("Whether the rule chose a cell")
+  private boolean matched;
+
+  @Override
+  public void record(final long gameId, final String rule, final int numCells, final boolean matched) {
+    this.gameId = gameId;
+    this.rule = rule;
+    this.numCells = numCells;
+    this.matched = matched;
+    commit();
+  }
+}
@@ -0,0 +1,47 @@
+package edu.gwu.ai.codeknights.tictactoe.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * One iterative-deepening iteration of an alpha-beta search, in any of its threads (the recorded thread tells the
+ * reporting thread from the helpers).
+ *
+ * @author ajv
+ */
+@Name("edu.gwu.ai.codeknights.tictactoe.SearchIteration")
+@Label("Search Iteration")
+@Category({"Tic Tac Toe", "Search"})
+@Description("One iterative-deepening iteration of an alpha-beta search")
+@StackTrace(false)
+public class SearchIterationEvent extends Event implements GameEvents.SearchIteration {
+
+  @Label("Game Id")
+  @Description("Id of the game (zero for offline games that were not given one)")
+  private long gameId;
+
+  @Label("Depth")
+  @Description("Depth of the iteration, in plies (including the root move)")
+  private int depth;
+
+  @Label("Nodes")
+  @Description("Nodes visited by the iteration")
+  private long numNodes;
+
+  @Label("Completed")
+  @Description("Whether the iteration completed, rather than being stopped")
+  private boolean completed;
+
+  @Override
+  public void record(final long gameId, final int depth, final long numNodes, final boolean completed) {
+    this.gameId = gameId;
+    this.depth = depth;
+    this.numNodes = numNodes;
+    this.completed = completed;
+    commit();
+  }
+}
@@ -0,0 +1,30 @@
+package edu.gwu.ai.codeknights.tictactoe.bench;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.CommandLineOptionException;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Entry point of the benchmarks JAR: runs JMH with the given command-line options (e.g. a regular expression to select
+ * benchmarks, or {@code -p dim=12}), always with the GC profiler, so that each result comes with its
+ * {@code gc.alloc.rate} numbers.
+ *
+ * @author ajv
+ */
+public final class BenchmarkMain {
+
+  private BenchmarkMain() {
+  }
+
+  public static void main(final String[] args) throws CommandLineOptionException, RunnerException {
+    final Options options = new OptionsBuilder()
+      .parent(new CommandLineOptions(args))
+      .addProfiler(GCProfiler.class)
+      .build();
+    new Runner(options).run();
+  }
+}
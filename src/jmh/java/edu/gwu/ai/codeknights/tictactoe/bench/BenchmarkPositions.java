@@ -0,0 +1,89 @@
+package edu.gwu.ai.codeknights.tictactoe.bench;
+
+import edu.gwu.ai.codeknights.tictactoe.core.Cell;
+import edu.gwu.ai.codeknights.tictactoe.core.Game;
+import edu.gwu.ai.codeknights.tictactoe.core.Player;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * The positions that the benchmarks run over: for each supported board dimension, a game in the opening and a game in
+ * the middle, generated from fixed seeds so that every run (and every fork) measures exactly the same boards.
+ *
+ * @author ajv
+ */
+public final class BenchmarkPositions {
+
+  public static final String PHASE_OPENING = "opening";
+  public static final String PHASE_MIDGAME = "midgame";
+
+  private static final long SEED = 6511L;
+
+  private BenchmarkPositions() {
+  }
+
+  /**
+   * Get the length required to win that the benchmarks use for the given board dimension.
+   *
+   * @param dim the board dimension (3, 6, 12, or 20)
+   *
+   * @return the win length
+   */
+  public static int getWinLength(final int dim) {
+    switch (dim) {
+      case 3:
+        return 3;
+      case 6:
+        return 4;
+      case 12:
+        return 6;
+      case 20:
+        return 6;
+      default:
+        throw new IllegalArgumentException("unsupported dim: " + dim);
+    }
+  }
+
+  /**
+   * Create the position for the given board dimension and game phase. The opening has 10% of the cells populated (at
+   * least two), and the midgame 35%; in both, the players alternate and neither has won.
+   *
+   * @param dim   the board dimension (3, 6, 12, or 20)
+   * @param phase {@link #PHASE_OPENING} or {@link #PHASE_MIDGAME}
+   *
+   * @return a new game
+   */
+  public static Game create(final int dim, final String phase) {
+    final double fraction;
+    if (PHASE_OPENING.equals(phase)) {
+      fraction = 0.10;
+    }
+    else if (PHASE_MIDGAME.equals(phase)) {
+      fraction = 0.35;
+    }
+    else {
+      throw new IllegalArgumentException("unsupported phase: " + phase);
+    }
+    final int numMoves = Math.max(2, (int) Math.round(fraction * dim * dim));
+    final Random random = new Random(SEED + dim);
+    while (true) {
+      final Game game = new Game(dim, getWinLength(dim), 0, new Player(1, 'X'), new Player(2, 'O'), true);
+      final List<Cell> cells = new ArrayList<>(game.getBoard().getAllCells());
+      Collections.shuffle(cells, random);
+      int num = 0;
+      for (final Cell cell : cells) {
+        if (num >= numMoves || game.isGameOver()) {
+          break;
+        }
+        game.makeMove(cell.getRowIdx(), cell.getColIdx());
+        num++;
+      }
+      if (!game.isGameOver()) {
+        return game;
+      }
+    }
+  }
+}
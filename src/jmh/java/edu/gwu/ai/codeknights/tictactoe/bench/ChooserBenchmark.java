@@ -0,0 +1,68 @@
+package edu.gwu.ai.codeknights.tictactoe.bench;
+
+import edu.gwu.ai.codeknights.tictactoe.chooser.AlphaBetaPruningChooser;
+import edu.gwu.ai.codeknights.tictactoe.core.Cell;
+import edu.gwu.ai.codeknights.tictactoe.core.Game;
+import edu.gwu.ai.codeknights.tictactoe.filter.PopulatedNeighborFilter;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Throughput of fixed-depth {@link AlphaBetaPruningChooser} searches (one thread, moves limited to the neighbors of
+ * populated cells), with and without pattern evaluation. Each search gets a new chooser, so that each does the same
+ * work; the allocation numbers therefore include its (1 MB) transposition table.
+ *
+ * @author ajv
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ChooserBenchmark {
+
+  @Param({"3", "6", "12", "20"})
+  public int dim;
+
+  @Param({BenchmarkPositions.PHASE_OPENING, BenchmarkPositions.PHASE_MIDGAME})
+  public String phase;
+
+  @Param({"2", "3"})
+  public int depth;
+
+  @Param({"true", "false"})
+  public boolean patternEvaluation;
+
+  private Game game;
+  private AlphaBetaPruningChooser chooser;
+
+  @Setup
+  public void setup() {
+    game = BenchmarkPositions.create(dim, phase);
+    AlphaBetaPruningChooser.setPatternEvaluation(patternEvaluation);
+  }
+
+  @Setup(Level.Invocation)
+  public void newChooser() {
+    chooser = new AlphaBetaPruningChooser(new PopulatedNeighborFilter(), 1, 1);
+    chooser.setMaxDepth(depth);
+  }
+
+  @Benchmark
+  public Cell alphaBetaFixedDepth() {
+    return chooser.chooseCell(chooser.getFilter().filterCells(game), game);
+  }
+}
@@ -0,0 +1,74 @@
+package edu.gwu.ai.codeknights.tictactoe.bench;
+
+import edu.gwu.ai.codeknights.tictactoe.core.Board;
+import edu.gwu.ai.codeknights.tictactoe.core.Cell;
+import edu.gwu.ai.codeknights.tictactoe.core.Game;
+import edu.gwu.ai.codeknights.tictactoe.core.Player;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Throughput of the {@link Board} and {@link Game} operations that the choosers call for every node.
+ *
+ * @author ajv
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CoreBenchmark {
+
+  @Param({"3", "6", "12", "20"})
+  public int dim;
+
+  @Param({BenchmarkPositions.PHASE_OPENING, BenchmarkPositions.PHASE_MIDGAME})
+  public String phase;
+
+  private Game game;
+  private Player player;
+
+  @Setup
+  public void setup() {
+    game = BenchmarkPositions.create(dim, phase);
+    player = game.getNextPlayer();
+  }
+
+  @Benchmark
+  public Board boardGetCopy() {
+    return game.getBoard().getCopy();
+  }
+
+  @Benchmark
+  public String boardGetHash() {
+    return game.getBoard().getHash();
+  }
+
+  @Benchmark
+  public boolean gameIsGameOver() {
+    return game.isGameOver();
+  }
+
+  @Benchmark
+  public long gameEvaluatePlayerUtility() {
+    return game.evaluatePlayerUtility(player);
+  }
+
+  @Benchmark
+  public Set<Cell> gameGetWinningCells() {
+    return game.getWinningCells(player);
+  }
+}
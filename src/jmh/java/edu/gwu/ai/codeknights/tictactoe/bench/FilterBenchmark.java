@@ -0,0 +1,73 @@
+package edu.gwu.ai.codeknights.tictactoe.bench;
+
+import edu.gwu.ai.codeknights.tictactoe.core.BitGame;
+import edu.gwu.ai.codeknights.tictactoe.core.Cell;
+import edu.gwu.ai.codeknights.tictactoe.core.Game;
+import edu.gwu.ai.codeknights.tictactoe.filter.AbstractCellFilter;
+import edu.gwu.ai.codeknights.tictactoe.filter.Filter;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * Throughput of each {@link AbstractCellFilter} (see {@link Filter}), both through the {@link Game} API and through
+ * the {@link BitGame} API used during search.
+ *
+ * @author ajv
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class FilterBenchmark {
+
+  @Param({"EmptyCell", "BestOpenSubline", "PopulatedNeighbor", "Threat"})
+  public String filterName;
+
+  @Param({"3", "6", "12", "20"})
+  public int dim;
+
+  @Param({BenchmarkPositions.PHASE_OPENING, BenchmarkPositions.PHASE_MIDGAME})
+  public String phase;
+
+  private AbstractCellFilter filter;
+  private Game game;
+  private BitGame bitGame;
+  private int[] indices;
+
+  @Setup
+  public void setup() {
+    final Filter filterType = Filter.fromName(filterName);
+    if (filterType == null) {
+      throw new IllegalArgumentException("unknown filter: " + filterName);
+    }
+    filter = filterType.createFilter();
+    game = BenchmarkPositions.create(dim, phase);
+    bitGame = new BitGame(game);
+    indices = new int[dim * dim];
+  }
+
+  @Benchmark
+  public List<Cell> filterCells() {
+    return filter.filterCells(game).collect(Collectors.toList());
+  }
+
+  @Benchmark
+  public int filterIndices() {
+    return filter.filterIndices(bitGame, indices);
+  }
+}
@@ -3,22 +3,26 @@ package edu.gwu.ai.codeknights.tictactoe.chooser;
 import edu.gwu.ai.codeknights.tictactoe.core.Cell;
 import edu.gwu.ai.codeknights.tictactoe.core.Game;
 import edu.gwu.ai.codeknights.tictactoe.filter.AbstractCellFilter;
+import edu.gwu.ai.codeknights.tictactoe.util.Const;
 import org.pmw.tinylog.Logger;
 
-import java.util.Set;
-import java.util.concurrent.*;
+import java.util.concurrent.TimeUnit;
 import java.util.stream.Stream;
 
 public class AbpTimeLimitChooser extends AlphaBetaPruningChooser {
 
   private final int limitSec;
 
-  public AbpTimeLimitChooser(final int limitSec, final AbstractCellFilter filter) {
-    super(filter);
+  public AbpTimeLimitChooser(final int limitSec, final AbstractCellFilter filter, final int numThreads) {
+    super(filter, Const.TRANSPOSITION_TABLE_SIZE_MB_DEFAULT, numThreads);
 
     this.limitSec = limitSec;
   }
 
+  public AbpTimeLimitChooser(final int limitSec, final AbstractCellFilter filter) {
+    this(limitSec, filter, Const.SEARCH_THREADS_DEFAULT);
+  }
+
   public AbpTimeLimitChooser(final int limitSec) {
     this(limitSec, null);
   }
@@ -27,31 +31,15 @@ public class AbpTimeLimitChooser extends AlphaBetaPruningChooser {
     return limitSec;
   }
 
-  protected Cell callForTask(final Stream<Cell> input, final Game game) {
-    return super.chooseCell(input, game);
-  }
-
   @Override
-  public Cell chooseCell(final Stream<Cell> input, final Game game) {
-    final ExecutorService executor = Executors.newSingleThreadExecutor();
-    final Future<Cell> task = executor.submit(() -> callForTask(input, game));
-    try {
-      return task.get(limitSec, TimeUnit.SECONDS);
-    }
-    catch (TimeoutException | ExecutionException | InterruptedException e) {
-      Logger.warn("did not complete in time limit: {} seconds", limitSec);
-      task.cancel(true);
-    }
-    finally {
-      executor.shutdownNow();
-    }
-    final Set<Cell> bestCells = getBestCells();
-    if (bestCells != null) {
-      return bestCells.stream().findAny().orElse(null);
-    }
-    else {
-      Logger.error("did not find any candidate cells within time limit: {} seconds", limitSec);
-      return null;
+  public Cell chooseCell(final Stream<Cell> input, final Game game, final long startTime) {
+    // Search in this thread; the search checks the deadline itself and keeps the last completed iteration
+    final Cell choice = search(input, game, startTime + TimeUnit.SECONDS.toNanos(limitSec));
+    final long elapsedMs = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startTime);
+    if (choice != null && getCompletedDepth() == 0) {
+      Logger.warn("did not complete any search iteration within time limit: {} seconds", limitSec);
     }
+    Logger.info("searched to depth {} in {} ms (time limit: {} seconds)", getCompletedDepth(), elapsedMs, limitSec);
+    return choice;
   }
 }
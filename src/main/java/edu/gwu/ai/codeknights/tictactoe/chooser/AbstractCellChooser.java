@@ -29,6 +29,15 @@ public abstract class AbstractCellChooser {
     return cell;
   }
 
+  /**
+   * Get statistics about the search that produced the last chosen cell, if this chooser searches
+   * @return the statistics of the last search, or {@code null} if there are none (e.g., the last cell was not chosen
+   *         by a search)
+   */
+  public SearchStats getLastSearchStats() {
+    return null;
+  }
+
   public final Cell chooseRandom(final Game game){
     Cell cell = null;
     List<Cell> emptyCells = game.getBoard().getEmptyCells();
@@ -2,6 +2,7 @@ package edu.gwu.ai.codeknights.tictactoe.chooser;
 
 import edu.gwu.ai.codeknights.tictactoe.core.Game;
 import edu.gwu.ai.codeknights.tictactoe.core.Player;
+import edu.gwu.ai.codeknights.tictactoe.jfr.GameEvents;
 import edu.gwu.ai.codeknights.tictactoe.util.API;
 import edu.gwu.ai.codeknights.tictactoe.util.res.GetMovesRes;
 import edu.gwu.ai.codeknights.tictactoe.util.res.GetMovesRes.Move;
@@ -35,9 +36,14 @@ public abstract class AbstractOnlineChooser extends AbstractCellChooser {
     final int dim = game.getDim();
     final int numCells = dim * dim;
     final Call<GetMovesRes> call = API.getApiService().getMoves(String.valueOf(gameId), numCells);
+    final GameEvents.OnlineCall event = GameEvents.beginOnlineCall();
     try {
       final Response<GetMovesRes> response = call.execute();
       final GetMovesRes body = response.body();
+      if (event != null) {
+        event.record(gameId, "get moves", response.code(),
+          body != null && API.API_CODE_SUCCESS.equals(body.getCode()));
+      }
       if(body == null){
         return null;
       }
@@ -50,6 +56,9 @@ public abstract class AbstractOnlineChooser extends AbstractCellChooser {
       }
     }
     catch (final IOException e) {
+      if (event != null) {
+        event.record(gameId, "get moves", -1, false);
+      }
       Logger.error(e, "error while fetching moves from server to fast-forward game");
     }
     return null;
@@ -1,36 +1,126 @@
 package edu.gwu.ai.codeknights.tictactoe.chooser;
 
+import edu.gwu.ai.codeknights.tictactoe.core.BitBoard;
+import edu.gwu.ai.codeknights.tictactoe.core.BitGame;
 import edu.gwu.ai.codeknights.tictactoe.core.Cell;
 import edu.gwu.ai.codeknights.tictactoe.core.Game;
-import edu.gwu.ai.codeknights.tictactoe.core.Player;
 import edu.gwu.ai.codeknights.tictactoe.filter.AbstractCellFilter;
+import edu.gwu.ai.codeknights.tictactoe.jfr.GameEvents;
+import edu.gwu.ai.codeknights.tictactoe.util.Const;
+import org.pmw.tinylog.Logger;
 
 import java.util.*;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
 public class AlphaBetaPruningChooser extends AbstractCellChooser {
 
+  private static final long INFINITY = Long.MAX_VALUE / 2;
+
+  /**
+   * Value for the deadline of a search that has no time limit.
+   */
+  protected static final long NO_DEADLINE = Long.MAX_VALUE;
+
+  public static final int NO_MAX_DEPTH = 0;
+
+  /**
+   * The deadline and the stop flag are checked once every this many nodes (must be a power of two).
+   */
+  private static final int NODES_PER_STOP_CHECK = 64;
+
+  /**
+   * Runs the helper threads of all searches. It is shared (rather than one per chooser, which would never be shut down)
+   * and caches threads, so it has as many as the searches running at the same time need, and lets idle ones end.
+   */
+  private static final ExecutorService HELPER_EXECUTOR = Executors.newCachedThreadPool(runnable -> {
+    final Thread thread = new Thread(runnable, "abp-helper");
+    thread.setDaemon(true);
+    return thread;
+  });
+
   private AbstractCellFilter filter;
 
-  private final Map<String, SearchResult> resultMap;
+  private static volatile boolean patternEvaluation = Const.PATTERN_EVALUATION_DEFAULT;
+
+  private final TranspositionTable table;
+  private final int numThreads;
+
+  private volatile boolean stopRequested;
+  private volatile boolean tableAgeKept;
+  private long gameId;
 
   private Long bestScore;
   private Set<Cell> bestCells;
-
-  public AlphaBetaPruningChooser(final AbstractCellFilter filter) {
+  private int completedDepth;
+  private boolean exhausted;
+  private int maxDepth;
+  private SearchStats stats;
+  private long startTime;
+  private long bestCellsTime;
+
+  public AlphaBetaPruningChooser(final AbstractCellFilter filter, final int tableSizeMb, final int numThreads) {
     this.filter = filter;
 
-    resultMap = new HashMap<>();
+    table = new TranspositionTable(tableSizeMb);
+    this.numThreads = Math.max(1, numThreads);
 
+    stopRequested = false;
+    tableAgeKept = false;
+    gameId = 0L;
     bestScore = null;
     bestCells = null;
+    completedDepth = 0;
+    exhausted = false;
+    maxDepth = NO_MAX_DEPTH;
+    stats = new SearchStats();
+    startTime = 0L;
+    bestCellsTime = 0L;
+  }
+
+  public AlphaBetaPruningChooser(final AbstractCellFilter filter, final int tableSizeMb) {
+    this(filter, tableSizeMb, Const.SEARCH_THREADS_DEFAULT);
+  }
+
+  public AlphaBetaPruningChooser(final AbstractCellFilter filter) {
+    this(filter, Const.TRANSPOSITION_TABLE_SIZE_MB_DEFAULT);
   }
 
   public AlphaBetaPruningChooser() {
     this(null);
   }
 
+  /**
+   * Check whether searches evaluate leaves with {@link BitGame#evaluateSidePatterns(int)} (instead of
+   * {@link BitGame#evaluateSideUtility(int)}).
+   *
+   * @return {@code true} if pattern evaluation is used
+   */
+  public static boolean isPatternEvaluation() {
+    return patternEvaluation;
+  }
+
+  /**
+   * Set whether searches (from now on) evaluate leaves with {@link BitGame#evaluateSidePatterns(int)} (instead of
+   * {@link BitGame#evaluateSideUtility(int)}).
+   *
+   * @param enabled {@code true} to use pattern evaluation
+   */
+  public static void setPatternEvaluation(final boolean enabled) {
+    patternEvaluation = enabled;
+  }
+
+  public int getNumThreads() {
+    return numThreads;
+  }
+
   public AbstractCellFilter getFilter() {
     return filter;
   }
@@ -39,170 +129,644 @@ public class AlphaBetaPruningChooser extends AbstractCellChooser {
     this.filter = filter;
   }
 
+  public int getMaxDepth() {
+    return maxDepth;
+  }
+
+  /**
+   * Limit the depth of the iterative deepening, e.g. for fixed-depth benchmarks.
+   *
+   * @param maxDepth the deepest iteration to search, or {@link #NO_MAX_DEPTH}
+   */
+  public void setMaxDepth(final int maxDepth) {
+    if (maxDepth < 0) {
+      throw new IllegalArgumentException("maxDepth must be >= 0");
+    }
+    this.maxDepth = maxDepth;
+  }
+
+  /**
+   * Ask the search that is currently running (in another thread) to stop as soon as possible. It then returns one of
+   * the best cells of the last iteration it completed.
+   */
+  public void stop() {
+    stopRequested = true;
+  }
+
+  /**
+   * Start a new search age in the transposition table, so that the entries of earlier searches are replaced first.
+   * Each search does this when it starts, unless the age is kept (see {@link #setTableAgeKept(boolean)}).
+   */
+  protected void ageTable() {
+    table.newSearch();
+  }
+
+  /**
+   * Set whether searches keep the age of the transposition table, instead of starting a new one. While it is kept, no
+   * search replaces the entries of the others first; e.g., pondering searches and the real search that follows them
+   * share their entries.
+   *
+   * @param tableAgeKept {@code true} to keep the age
+   */
+  protected void setTableAgeKept(final boolean tableAgeKept) {
+    this.tableAgeKept = tableAgeKept;
+  }
+
   @Override
   public Cell chooseCell(final Stream<Cell> input, final Game game) {
+    return chooseCell(input, game, System.nanoTime());
+  }
+
+  /**
+   * Choose a cell, counting the time limit (if the chooser has one) from the given start time instead of from now, so
+   * that time already spent on the move (e.g., by other choosers that were tried first) is included.
+   *
+   * @param input     the candidate cells
+   * @param game      the game
+   * @param startTime the start time, as a {@link System#nanoTime()} value
+   *
+   * @return the chosen cell
+   */
+  public Cell chooseCell(final Stream<Cell> input, final Game game, final long startTime) {
+    return search(input, game, NO_DEADLINE);
+  }
+
+  /**
+   * Search by iterative deepening until the game tree is exhausted, the deadline passes, or {@link #stop()} is called.
+   * The deadline and the stop flag are checked every few nodes, so the search stops within milliseconds.
+   *
+   * NOTE: with more than one thread, this is a "lazy SMP" search: helper threads run the same iterative deepening on
+   * their own copies of the game, starting at staggered depths and with their own (random) move order, and share only
+   * the transposition table. Their results are never used directly; they fill the table with entries that let the
+   * calling thread, whose iterations are the only ones reported, search faster.
+   *
+   * @param input    the candidate cells
+   * @param game     the game
+   * @param deadline the deadline, as a {@link System#nanoTime()} value, or {@link #NO_DEADLINE}
+   *
+   * @return one of the best cells of the last completed iteration (or, if no iteration completed, any candidate cell)
+   */
+  protected Cell search(final Stream<Cell> input, final Game game, final long deadline) {
+    return search(input, game, deadline, null);
+  }
+
+  /**
+   * Search as {@link #search(Stream, Game, long)} does, but also stop once the given flag is set. Unlike the flag set
+   * by {@link #stop()}, which each search clears when it starts, this one is owned by the caller; so it can stop a
+   * series of searches (e.g., pondering), even one that has not started yet when it is set.
+   *
+   * @param input    the candidate cells
+   * @param game     the game
+   * @param deadline the deadline, as a {@link System#nanoTime()} value, or {@link #NO_DEADLINE}
+   * @param stopFlag the flag that stops the search, or {@code null}
+   *
+   * @return one of the best cells of the last completed iteration (or, if no iteration completed, any candidate cell)
+   */
+  protected Cell search(final Stream<Cell> input, final Game game, final long deadline,
+                        final AtomicBoolean stopFlag) {
     // Starting a new search, initialize results
+    stopRequested = false;
+    gameId = game.getGameId();
     bestScore = null;
     bestCells = new HashSet<>();
+    completedDepth = 0;
+    exhausted = false;
+    stats = new SearchStats();
+    startTime = System.nanoTime();
+    bestCellsTime = startTime;
+    if (!tableAgeKept) {
+      table.newSearch();
+    }
 
-    // Shuffle input cells
+    // Collect root moves
     final List<Cell> cells = input.collect(Collectors.toList());
-    Collections.shuffle(cells);
-
-    // Create a copy of the game
-    final Game copy = game.getCopy();
-    final Player player = copy.getNextPlayer();
-    final Player opponent = copy.getOtherPlayer(player);
-
-    // Set max depth to number of empty spaces
-    int curMaxDepth = 1;
-    final int maxDepth = copy.getBoard().countEmpty();
-    while (curMaxDepth < maxDepth) {
-
-      // Player tries each available cell
-      for (final Cell cell : cells) {
-        final Cell copyCell = copy.getBoard().getCell(cell.getRowIdx(), cell.getColIdx());
-        if (copyCell.isEmpty()) {
-          copyCell.setPlayer(player);
-          final SearchResult result = abp(copy, player, opponent, Long.MIN_VALUE, Long.MAX_VALUE, 1, curMaxDepth);
-          copyCell.setPlayer(null);
-          if (bestScore == null || result.getScore() >= bestScore) {
-            if (bestScore != null && result.getScore() > bestScore) {
-              bestCells.clear();
-            }
-            bestScore = result.getScore();
-            bestCells.add(cell);
-          }
+    final BitGame copy = new BitGame(game);
+    final RootMoves rootMoves = new RootMoves(cells, copy.getBoard());
+    if (rootMoves.num == 0) {
+      return null;
+    }
+
+    // Start helper threads, if any
+    final AtomicBoolean helpersStop = new AtomicBoolean(false);
+    final List<Future<?>> helpers = new ArrayList<>();
+    for (int helperIdx = 1; helperIdx < numThreads; helperIdx++) {
+      final int startDepth = 1 + helperIdx % 2;
+      final BitGame helperCopy = copy.getCopy();
+      final RootMoves helperRootMoves = new RootMoves(cells, helperCopy.getBoard());
+      helpers.add(HELPER_EXECUTOR.submit(
+        () -> searchIterations(helperCopy, helperRootMoves, startDepth, deadline, helpersStop, null)));
+    }
+
+    // Search in this thread
+    try {
+      exhausted = searchIterations(copy, rootMoves, 1, deadline, stopFlag, this::publishIteration);
+    }
+    finally {
+      stats.setElapsedNanos(System.nanoTime() - startTime);
+
+      // Stop helper threads, and wait for them, so that none keeps running into the next search
+      helpersStop.set(true);
+      for (final Future<?> helper : helpers) {
+        try {
+          helper.get();
+        }
+        catch (final InterruptedException e) {
+          Thread.currentThread().interrupt();
+        }
+        catch (final ExecutionException e) {
+          Logger.error(e.getCause(), "helper search thread failed");
         }
       }
-
-      // Increase max depth (iterative deepening)
-      curMaxDepth++;
+      Logger.info("search stats: {}", stats);
     }
 
-    // Return any of the equally-best cells
+    // Return any of the equally-best cells (or, if not even the first iteration completed, the first candidate)
+    if (bestCells.isEmpty()) {
+      return rootMoves.cells[0];
+    }
     return bestCells.stream().findAny().orElse(null);
   }
 
-  private SearchResult abp(final Game game, final Player player, final Player opponent, long alpha, long beta,
-                           final int curDepth, final int maxDepth) {
+  private void publishIteration(final RootMoves rootMoves, final int depth, final long iterationNodes,
+                                final long iterationNanos) {
+    stats.addIteration(depth, iterationNodes, iterationNanos);
+    if (!rootMoves.bestCells.equals(bestCells)) {
+      bestCellsTime = System.nanoTime();
+    }
+    bestScore = rootMoves.bestScore;
+    bestCells = rootMoves.bestCells;
+    completedDepth = depth;
+  }
 
-    // Check for terminal state or stopping condition
-    final boolean isGameOver = game.isGameOver();
-    if (isGameOver || curDepth >= maxDepth) {
-      long utility = game.evaluatePlayerUtility(player);
-      if (isGameOver) {
-        if (game.didPlayerWin(player)) {
-          utility = Math.max(1L, utility);
+  private boolean searchIterations(final BitGame copy, final RootMoves rootMoves, final int startDepth,
+                                   final long deadline, final AtomicBoolean extraStop,
+                                   final IterationListener listener) {
+    // Set max depth to number of empty spaces (but search at least one ply), unless limited
+    int curMaxDepth = startDepth;
+    final int treeDepth = Math.max(2, copy.getBoard().countEmpty());
+    final int maxDepth = this.maxDepth != NO_MAX_DEPTH ? Math.min(treeDepth, this.maxDepth + 1) : treeDepth;
+    final long aspirationWindow = copy.getBoard().getNumCells();
+    final SearchContext context = new SearchContext(maxDepth, copy.getBoard().getNumCells(), deadline, extraStop);
+    GameEvents.SearchIteration iterationEvent = null;
+    long iterationStartNodes = 0L;
+    try {
+      while (curMaxDepth < maxDepth) {
+        iterationStartNodes = context.numNodes;
+        final long iterationStartTime = System.nanoTime();
+        iterationEvent = GameEvents.beginSearchIteration();
+        searchIteration(copy, rootMoves, curMaxDepth, aspirationWindow, context);
+        if (iterationEvent != null) {
+          iterationEvent.record(gameId, curMaxDepth, context.numNodes - iterationStartNodes, true);
+          iterationEvent = null;
         }
-        else if (game.didPlayerWin(opponent)) {
-          utility = Math.min(-1L, utility);
+        if (listener != null) {
+          listener.iterationCompleted(rootMoves, curMaxDepth, context.numNodes - iterationStartNodes,
+            System.nanoTime() - iterationStartTime);
         }
+
+        // Increase max depth (iterative deepening)
+        curMaxDepth++;
+      }
+      return maxDepth == treeDepth;
+    }
+    catch (final SearchStoppedException e) {
+      if (iterationEvent != null) {
+        iterationEvent.record(gameId, curMaxDepth, context.numNodes - iterationStartNodes, false);
+      }
+      if (listener != null) {
+        Logger.debug("search stopped after completing depth {}", curMaxDepth - 1);
       }
-      return new SearchResult(curDepth, maxDepth, isGameOver, utility);
+      return false;
     }
+    finally {
+      stats.addCounts(context.numNodes, context.numLeafEvals, context.numTtProbes, context.numTtHits,
+        context.numTtStores, context.cutoffsByMoveIdx);
+    }
+  }
 
-    // Check if we've already solved this state
-    synchronized (resultMap) {
-      final String hash = game.getBoardHash();
-      final SearchResult result = resultMap.get(hash);
-      if (result != null) {
-        if (result.didTerminate() || result.getDepthReached() >= curDepth) {
-          return result;
-        }
+  private void searchIteration(final BitGame copy, final RootMoves rootMoves, final int curMaxDepth,
+                               final long aspirationWindow, final SearchContext context) {
+    final int playerSide = copy.getNextSide();
+    final Cell[] rootCells = rootMoves.cells;
+    final int[] rootIdxs = rootMoves.moves;
+    final long[] rootScores = rootMoves.scores;
+
+    // Search the previous best cell first, with an aspiration window around the previous best score
+    final Long prevScore = rootMoves.bestScore;
+    long alpha = prevScore != null ? prevScore - aspirationWindow : -INFINITY;
+    long beta = prevScore != null ? prevScore + aspirationWindow : INFINITY;
+    long iterationScore;
+    while (true) {
+      iterationScore = searchRootMove(copy, rootIdxs[0], playerSide, alpha, beta, curMaxDepth, context);
+      if (iterationScore <= alpha && alpha > -INFINITY) {
+        alpha = -INFINITY;
+      }
+      else if (iterationScore >= beta && beta < INFINITY) {
+        beta = INFINITY;
+      }
+      else {
+        break;
+      }
+    }
+    rootScores[0] = iterationScore;
+    final Set<Cell> iterationCells = new HashSet<>();
+    iterationCells.add(rootCells[0]);
+
+    // Try the other cells with a null window just below the best score, so that equally-best cells still fail high
+    // and are re-searched for their exact score
+    for (int i = 1; i < rootMoves.num; i++) {
+      long score = searchRootMove(copy, rootIdxs[i], playerSide, iterationScore - 1, iterationScore, curMaxDepth,
+        context);
+      if (score >= iterationScore) {
+        score = searchRootMove(copy, rootIdxs[i], playerSide, iterationScore - 1, INFINITY, curMaxDepth, context);
+      }
+      rootScores[i] = score;
+      if (score > iterationScore) {
+        iterationScore = score;
+        iterationCells.clear();
+      }
+      if (score == iterationScore) {
+        iterationCells.add(rootCells[i]);
+      }
+    }
+    rootMoves.bestScore = iterationScore;
+    rootMoves.bestCells = iterationCells;
+    rootMoves.sort();
+  }
+
+  private long searchRootMove(final BitGame game, final int idx, final int side, final long alpha, final long beta,
+                              final int depth, final SearchContext context) {
+    game.makeMove(idx, side);
+    final long score = -abp(game, BitBoard.getOtherSide(side), -beta, -alpha, depth - 1, 1, context);
+    game.unmakeMove();
+    return score;
+  }
+
+  /**
+   * Negamax alpha-beta search with a transposition table. Scores are from the perspective of the side to move.
+   *
+   * NOTE: this is a principal-variation search: the first move is searched with the full window, and the others with a
+   * null window (enough to prove that they are no better); a move that turns out to be better is searched again with
+   * the full window.
+   *
+   * @param game        the game, which is restored before returning
+   * @param side        the side to move
+   * @param alpha       lower bound of the search window
+   * @param beta        upper bound of the search window
+   * @param depth       remaining depth; the position is evaluated when this reaches zero
+   * @param ply         distance from the root
+   * @param context     move buffers and move-ordering state of this search
+   *
+   * @return the score of the position (fail-soft: may lie outside of the window, as a bound)
+   */
+  private long abp(final BitGame game, final int side, long alpha, long beta, final int depth, final int ply,
+                   final SearchContext context) {
+
+    // Check (every few nodes) whether the search must stop
+    context.numNodes++;
+    if ((context.numNodes & (NODES_PER_STOP_CHECK - 1)) == 0
+      && (stopRequested || context.isStopped())) {
+      throw new SearchStoppedException();
+    }
+
+    // Check for terminal state or stopping condition
+    final boolean isGameOver = game.isGameOver();
+    if (isGameOver || depth <= 0) {
+      context.numLeafEvals++;
+      return evaluate(game, side, isGameOver);
+    }
+
+    // Check if we've already searched this state deeply enough
+    final long hash = game.getBoardHash();
+    final long entry = table.probe(hash);
+    context.numTtProbes++;
+    if (entry != 0L) {
+      context.numTtHits++;
+    }
+    final int ttMove = entry != 0L ? TranspositionTable.getMove(entry) : TranspositionTable.NO_MOVE;
+    if (entry != 0L && TranspositionTable.getDepth(entry) >= depth) {
+      final long score = TranspositionTable.getScore(entry);
+      final int flag = TranspositionTable.getFlag(entry);
+      if (flag == TranspositionTable.FLAG_EXACT
+        || (flag == TranspositionTable.FLAG_LOWER && score >= beta)
+        || (flag == TranspositionTable.FLAG_UPPER && score <= alpha)) {
+        return score;
       }
     }
 
-    // Filter and shuffle cells
-    final List<Cell> filteredCells = new ArrayList<>();
+    // Filter and order cells (shuffled first, so that ties are broken randomly)
+    final int[] moves = context.moves[ply];
+    final int numMoves;
     if (filter != null) {
-      filteredCells.addAll(filter.filterCells(game).collect(Collectors.toList()));
+      final GameEvents.Filter filterEvent = GameEvents.beginFilter();
+      numMoves = filter.filterIndices(game, moves);
+      if (filterEvent != null && filterEvent.shouldCommit()) {
+        filterEvent.record(gameId, filter.getClass().getSimpleName(), depth, numMoves);
+      }
     }
     else {
-      filteredCells.addAll(game.getBoard().getEmptyCells());
+      numMoves = game.getBoard().collectEmpty(moves);
     }
-    Collections.shuffle(filteredCells);
+    shuffle(moves, numMoves);
+    context.orderMoves(moves, numMoves, side, ply, ttMove);
 
     // Try all possible moves
-    final Player curPlayer = game.getNextPlayer();
-    SearchResult bestResult = null;
-    for (final Cell cell : filteredCells) {
-      if (cell.isEmpty()) {
-        cell.setPlayer(curPlayer);
-        final SearchResult result = abp(game, player, opponent, alpha, beta, curDepth + 1, maxDepth);
-        cell.setPlayer(null);
-        if (player.equals(curPlayer)) {
-          if (result.getScore() > alpha) {
-            alpha = result.getScore();
-            bestResult = result;
-          }
+    final long alphaOrig = alpha;
+    final int opponent = BitBoard.getOtherSide(side);
+    long bestScore = -INFINITY;
+    int bestMove = TranspositionTable.NO_MOVE;
+    for (int i = 0; i < numMoves; i++) {
+      final int idx = moves[i];
+      if (game.getBoard().isEmpty(idx)) {
+        game.makeMove(idx, side);
+        long score;
+        if (bestMove == TranspositionTable.NO_MOVE) {
+          score = -abp(game, opponent, -beta, -alpha, depth - 1, ply + 1, context);
         }
         else {
-          if (result.getScore() < beta) {
-            beta = result.getScore();
-            bestResult = result;
+          score = -abp(game, opponent, -alpha - 1, -alpha, depth - 1, ply + 1, context);
+          if (score > alpha && score < beta) {
+            score = -abp(game, opponent, -beta, -alpha, depth - 1, ply + 1, context);
           }
         }
+        game.unmakeMove();
+        if (score > bestScore) {
+          bestScore = score;
+          bestMove = idx;
+        }
+        if (score > alpha) {
+          alpha = score;
+        }
         if (alpha >= beta) {
+          context.addCutoff(idx, side, ply, depth, i);
           break;
         }
       }
     }
 
-    // Update score map
-    synchronized (resultMap) {
-      final String hash = game.getBoardHash();
-      resultMap.put(hash, bestResult);
+    // No move to try (e.g., filtered out), so treat as a leaf
+    if (bestMove == TranspositionTable.NO_MOVE) {
+      context.numLeafEvals++;
+      return evaluate(game, side, false);
+    }
+
+    // Update transposition table
+    final int flag;
+    if (bestScore <= alphaOrig) {
+      flag = TranspositionTable.FLAG_UPPER;
+    }
+    else if (bestScore >= beta) {
+      flag = TranspositionTable.FLAG_LOWER;
+    }
+    else {
+      flag = TranspositionTable.FLAG_EXACT;
+    }
+    table.store(hash, bestScore, depth, flag, bestMove);
+    context.numTtStores++;
+
+    // Return best score
+    return bestScore;
+  }
+
+  /**
+   * Evaluate a leaf for the side to move; a won (lost) game always scores positive (negative).
+   *
+   * @param game       the game
+   * @param side       the side to move
+   * @param isGameOver whether the game is over
+   *
+   * @return the score of the position, from the perspective of the side to move
+   */
+  static long evaluate(final BitGame game, final int side, final boolean isGameOver) {
+    long utility = patternEvaluation ? game.evaluateSidePatterns(side) : game.evaluateSideUtility(side);
+    if (isGameOver) {
+      if (game.didSideWin(side)) {
+        utility = Math.max(1L, utility);
+      }
+      else if (game.didSideWin(BitBoard.getOtherSide(side))) {
+        utility = Math.min(-1L, utility);
+      }
     }
+    return utility;
+  }
 
-    // Return best result
-    return bestResult;
+  static void shuffle(final int[] values, final int num) {
+    final Random random = ThreadLocalRandom.current();
+    for (int i = num - 1; i > 0; i--) {
+      final int j = random.nextInt(i + 1);
+      final int tmp = values[i];
+      values[i] = values[j];
+      values[j] = tmp;
+    }
   }
 
   protected Set<Cell> getBestCells() {
     return bestCells;
   }
 
-  public static class SearchResult {
+  protected Long getBestScore() {
+    return bestScore;
+  }
 
-    private int depthReached;
-    private int maxDepth;
-    private boolean didTerminate;
-    private long score;
+  /**
+   * Get the depth of the last iteration that the last search completed.
+   *
+   * @return the depth (in plies, including the root move), or zero if no iteration completed
+   */
+  public int getCompletedDepth() {
+    return completedDepth;
+  }
 
-    public SearchResult(final int depthReached, final int maxDepth, final boolean didTerminate, final long score) {
-      this.depthReached = depthReached;
-      this.maxDepth = maxDepth;
-      this.didTerminate = didTerminate;
-      this.score = score;
-    }
+  /**
+   * Check whether the last search ran to the end of the game tree (as limited by the filter), rather than being stopped
+   * by the deadline or by {@link #stop()}; if so, searching the same position again would not give a better cell.
+   *
+   * @return {@code true} if the last search was exhausted, {@code false} otherwise
+   */
+  public boolean isExhausted() {
+    return exhausted;
+  }
+
+  /**
+   * Get the number of nodes visited by the last search, in all of its threads.
+   *
+   * @return the number of nodes
+   */
+  public long getNumNodes() {
+    return stats.getNumNodes();
+  }
+
+  /**
+   * Get the statistics of the last search (see {@link SearchStats}).
+   *
+   * @return the statistics
+   */
+  public SearchStats getSearchStats() {
+    return stats;
+  }
 
-    public int getDepthReached() {
-      return depthReached;
+  @Override
+  public SearchStats getLastSearchStats() {
+    return stats;
+  }
+
+  /**
+   * Get the time from the start of the last search until its completed iterations last changed the set of best cells
+   * (i.e., how long it took to settle on its answer).
+   *
+   * @return the time in milliseconds
+   */
+  public long getBestCellsElapsedMs() {
+    return TimeUnit.NANOSECONDS.toMillis(bestCellsTime - startTime);
+  }
+
+  /**
+   * Per-search state: one move buffer per ply, the move-ordering heuristics, and this thread's counters (which are
+   * added to the {@link SearchStats} when the thread finishes). Moves are tried in this order: the
+   * best move stored in the transposition table; the two killer moves of the ply (recent moves that caused a cutoff at
+   * the same distance from the root); then by history score (how often, and how deep, a move by the same side caused a
+   * cutoff anywhere in the tree).
+   */
+  private static class SearchContext {
+
+    private static final long TT_MOVE_SCORE = Long.MAX_VALUE;
+    private static final long KILLER_1_SCORE = Long.MAX_VALUE - 1;
+    private static final long KILLER_2_SCORE = Long.MAX_VALUE - 2;
+
+    private final int[][] moves;
+    private final long[] moveScores;
+    private final int[][] killers;
+    private final long[][] history;
+    private final long deadline;
+    private final AtomicBoolean extraStop;
+    private long numNodes;
+    private long numLeafEvals;
+    private long numTtProbes;
+    private long numTtHits;
+    private long numTtStores;
+    private final long[] cutoffsByMoveIdx;
+
+    private SearchContext(final int maxDepth, final int numCells, final long deadline,
+                          final AtomicBoolean extraStop) {
+      moves = new int[maxDepth + 1][numCells];
+      moveScores = new long[numCells];
+      killers = new int[maxDepth + 1][2];
+      for (final int[] plyKillers : killers) {
+        Arrays.fill(plyKillers, TranspositionTable.NO_MOVE);
+      }
+      history = new long[2][numCells];
+      this.deadline = deadline;
+      this.extraStop = extraStop;
+      numNodes = 0L;
+      numLeafEvals = 0L;
+      numTtProbes = 0L;
+      numTtHits = 0L;
+      numTtStores = 0L;
+      cutoffsByMoveIdx = new long[SearchStats.MAX_CUTOFF_MOVE_IDX + 1];
     }
 
-    public int getMaxDepth() {
-      return maxDepth;
+    private boolean isStopped() {
+      return (extraStop != null && extraStop.get())
+        || (deadline != NO_DEADLINE && System.nanoTime() - deadline >= 0);
     }
 
-    public boolean didTerminate() {
-      return didTerminate;
+    private void orderMoves(final int[] buffer, final int num, final int side, final int ply, final int ttMove) {
+      final int killer1 = killers[ply][0];
+      final int killer2 = killers[ply][1];
+      for (int i = 0; i < num; i++) {
+        final int move = buffer[i];
+        final long score;
+        if (move == ttMove) {
+          score = TT_MOVE_SCORE;
+        }
+        else if (move == killer1) {
+          score = KILLER_1_SCORE;
+        }
+        else if (move == killer2) {
+          score = KILLER_2_SCORE;
+        }
+        else {
+          score = history[side][move];
+        }
+
+        // Insertion sort, descending by score
+        int j = i;
+        while (j > 0 && moveScores[j - 1] < score) {
+          moveScores[j] = moveScores[j - 1];
+          buffer[j] = buffer[j - 1];
+          j--;
+        }
+        moveScores[j] = score;
+        buffer[j] = move;
+      }
     }
 
-    public long getScore() {
-      return score;
+    private void addCutoff(final int move, final int side, final int ply, final int depth, final int moveIdx) {
+      cutoffsByMoveIdx[Math.min(moveIdx, SearchStats.MAX_CUTOFF_MOVE_IDX)]++;
+      if (killers[ply][0] != move) {
+        killers[ply][1] = killers[ply][0];
+        killers[ply][0] = move;
+      }
+      history[side][move] = Math.min(KILLER_2_SCORE - 1, history[side][move] + (long) depth * depth);
     }
+  }
 
-    public void setScore(final long score) {
-      this.score = score;
+  /**
+   * The moves at the root of one thread's search, with their scores in the last iteration; after each iteration, they
+   * are re-sorted by those scores (best first), so that the next iteration starts with the best move.
+   */
+  private static class RootMoves {
+
+    private final Cell[] cells;
+    private final int[] moves;
+    private final long[] scores;
+    private final int num;
+
+    private Long bestScore;
+    private Set<Cell> bestCells;
+
+    private RootMoves(final List<Cell> candidates, final BitBoard board) {
+      final List<Cell> shuffled = new ArrayList<>(candidates);
+      Collections.shuffle(shuffled);
+      cells = new Cell[shuffled.size()];
+      moves = new int[shuffled.size()];
+      scores = new long[shuffled.size()];
+      int numMoves = 0;
+      for (final Cell cell : shuffled) {
+        final int idx = board.getIdx(cell.getRowIdx(), cell.getColIdx());
+        if (board.isEmpty(idx)) {
+          cells[numMoves] = cell;
+          moves[numMoves] = idx;
+          numMoves++;
+        }
+      }
+      num = numMoves;
+      bestScore = null;
+      bestCells = new HashSet<>();
     }
 
-    @Override
-    public String toString() {
-      return "depthReached=" + depthReached +
-          ", maxDepth=" + maxDepth +
-          ", didTerminate=" + didTerminate +
-          ", score=" + score;
+    private void sort() {
+      // Stable insertion sort, descending by score
+      for (int i = 1; i < num; i++) {
+        final Cell cell = cells[i];
+        final int move = moves[i];
+        final long score = scores[i];
+        int j = i;
+        while (j > 0 && scores[j - 1] < score) {
+          cells[j] = cells[j - 1];
+          moves[j] = moves[j - 1];
+          scores[j] = scores[j - 1];
+          j--;
+        }
+        cells[j] = cell;
+        moves[j] = move;
+        scores[j] = score;
+      }
     }
   }
+
+  private interface IterationListener {
+
+    void iterationCompleted(RootMoves rootMoves, int depth, long iterationNodes, long iterationNanos);
+  }
 }
@@ -5,6 +5,7 @@ import edu.gwu.ai.codeknights.tictactoe.core.Game;
 import edu.gwu.ai.codeknights.tictactoe.filter.AbstractCellFilter;
 import edu.gwu.ai.codeknights.tictactoe.filter.EmptyCellFilter;
 import edu.gwu.ai.codeknights.tictactoe.filter.PopulatedNeighborFilter;
+import edu.gwu.ai.codeknights.tictactoe.util.Const;
 
 import java.util.List;
 import java.util.stream.Collectors;
@@ -13,17 +14,25 @@ import java.util.stream.Stream;
 public class CaseByCaseChooser extends AbstractCellChooser {
 
   private final RuleBasedChooser ruleBasedChooser;
+  private final ThreatSpaceChooser threatSpaceChooser;
+  private final ProofNumberChooser proofNumberChooser;
   private final AlphaBetaPruningChooser abpChooser;
 
   private final PopulatedNeighborFilter abpNeighborFilter;
   private final EmptyCellFilter abpAllEmptyFilter;
 
+  private SearchStats lastSearchStats;
+
   public CaseByCaseChooser(final AlphaBetaPruningChooser abp) {
     ruleBasedChooser = new RuleBasedChooser();
+    threatSpaceChooser = new ThreatSpaceChooser();
+    proofNumberChooser = new ProofNumberChooser();
     abpChooser = abp;
 
     abpNeighborFilter = new PopulatedNeighborFilter();
     abpAllEmptyFilter = new EmptyCellFilter();
+
+    lastSearchStats = null;
   }
 
   public CaseByCaseChooser() {
@@ -32,7 +41,9 @@ public class CaseByCaseChooser extends AbstractCellChooser {
 
   @Override
   public Cell chooseCell(final Stream<Cell> input, final Game game) {
+    final long startTime = System.nanoTime();
     final List<Cell> cells = input.collect(Collectors.toList());
+    lastSearchStats = null;
 
     // Try rule-based strategy
     Cell choice = ruleBasedChooser.chooseCell(cells.stream(), game);
@@ -40,17 +51,37 @@ public class CaseByCaseChooser extends AbstractCellChooser {
       return choice;
     }
 
-    // Otherwise, play smartly
+    // Try to find a forced win (through threats only)
+    choice = threatSpaceChooser.chooseCell(cells.stream(), game);
+    if (choice != null) {
+      return choice;
+    }
+
+    // Near the end of the game, try to solve the position
+    final int numEmpty = game.getBoard().countEmpty();
+    if (numEmpty <= Const.PROOF_NUMBER_MAX_EMPTY_DEFAULT) {
+      choice = proofNumberChooser.chooseCell(cells.stream(), game);
+      if (choice != null) {
+        return choice;
+      }
+    }
+
+    // Otherwise, play smartly (in the time that is left)
     final int dim = game.getDim();
     final int numCells = dim * dim;
-    final int numEmpty = game.getBoard().countEmpty();
     final int numPopulated = numCells - numEmpty;
     AbstractCellFilter filter = abpAllEmptyFilter;
     if (numPopulated < 3) {
       filter = abpNeighborFilter;
     }
     abpChooser.setFilter(filter);
-    choice = abpChooser.chooseCell(filter.filterCells(cells.stream(), game), game);
+    choice = abpChooser.chooseCell(filter.filterCells(cells.stream(), game), game, startTime);
+    lastSearchStats = abpChooser.getSearchStats();
     return choice;
   }
+
+  @Override
+  public SearchStats getLastSearchStats() {
+    return lastSearchStats;
+  }
 }
@@ -1,6 +1,7 @@
 package edu.gwu.ai.codeknights.tictactoe.chooser;
 
 import edu.gwu.ai.codeknights.tictactoe.filter.PopulatedNeighborFilter;
+import edu.gwu.ai.codeknights.tictactoe.util.Const;
 
 import java.util.EnumSet;
 import java.util.List;
@@ -12,57 +13,100 @@ public enum Chooser {
   ALPHA_BETA_PRUNING("AlphaBetaPruning") {
 
     @Override
-    public AbstractCellChooser createChooser() {
-      return new AlphaBetaPruningChooser();
+    public AbstractCellChooser createChooser(final int numThreads) {
+      return new AlphaBetaPruningChooser(null, Const.TRANSPOSITION_TABLE_SIZE_MB_DEFAULT, numThreads);
     }
   },
   ALPHA_BETA_PRUNING_NEIGHBOR("AlphaBetaPruningNeighbor") {
 
     @Override
-    public AbstractCellChooser createChooser() {
-      return new AlphaBetaPruningChooser(new PopulatedNeighborFilter());
+    public AbstractCellChooser createChooser(final int numThreads) {
+      return new AlphaBetaPruningChooser(new PopulatedNeighborFilter(), Const.TRANSPOSITION_TABLE_SIZE_MB_DEFAULT,
+        numThreads);
     }
   },
   ABP_LIMIT_10SEC("AbpLimit10Sec") {
 
     @Override
-    public AbstractCellChooser createChooser() {
-      return new AbpTimeLimitChooser(10);
+    public AbstractCellChooser createChooser(final int numThreads) {
+      return new AbpTimeLimitChooser(10, null, numThreads);
     }
   },
   ABP_LIMIT_100SEC("AbpLimit100Sec") {
 
     @Override
-    public AbstractCellChooser createChooser() {
-      return new AbpTimeLimitChooser(100);
+    public AbstractCellChooser createChooser(final int numThreads) {
+      return new AbpTimeLimitChooser(100, null, numThreads);
     }
   },
   ABP_LIMIT_120SEC("AbpLimit120Sec") {
 
     @Override
-    public AbstractCellChooser createChooser() {
-      return new AbpTimeLimitChooser(120);
+    public AbstractCellChooser createChooser(final int numThreads) {
+      return new AbpTimeLimitChooser(120, null, numThreads);
+    }
+  },
+  YBW_LIMIT_10SEC("YbwLimit10Sec") {
+
+    @Override
+    public AbstractCellChooser createChooser(final int numThreads) {
+      return new YoungBrothersWaitChooser(10, null, Const.TRANSPOSITION_TABLE_SIZE_MB_DEFAULT, numThreads);
+    }
+  },
+  YBW_LIMIT_100SEC("YbwLimit100Sec") {
+
+    @Override
+    public AbstractCellChooser createChooser(final int numThreads) {
+      return new YoungBrothersWaitChooser(100, null, Const.TRANSPOSITION_TABLE_SIZE_MB_DEFAULT, numThreads);
+    }
+  },
+  YBW_LIMIT_120SEC("YbwLimit120Sec") {
+
+    @Override
+    public AbstractCellChooser createChooser(final int numThreads) {
+      return new YoungBrothersWaitChooser(120, null, Const.TRANSPOSITION_TABLE_SIZE_MB_DEFAULT, numThreads);
+    }
+  },
+  MCTS_LIMIT_10SEC("MctsLimit10Sec") {
+
+    @Override
+    public AbstractCellChooser createChooser(final int numThreads) {
+      return new MctsChooser(10, numThreads);
+    }
+  },
+  MCTS_LIMIT_100SEC("MctsLimit100Sec") {
+
+    @Override
+    public AbstractCellChooser createChooser(final int numThreads) {
+      return new MctsChooser(100, numThreads);
+    }
+  },
+  MCTS_LIMIT_120SEC("MctsLimit120Sec") {
+
+    @Override
+    public AbstractCellChooser createChooser(final int numThreads) {
+      return new MctsChooser(120, numThreads);
     }
   },
   CASE_BY_CASE_ABP_LIMIT_10SEC("CaseByCaseAbpLimit10Sec") {
 
     @Override
-    public AbstractCellChooser createChooser() {
-      return new CaseByCaseChooser(new AbpTimeLimitChooser(10));
+    public AbstractCellChooser createChooser(final int numThreads) {
+      return new CaseByCaseChooser(new AbpTimeLimitChooser(10, null, numThreads));
     }
   },
   CASE_BY_CASE_ABP_LIMIT_100SEC("CaseByCaseAbpLimit100Sec") {
 
     @Override
-    public AbstractCellChooser createChooser() {
-      return new CaseByCaseChooser(new AbpTimeLimitChooser(100));
+    public AbstractCellChooser createChooser(final int numThreads) {
+      return new CaseByCaseChooser(new AbpTimeLimitChooser(100, null, numThreads));
     }
   },
   CASE_BY_CASE_ABP_LIMIT_120SEC("CaseByCaseAbpLimit120Sec") {
 
     @Override
-    public AbstractCellChooser createChooser() {
-      return new CaseByCaseChooser(new AbpTimeLimitChooser(120));
+    public AbstractCellChooser createChooser(final int numThreads) {
+      return new CaseByCaseChooser(new AbpTimeLimitChooser(120, null, numThreads));
     }
   };
 
@@ -76,7 +120,14 @@ public enum Chooser {
     return name;
   }
 
-  public abstract AbstractCellChooser createChooser();
+  /**
+   * Create a chooser of this type.
+   *
+   * @param numThreads the number of search threads (used by the searching choosers only)
+   *
+   * @return the chooser
+   */
+  public abstract AbstractCellChooser createChooser(int numThreads);
 
   public static List<String> getNames() {
     return EnumSet.allOf(Chooser.class).stream()
@@ -17,10 +17,12 @@ public class MaxUtilityChooser extends AbstractCellChooser {
     final Player player = game.getNextPlayer();
     final List<Cell> cells = input.collect(Collectors.toList());
     for (final Cell cell : cells) {
-      final Player initValue = cell.getPlayer();
-      cell.setPlayer(player);
+      if (!cell.isEmpty()) {
+        continue;
+      }
+      game.makeMove(cell.getRowIdx(), cell.getColIdx(), player);
       final long utility = game.evaluatePlayerUtility(player);
-      cell.setPlayer(initValue);
+      game.unmakeMove();
       if (utility > maxUtility) {
         maxUtility = utility;
         bestCell = cell;
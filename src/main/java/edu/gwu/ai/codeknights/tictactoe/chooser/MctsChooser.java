@@ -0,0 +1,422 @@
+package edu.gwu.ai.codeknights.tictactoe.chooser;
+
+import edu.gwu.ai.codeknights.tictactoe.core.BitBoard;
+import edu.gwu.ai.codeknights.tictactoe.core.BitGame;
+import edu.gwu.ai.codeknights.tictactoe.core.Cell;
+import edu.gwu.ai.codeknights.tictactoe.core.Game;
+import edu.gwu.ai.codeknights.tictactoe.core.WindowIndex;
+import edu.gwu.ai.codeknights.tictactoe.filter.AbstractCellFilter;
+import edu.gwu.ai.codeknights.tictactoe.filter.PopulatedNeighborFilter;
+import edu.gwu.ai.codeknights.tictactoe.util.Const;
+import org.pmw.tinylog.Logger;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Monte Carlo Tree Search (UCT): repeatedly walks down a tree of moves, choosing at each node the child with the best
+ * upper confidence bound, adds one new child, plays the game out to the end, and credits the result to every node on
+ * the way. The cell whose node was visited most often when the time limit passes is chosen.
+ *
+ * The expansion filter selects the moves a node may have as children (all empty cells if it selects none), and the
+ * playout filter selects the moves a playout picks from at random (all empty cells if {@code null}); either way, a
+ * playout always completes a window when it can, and blocks one when it must.
+ *
+ * Playouts run on {@code numThreads} threads at once (the calling thread, plus helpers), each on its own copy of the
+ * board, all sharing one tree. A thread counts its visit to a node as soon as it walks through it (a "virtual loss"),
+ * so other threads see the node as less promising until the result comes back, and spread out across the tree.
+ *
+ * NOTE: the tree is kept between moves: if the next position can be reached from the last root by the moves that
+ * were played in the meantime, the search continues from that node.
+ *
+ * @author ajv
+ */
+public class MctsChooser extends AbstractCellChooser {
+
+  private static final double EXPLORATION = Math.sqrt(2.0);
+
+  /**
+   * Runs the helper threads of all searches (shared and caching threads, as in {@link AlphaBetaPruningChooser}).
+   */
+  private static final ExecutorService HELPER_EXECUTOR = Executors.newCachedThreadPool(runnable -> {
+    final Thread thread = new Thread(runnable, "mcts-helper");
+    thread.setDaemon(true);
+    return thread;
+  });
+
+  private final int limitSec;
+  private final AbstractCellFilter expansionFilter;
+  private final AbstractCellFilter playoutFilter;
+  private final int numThreads;
+  private final int maxNodes;
+
+  private Node root;
+  private BitGame rootGame;
+  private final AtomicInteger numNodes;
+  private final AtomicLong numPlayouts;
+
+  public MctsChooser(final int limitSec, final AbstractCellFilter expansionFilter,
+                     final AbstractCellFilter playoutFilter, final int numThreads, final int maxNodes) {
+    if (numThreads < 1) {
+      throw new IllegalArgumentException("numThreads must be at least 1: " + numThreads);
+    }
+    this.limitSec = limitSec;
+    this.expansionFilter = expansionFilter;
+    this.playoutFilter = playoutFilter;
+    this.numThreads = numThreads;
+    this.maxNodes = maxNodes;
+
+    root = null;
+    rootGame = null;
+    numNodes = new AtomicInteger();
+    numPlayouts = new AtomicLong();
+  }
+
+  public MctsChooser(final int limitSec, final AbstractCellFilter expansionFilter,
+                     final AbstractCellFilter playoutFilter) {
+    this(limitSec, expansionFilter, playoutFilter, Const.SEARCH_THREADS_DEFAULT, Const.MCTS_MAX_NODES_DEFAULT);
+  }
+
+  public MctsChooser(final int limitSec, final int numThreads) {
+    this(limitSec, new PopulatedNeighborFilter(), null, numThreads, Const.MCTS_MAX_NODES_DEFAULT);
+  }
+
+  public MctsChooser(final int limitSec) {
+    this(limitSec, Const.SEARCH_THREADS_DEFAULT);
+  }
+
+  public int getLimitSec() {
+    return limitSec;
+  }
+
+  public AbstractCellFilter getExpansionFilter() {
+    return expansionFilter;
+  }
+
+  public AbstractCellFilter getPlayoutFilter() {
+    return playoutFilter;
+  }
+
+  public int getNumThreads() {
+    return numThreads;
+  }
+
+  /**
+   * Get the number of playouts run by the last call to {@link #chooseCell(Stream, Game)}.
+   *
+   * @return the number of playouts
+   */
+  public long getNumPlayouts() {
+    return numPlayouts.get();
+  }
+
+  /**
+   * Get the number of nodes in the tree after the last call to {@link #chooseCell(Stream, Game)} (including the nodes
+   * reused from earlier searches).
+   *
+   * @return the number of nodes
+   */
+  public int getNumNodes() {
+    return numNodes.get();
+  }
+
+  @Override
+  public Cell chooseCell(final Stream<Cell> input, final Game game) {
+    final long startTime = System.nanoTime();
+    final long deadline = startTime + TimeUnit.SECONDS.toNanos(limitSec);
+    final BitGame copy = new BitGame(game);
+    if (copy.isGameOver()) {
+      return null;
+    }
+    final BitBoard board = copy.getBoard();
+    final List<Cell> cells = input.collect(Collectors.toList());
+    final boolean[] allowed = new boolean[board.getNumCells()];
+    for (final Cell cell : cells) {
+      allowed[board.getIdx(cell.getRowIdx(), cell.getColIdx())] = true;
+    }
+
+    // Continue from the last tree if possible, but only with the allowed moves at the root
+    Node reused = findReusableRoot(copy);
+    if (reused == null) {
+      reused = new Node(-1, BitBoard.getOtherSide(copy.getNextSide()));
+    }
+    root = reused;
+    rootGame = copy.getCopy();
+    root.restrictMoves(allowed);
+    numNodes.set(root.countNodes());
+    final int reusedVisits = root.visits;
+    numPlayouts.set(0L);
+
+    // Start helper threads, if any, then run playouts in this thread
+    final List<Future<?>> helpers = new ArrayList<>();
+    for (int helperIdx = 1; helperIdx < numThreads; helperIdx++) {
+      final BitGame helperCopy = copy.getCopy();
+      helpers.add(HELPER_EXECUTOR.submit(() -> runPlayouts(helperCopy, allowed, deadline)));
+    }
+    try {
+      runPlayouts(copy, allowed, deadline);
+    }
+    finally {
+      for (final Future<?> helper : helpers) {
+        try {
+          helper.get();
+        }
+        catch (final InterruptedException e) {
+          Thread.currentThread().interrupt();
+        }
+        catch (final ExecutionException e) {
+          Logger.error(e.getCause(), "helper playout thread failed");
+        }
+      }
+    }
+
+    // Choose the most-visited move
+    final Node best = root.getMostVisitedChild();
+    final long elapsedMs = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startTime);
+    Logger.info("ran {} playouts ({} reused) in {} ms (time limit: {} seconds)", numPlayouts.get(), reusedVisits,
+      elapsedMs, limitSec);
+    if (best == null) {
+      return cells.stream()
+        .filter(cell -> board.isEmpty(board.getIdx(cell.getRowIdx(), cell.getColIdx())))
+        .findFirst()
+        .orElse(null);
+    }
+    return game.getBoard().getCell(board.getRowIdx(best.move), board.getColIdx(best.move));
+  }
+
+  /**
+   * Find the node of the last tree that the given position was reached at, if the moves played since the last search
+   * were at most one move per side.
+   */
+  private Node findReusableRoot(final BitGame game) {
+    if (root == null || rootGame == null || rootGame.getDim() != game.getDim()
+      || rootGame.getWinLength() != game.getWinLength()) {
+      return null;
+    }
+    final BitBoard oldBoard = rootGame.getBoard();
+    final BitBoard newBoard = game.getBoard();
+    int numNew = 0;
+    for (int idx = 0; idx < newBoard.getNumCells(); idx++) {
+      if (oldBoard.isEmpty(idx)) {
+        numNew += newBoard.isEmpty(idx) ? 0 : 1;
+      }
+      else if (oldBoard.getSide(idx) != newBoard.getSide(idx)) {
+        return null;
+      }
+    }
+    Node node = root;
+    for (int step = 0; step < numNew && node != null; step++) {
+      Node next = null;
+      for (final Node child : node.children) {
+        if (oldBoard.isEmpty(child.move) && newBoard.getSide(child.move) == child.side) {
+          next = child;
+          break;
+        }
+      }
+      node = next;
+    }
+    return numNew <= 2 ? node : null;
+  }
+
+  private void runPlayouts(final BitGame game, final boolean[] allowed, final long deadline) {
+    final Random random = ThreadLocalRandom.current();
+    final Node[] path = new Node[game.getBoard().getNumCells() + 1];
+    final int[] buffer = new int[game.getBoard().getNumCells()];
+    final boolean[] expanded = new boolean[1];
+    while (System.nanoTime() - deadline < 0) {
+      // Selection and expansion
+      Node node = root;
+      int numPath = 0;
+      path[numPath++] = node;
+      node.addVisit();
+      while (!game.isGameOver()) {
+        final boolean canExpand = numNodes.get() < maxNodes;
+        final Node next = node.selectOrExpand(game, numPath == 1 ? allowed : null, canExpand, buffer, random,
+          expanded);
+        if (next == null) {
+          break;
+        }
+        game.makeMove(next.move, next.side);
+        path[numPath++] = next;
+        next.addVisit();
+        if (expanded[0]) {
+          numNodes.incrementAndGet();
+          break;
+        }
+        node = next;
+      }
+
+      // Playout, then credit the result to every node on the path
+      final int winner = playout(game, buffer, random);
+      for (int i = numPath - 1; i > 0; i--) {
+        game.unmakeMove();
+      }
+      for (int i = 0; i < numPath; i++) {
+        path[i].addResult(winner);
+      }
+      numPlayouts.incrementAndGet();
+    }
+  }
+
+  /**
+   * Play the game out to the end (restoring it before returning), and get the side that won.
+   */
+  private int playout(final BitGame game, final int[] buffer, final Random random) {
+    int numMoves = 0;
+    while (!game.isGameOver()) {
+      final int side = game.getNextSide();
+      final WindowIndex index = game.getWindowIndex();
+      int num = index.collectCompletingCells(side, buffer);
+      if (num == 0) {
+        num = index.collectCompletingCells(BitBoard.getOtherSide(side), buffer);
+      }
+      if (num == 0 && playoutFilter != null) {
+        num = playoutFilter.filterIndices(game, buffer);
+      }
+      if (num == 0) {
+        num = game.getBoard().collectEmpty(buffer);
+      }
+      game.makeMove(buffer[random.nextInt(num)], side);
+      numMoves++;
+    }
+    final int winner = game.didSideWin(BitBoard.SIDE_1) ? BitBoard.SIDE_1
+      : game.didSideWin(BitBoard.SIDE_2) ? BitBoard.SIDE_2 : BitBoard.NO_SIDE;
+    for (int i = 0; i < numMoves; i++) {
+      game.unmakeMove();
+    }
+    return winner;
+  }
+
+  private int collectExpansionMoves(final BitGame game, final int[] buffer) {
+    int num = expansionFilter == null ? 0 : expansionFilter.filterIndices(game, buffer);
+    if (num == 0) {
+      num = game.getBoard().collectEmpty(buffer);
+    }
+    return num;
+  }
+
+  /**
+   * A node of the search tree: the position after {@link #move} was played by {@link #side}. Statistics are from the
+   * perspective of {@link #side}, and are updated under the node's lock.
+   */
+  private final class Node {
+
+    private final int move;
+    private final int side;
+    private final List<Node> children;
+    private int[] untried;
+    private int numUntried;
+
+    private volatile int visits;
+    private volatile double score;
+
+    private Node(final int move, final int side) {
+      this.move = move;
+      this.side = side;
+      children = new ArrayList<>();
+      untried = null;
+      numUntried = 0;
+      visits = 0;
+      score = 0.0;
+    }
+
+    private synchronized void addVisit() {
+      visits++;
+    }
+
+    private synchronized void addResult(final int winner) {
+      score += winner == side ? 1.0 : winner == BitBoard.NO_SIDE ? 0.5 : 0.0;
+    }
+
+    /**
+     * Drop children and untried moves that are not allowed (only called before the search starts).
+     */
+    private synchronized void restrictMoves(final boolean[] allowed) {
+      final Iterator<Node> it = children.iterator();
+      while (it.hasNext()) {
+        if (!allowed[it.next().move]) {
+          it.remove();
+        }
+      }
+      if (untried != null) {
+        int num = 0;
+        for (int i = 0; i < numUntried; i++) {
+          if (allowed[untried[i]]) {
+            untried[num++] = untried[i];
+          }
+        }
+        numUntried = num;
+      }
+    }
+
+    /**
+     * Add a new child for an untried move, if any (and if allowed to); otherwise, select the child with the best upper
+     * confidence bound.
+     *
+     * @return the child, or {@code null} if there are none; {@code expanded[0]} is set if it is new
+     */
+    private synchronized Node selectOrExpand(final BitGame game, final boolean[] allowed, final boolean canExpand,
+                                             final int[] buffer, final Random random, final boolean[] expanded) {
+      expanded[0] = false;
+      if (untried == null) {
+        final int num = collectExpansionMoves(game, buffer);
+        untried = new int[num];
+        for (int i = 0; i < num; i++) {
+          if (allowed == null || allowed[buffer[i]]) {
+            untried[numUntried++] = buffer[i];
+          }
+        }
+      }
+      if (numUntried > 0 && (canExpand || children.isEmpty())) {
+        final int i = random.nextInt(numUntried);
+        final Node child = new Node(untried[i], BitBoard.getOtherSide(side));
+        untried[i] = untried[--numUntried];
+        children.add(child);
+        expanded[0] = true;
+        return child;
+      }
+      Node best = null;
+      double bestValue = Double.NEGATIVE_INFINITY;
+      final double logVisits = Math.log(Math.max(1, visits));
+      for (final Node child : children) {
+        final int childVisits = Math.max(1, child.visits);
+        final double value = child.score / childVisits + EXPLORATION * Math.sqrt(logVisits / childVisits);
+        if (value > bestValue) {
+          bestValue = value;
+          best = child;
+        }
+      }
+      return best;
+    }
+
+    private synchronized int countNodes() {
+      int num = 1;
+      for (final Node child : children) {
+        num += child.countNodes();
+      }
+      return num;
+    }
+
+    private synchronized Node getMostVisitedChild() {
+      Node best = null;
+      for (final Node child : children) {
+        if (best == null || child.visits > best.visits) {
+          best = child;
+        }
+      }
+      return best;
+    }
+  }
+}
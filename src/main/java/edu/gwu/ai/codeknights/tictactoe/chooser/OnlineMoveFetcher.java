@@ -12,6 +12,21 @@ import static edu.gwu.ai.codeknights.tictactoe.util.res.GetMovesRes.Move;
 
 public class OnlineMoveFetcher extends AbstractOnlineChooser {
 
+  private final OnlineMoveMaker ponderer;
+
+  /**
+   * Construct a new fetcher that lets the given (local) move maker ponder while waiting for the remote player's move.
+   *
+   * @param ponderer the local player's move maker, or {@code null} to not ponder
+   */
+  public OnlineMoveFetcher(final OnlineMoveMaker ponderer) {
+    this.ponderer = ponderer;
+  }
+
+  public OnlineMoveFetcher() {
+    this(null);
+  }
+
   @Override
   public Cell chooseCell(final Stream<Cell> input, final Game game) {
     if (game.isGameOver()) {
@@ -27,19 +42,29 @@ public class OnlineMoveFetcher extends AbstractOnlineChooser {
     final int numMovesToFetch = Math.max(numCells, numMovesExpected);
     final Player curPlayer = game.getNextPlayer();
     final int curPlayerId = curPlayer.getId();
-    while (true) {
-      Logger.debug("fetching up to {} moves from server", numMovesToFetch);
-      List<Move> moves = getMoves(game);
-      if(moves != null && moves.size() >= numMovesExpected){
-        Move move = moves.get(0);
-        if(move.getGameId().equals(gameId) && move.getTeamId().equals(curPlayerId)){
-          return game.getBoard().getCell(move.getMoveX(), move.getMoveY());
+    if (ponderer != null) {
+      ponderer.startPondering(game);
+    }
+    try {
+      while (true) {
+        Logger.debug("fetching up to {} moves from server", numMovesToFetch);
+        List<Move> moves = getMoves(game);
+        if(moves != null && moves.size() >= numMovesExpected){
+          Move move = moves.get(0);
+          if(move.getGameId().equals(gameId) && move.getTeamId().equals(curPlayerId)){
+            return game.getBoard().getCell(move.getMoveX(), move.getMoveY());
+          }
+        }
+        try {
+          Thread.sleep(2000);
+        } catch (InterruptedException e) {
+          e.printStackTrace();
         }
       }
-      try {
-        Thread.sleep(2000);
-      } catch (InterruptedException e) {
-        e.printStackTrace();
+    }
+    finally {
+      if (ponderer != null) {
+        ponderer.stopPondering();
       }
     }
   }
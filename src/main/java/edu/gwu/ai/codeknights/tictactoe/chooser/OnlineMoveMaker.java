@@ -1,8 +1,11 @@
 package edu.gwu.ai.codeknights.tictactoe.chooser;
 
+import edu.gwu.ai.codeknights.tictactoe.core.BitGame;
 import edu.gwu.ai.codeknights.tictactoe.core.Cell;
 import edu.gwu.ai.codeknights.tictactoe.core.Game;
 import edu.gwu.ai.codeknights.tictactoe.core.Player;
+import edu.gwu.ai.codeknights.tictactoe.filter.ThreatFilter;
+import edu.gwu.ai.codeknights.tictactoe.jfr.GameEvents;
 import edu.gwu.ai.codeknights.tictactoe.util.API;
 import edu.gwu.ai.codeknights.tictactoe.util.Const;
 import org.pmw.tinylog.Logger;
@@ -11,15 +14,153 @@ import retrofit2.Response;
 
 import java.io.IOException;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.stream.Stream;
 
+/**
+ * Chooses moves for the local player in an online game, and sends them to the server.
+ *
+ * While the opponent is thinking (see {@link OnlineMoveFetcher}), this chooser can "ponder": search, in the background,
+ * our answers to the opponent's most likely replies. This fills the transposition table of the alpha-beta chooser, so
+ * that the real search after the opponent's move goes deeper in the same time; the table is not aged between the
+ * pondering searches and the real search, so that their entries are not the first to be replaced. The answer of the
+ * deepest completed iteration for each reply is kept in a reply cache. If the opponent plays one of these replies, an
+ * answer from a search that ran to the end of the game tree is played without searching again; any other is played
+ * if the real search does not complete an iteration as deep.
+ */
 public class OnlineMoveMaker extends AbstractOnlineChooser {
 
+  /**
+   * Number of opponent replies to ponder on, most likely first.
+   */
+  private static final int NUM_PONDER_REPLIES = 3;
+
+  private final int limitSec;
+  private final AbpTimeLimitChooser abpChooser;
   private final CaseByCaseChooser chooser;
 
-  public OnlineMoveMaker(final int limitSec) {
+  private final Map<Long, PonderedAnswer> replyCache;
+  private AtomicBoolean ponderStop;
+  private Thread ponderThread;
+
+  private SearchStats lastSearchStats;
+
+  public OnlineMoveMaker(final int limitSec, final int numThreads) {
     // For 2-min move time limit, leave 20 seconds for overhead (e.g., fast-forwarding game)
-    chooser = new CaseByCaseChooser(new AbpTimeLimitChooser(limitSec));
+    this.limitSec = limitSec;
+    abpChooser = new AbpTimeLimitChooser(limitSec, null, numThreads);
+    chooser = new CaseByCaseChooser(abpChooser);
+
+    replyCache = new ConcurrentHashMap<>();
+    ponderStop = null;
+    ponderThread = null;
+
+    lastSearchStats = null;
+  }
+
+  public OnlineMoveMaker(final int limitSec) {
+    this(limitSec, Const.SEARCH_THREADS_DEFAULT);
+  }
+
+  /**
+   * Start pondering (in a background thread) on the given game, in which the opponent is to move.
+   *
+   * @param game the game; it is copied, so it may change while pondering
+   */
+  public synchronized void startPondering(final Game game) {
+    stopPondering();
+    if (game.isGameOver()) {
+      return;
+    }
+    final Game copy = game.getCopy();
+    final AtomicBoolean stop = new AtomicBoolean(false);
+    abpChooser.setTableAgeKept(true);
+    ponderStop = stop;
+    ponderThread = new Thread(() -> ponder(copy, stop), "ponder");
+    ponderThread.setDaemon(true);
+    ponderThread.start();
+  }
+
+  /**
+   * Stop pondering, and wait for the background search to finish.
+   */
+  public synchronized void stopPondering() {
+    if (ponderThread != null) {
+      ponderStop.set(true);
+      try {
+        ponderThread.join();
+      }
+      catch (final InterruptedException e) {
+        Thread.currentThread().interrupt();
+      }
+      ponderStop = null;
+      ponderThread = null;
+    }
+  }
+
+  private void ponder(final Game game, final AtomicBoolean stop) {
+    replyCache.clear();
+    abpChooser.ageTable();
+    final long budgetNanos = TimeUnit.SECONDS.toNanos(limitSec) / NUM_PONDER_REPLIES;
+    for (final int reply : findLikelyReplies(game)) {
+      if (stop.get()) {
+        break;
+      }
+      final int replyRowIdx = reply / game.getDim();
+      final int replyColIdx = reply % game.getDim();
+      final Game afterReply = game.getCopy();
+      afterReply.makeMove(replyRowIdx, replyColIdx);
+      if (afterReply.isGameOver()) {
+        continue;
+      }
+      final Cell answer = abpChooser.search(afterReply.getBoard().getEmptyCells().stream(), afterReply,
+        System.nanoTime() + budgetNanos, stop);
+      if (answer != null && abpChooser.getCompletedDepth() > 0) {
+        Logger.debug("pondered reply ({},{}): answer ({},{}) at depth {}", replyRowIdx, replyColIdx,
+          answer.getRowIdx(), answer.getColIdx(), abpChooser.getCompletedDepth());
+        replyCache.put(afterReply.getBoard().getZobristKey(),
+          new PonderedAnswer(answer, abpChooser.getCompletedDepth(), abpChooser.isExhausted()));
+      }
+    }
+  }
+
+  /**
+   * Find the opponent's most likely replies: its threat cells (see {@link ThreatFilter}) or, if there are none, any empty
+   * cells, ordered by the opponent's utility after playing them.
+   */
+  private static int[] findLikelyReplies(final Game game) {
+    final BitGame bitGame = new BitGame(game);
+    final int side = bitGame.getNextSide();
+    final int[] candidates = new int[bitGame.getBoard().getNumCells()];
+    final int numCandidates = new ThreatFilter().filterIndices(bitGame, candidates);
+    final long[] utilities = new long[numCandidates];
+    for (int i = 0; i < numCandidates; i++) {
+      bitGame.makeMove(candidates[i], side);
+      utilities[i] = bitGame.isGameOver() && bitGame.didSideWin(side) ? Long.MAX_VALUE
+        : bitGame.evaluateSideUtility(side);
+      bitGame.unmakeMove();
+    }
+    final int numReplies = Math.min(NUM_PONDER_REPLIES, numCandidates);
+    final int[] replies = new int[numReplies];
+    for (int i = 0; i < numReplies; i++) {
+      // Selection of the best remaining candidate
+      int bestIdx = i;
+      for (int j = i + 1; j < numCandidates; j++) {
+        if (utilities[j] > utilities[bestIdx]) {
+          bestIdx = j;
+        }
+      }
+      final int candidate = candidates[bestIdx];
+      final long utility = utilities[bestIdx];
+      candidates[bestIdx] = candidates[i];
+      utilities[bestIdx] = utilities[i];
+      candidates[i] = candidate;
+      utilities[i] = utility;
+      replies[i] = candidate;
+    }
+    return replies;
   }
 
   @Override
@@ -32,9 +173,35 @@ public class OnlineMoveMaker extends AbstractOnlineChooser {
     final Player curPlayer = game.getNextPlayer();
     final int curPlayerId = curPlayer.getId();
 
-    // Select a cell to play and send to server
-    Logger.debug("choosing next move");
-    Cell choice = chooser.chooseCell(input, game);
+    // Select a cell to play (from the reply cache, if we pondered on this position) and send to server
+    stopPondering();
+    lastSearchStats = null;
+    Cell choice = null;
+    final PonderedAnswer pondered = replyCache.get(game.getBoard().getZobristKey());
+    replyCache.clear();
+    final Cell ponderedCell = pondered != null
+      ? game.getBoard().getCell(pondered.cell.getRowIdx(), pondered.cell.getColIdx()) : null;
+    try {
+      if (ponderedCell != null && ponderedCell.isEmpty() && pondered.exhausted) {
+        Logger.debug("choosing next move from reply cache: ({},{})", ponderedCell.getRowIdx(),
+          ponderedCell.getColIdx());
+        choice = ponderedCell;
+      }
+      else {
+        Logger.debug("choosing next move");
+        choice = chooser.chooseCell(input, game);
+        lastSearchStats = chooser.getLastSearchStats();
+        if (ponderedCell != null && ponderedCell.isEmpty() && lastSearchStats != null
+          && lastSearchStats.getCompletedDepth() < pondered.depth) {
+          Logger.debug("search completed depth {}, choosing pondered answer from depth {}: ({},{})",
+            lastSearchStats.getCompletedDepth(), pondered.depth, ponderedCell.getRowIdx(), ponderedCell.getColIdx());
+          choice = ponderedCell;
+        }
+      }
+    }
+    finally {
+      abpChooser.setTableAgeKept(false);
+    }
     if (choice == null) {
       Logger.debug("no cell found, choosing any empty cell");
       choice = game.getBoard().getEmptyCells().stream().findAny().orElse(null);
@@ -43,6 +210,7 @@ public class OnlineMoveMaker extends AbstractOnlineChooser {
     while (true) {
       final Call<Map> call = API.getApiService().post(API.API_TYPE_MOVE, String.valueOf(curPlayerId),
         String.valueOf(gameId), moveCoords);
+      final GameEvents.OnlineCall event = GameEvents.beginOnlineCall();
       try {
         Logger.debug("sending move to server: {}", moveCoords);
         final Response<Map> response = call.execute();
@@ -50,6 +218,9 @@ public class OnlineMoveMaker extends AbstractOnlineChooser {
         final Map<?, ?> body = response.body();
         Logger.debug("body of response: {}", body);
         final Object o = body.get(API.API_RESPONSEKEY_CODE);
+        if (event != null) {
+          event.record(gameId, "post move", response.code(), API.API_CODE_SUCCESS.equals(o));
+        }
         if (o instanceof String) {
           if (o.equals(API.API_CODE_SUCCESS)) {
             Logger.debug("response successful, returning move in cell: {}", choice);
@@ -63,8 +234,32 @@ public class OnlineMoveMaker extends AbstractOnlineChooser {
         Thread.sleep(1000);
       }
       catch (IOException | InterruptedException e) {
+        if (event != null && e instanceof IOException) {
+          event.record(gameId, "post move", -1, false);
+        }
         Logger.error(e, "error while sending move to server");
       }
     }
   }
+
+  @Override
+  public SearchStats getLastSearchStats() {
+    return lastSearchStats;
+  }
+
+  /**
+   * Our answer to a pondered reply: the best cell of the deepest iteration that the pondering search completed.
+   */
+  private static class PonderedAnswer {
+
+    private final Cell cell;
+    private final int depth;
+    private final boolean exhausted;
+
+    private PonderedAnswer(final Cell cell, final int depth, final boolean exhausted) {
+      this.cell = cell;
+      this.depth = depth;
+      this.exhausted = exhausted;
+    }
+  }
 }
@@ -0,0 +1,356 @@
+package edu.gwu.ai.codeknights.tictactoe.chooser;
+
+import edu.gwu.ai.codeknights.tictactoe.core.BitBoard;
+import edu.gwu.ai.codeknights.tictactoe.core.BitGame;
+import edu.gwu.ai.codeknights.tictactoe.core.Cell;
+import edu.gwu.ai.codeknights.tictactoe.core.Game;
+import edu.gwu.ai.codeknights.tictactoe.core.WindowIndex;
+import edu.gwu.ai.codeknights.tictactoe.util.Const;
+import org.pmw.tinylog.Logger;
+
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * Proof-number solver: tries to prove, within a time limit, that the position is won, lost, or drawn for the side to
+ * move, using depth-first proof-number search (df-pn) over a bounded node table.
+ *
+ * Two proofs are attempted: first that the side to move can force a win (if so, a winning cell is returned); then, if
+ * that is disproved, that the opponent can force a win. If the second is also disproved, the position is a draw with
+ * best play, and a cell that keeps the draw is returned. Otherwise (lost, or not solved in time) this chooser returns
+ * {@code null}, and the result is available from {@link #getLastResult()}.
+ *
+ * Moves that lose immediately are never generated: if the side to move can complete a window, only that move is
+ * considered; if the opponent can, only the blocks are considered. All other moves are considered, so proofs are
+ * exact.
+ *
+ * NOTE: the node table keeps one proof and one disproof number per position; when it is full, entries that took the
+ * least work to compute are replaced, so memory use stays at the configured size however long the search runs.
+ *
+ * @author ajv
+ */
+public class ProofNumberChooser extends AbstractCellChooser {
+
+  public static final int RESULT_UNKNOWN = 0;
+  public static final int RESULT_WIN = 1;
+  public static final int RESULT_LOSS = 2;
+  public static final int RESULT_DRAW = 3;
+
+  private static final int INFINITY = Integer.MAX_VALUE / 4;
+  private static final int BUCKET_SIZE = 2;
+  private static final int BYTES_PER_ENTRY = 3 * Long.BYTES;
+
+  /**
+   * The deadline is checked once every this many nodes (must be a power of two).
+   */
+  private static final int NODES_PER_STOP_CHECK = 256;
+
+  private final long limitMs;
+
+  private final long[] keys;
+  private final long[] numbers;
+  private final long[] works;
+  private final int bucketMask;
+
+  private int attacker;
+  private long deadline;
+  private long numNodes;
+  private int lastResult;
+
+  public ProofNumberChooser(final long limitMs, final int tableSizeMb) {
+    this.limitMs = limitMs;
+
+    final long numEntries = Math.max(BUCKET_SIZE, (long) Math.max(1, tableSizeMb) * 1024L * 1024L / BYTES_PER_ENTRY);
+    final long numBuckets = Long.highestOneBit(Math.min(numEntries / BUCKET_SIZE, 1L << 26));
+    keys = new long[(int) numBuckets * BUCKET_SIZE];
+    numbers = new long[(int) numBuckets * BUCKET_SIZE];
+    works = new long[(int) numBuckets * BUCKET_SIZE];
+    bucketMask = (int) numBuckets - 1;
+
+    attacker = BitBoard.SIDE_1;
+    deadline = 0L;
+    numNodes = 0L;
+    lastResult = RESULT_UNKNOWN;
+  }
+
+  public ProofNumberChooser() {
+    this(Const.PROOF_NUMBER_TIME_LIMIT_MS_DEFAULT, Const.PROOF_NUMBER_TABLE_SIZE_MB_DEFAULT);
+  }
+
+  public long getLimitMs() {
+    return limitMs;
+  }
+
+  /**
+   * Get the result of the last call to {@link #chooseCell(Stream, Game)}, for the side that was to move.
+   *
+   * @return {@link #RESULT_WIN}, {@link #RESULT_LOSS}, {@link #RESULT_DRAW}, or {@link #RESULT_UNKNOWN} (not solved
+   *         within the time limit)
+   */
+  public int getLastResult() {
+    return lastResult;
+  }
+
+  @Override
+  public Cell chooseCell(final Stream<Cell> input, final Game game) {
+    lastResult = RESULT_UNKNOWN;
+    final BitGame copy = new BitGame(game);
+    if (copy.isGameOver()) {
+      return null;
+    }
+
+    // Only the given cells may be played as the first move
+    final BitBoard board = copy.getBoard();
+    final boolean[] allowed = new boolean[board.getNumCells()];
+    input.forEach(cell -> allowed[board.getIdx(cell.getRowIdx(), cell.getColIdx())] = true);
+
+    deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(limitMs);
+    numNodes = 0L;
+    final int side = copy.getNextSide();
+    final int[] bestMove = new int[1];
+    try {
+      // Can the side to move force a win?
+      long root = prove(copy, side, true, allowed, bestMove);
+      if (getProof(root) == 0) {
+        lastResult = RESULT_WIN;
+        return toCell(game, board, bestMove[0]);
+      }
+
+      // If not, can the opponent force a win? (If not, the position is a draw.)
+      root = prove(copy, BitBoard.getOtherSide(side), false, allowed, bestMove);
+      if (getProof(root) == 0) {
+        lastResult = RESULT_LOSS;
+        return null;
+      }
+      lastResult = RESULT_DRAW;
+      return toCell(game, board, bestMove[0]);
+    }
+    catch (final SearchStoppedException e) {
+      Logger.debug("proof-number search stopped after {} nodes", numNodes);
+      return null;
+    }
+    finally {
+      Logger.debug("proof-number search result {} after {} nodes", lastResult, numNodes);
+    }
+  }
+
+  private static Cell toCell(final Game game, final BitBoard board, final int idx) {
+    return game.getBoard().getCell(board.getRowIdx(idx), board.getColIdx(idx));
+  }
+
+  private long prove(final BitGame game, final int attackerSide, final boolean isOrNode, final boolean[] allowed,
+                     final int[] bestMove) {
+    attacker = attackerSide;
+    clearTable();
+    return mid(game, isOrNode, INFINITY, INFINITY, allowed, bestMove);
+  }
+
+  /**
+   * Multiple-iterative-deepening step of df-pn: search below the given node until its proof number reaches
+   * {@code thPn} or its disproof number reaches {@code thDn}.
+   *
+   * @param game     the game, which is restored before returning
+   * @param isOrNode {@code true} if the attacker is to move, {@code false} if the defender is
+   * @param thPn     proof-number threshold
+   * @param thDn     disproof-number threshold
+   * @param allowed  the cells that may be played (at the root only), or {@code null}
+   * @param bestMove receives (at the root only) the proving or disproving move, or {@code null}
+   *
+   * @return the proof and disproof numbers of the node (see {@link #getProof(long)} and {@link #getDisproof(long)})
+   */
+  private long mid(final BitGame game, final boolean isOrNode, final int thPn, final int thDn,
+                   final boolean[] allowed, final int[] bestMove) {
+    checkStop();
+    final int toMove = isOrNode ? attacker : BitBoard.getOtherSide(attacker);
+    final long key = game.getBoardHash();
+    final long terminal = evaluateTerminal(game);
+    if (terminal != 0L) {
+      return terminal;
+    }
+
+    // Generate moves, and look up (or initialize) their proof and disproof numbers
+    final int[] moves = new int[game.getBoard().getNumCells()];
+    final int numMoves = generateMoves(game, toMove, moves, allowed);
+    if (numMoves == 0) {
+      // Nothing allowed to play: not a win for the side to move
+      return isOrNode ? pack(INFINITY, 0) : pack(0, INFINITY);
+    }
+    final long[] childNumbers = new long[numMoves];
+    for (int i = 0; i < numMoves; i++) {
+      game.makeMove(moves[i], toMove);
+      final long childTerminal = evaluateTerminal(game);
+      childNumbers[i] = childTerminal != 0L ? childTerminal : lookup(game.getBoardHash());
+      game.unmakeMove();
+    }
+
+    // Search below the most-proving child until the thresholds are reached
+    final long nodesBefore = numNodes;
+    long numbers;
+    while (true) {
+      int best = 0;
+      int second = INFINITY;
+      int proof = isOrNode ? INFINITY : 0;
+      int disproof = isOrNode ? 0 : INFINITY;
+      for (int i = 0; i < numMoves; i++) {
+        final int childProof = getProof(childNumbers[i]);
+        final int childDisproof = getDisproof(childNumbers[i]);
+        if (isOrNode) {
+          disproof = add(disproof, childDisproof);
+          if (childProof < proof) {
+            second = proof;
+            proof = childProof;
+            best = i;
+          }
+          else if (childProof < second) {
+            second = childProof;
+          }
+        }
+        else {
+          proof = add(proof, childProof);
+          if (childDisproof < disproof) {
+            second = disproof;
+            disproof = childDisproof;
+            best = i;
+          }
+          else if (childDisproof < second) {
+            second = childDisproof;
+          }
+        }
+      }
+      numbers = pack(proof, disproof);
+      if (proof >= thPn || disproof >= thDn) {
+        if (bestMove != null) {
+          bestMove[0] = moves[best];
+        }
+        break;
+      }
+
+      // Thresholds for the child
+      final int childProof = getProof(childNumbers[best]);
+      final int childDisproof = getDisproof(childNumbers[best]);
+      final int childThPn;
+      final int childThDn;
+      if (isOrNode) {
+        childThPn = Math.min(thPn, add(second, 1));
+        childThDn = add(subtract(thDn, disproof), childDisproof);
+      }
+      else {
+        childThPn = add(subtract(thPn, proof), childProof);
+        childThDn = Math.min(thDn, add(second, 1));
+      }
+      game.makeMove(moves[best], toMove);
+      childNumbers[best] = mid(game, !isOrNode, childThPn, childThDn, null, null);
+      game.unmakeMove();
+    }
+    store(key, numbers, numNodes - nodesBefore);
+    return numbers;
+  }
+
+  /**
+   * Collect the moves worth considering for the side to move: a winning move if there is one; otherwise the blocks, if
+   * the other side threatens to win; otherwise all empty cells.
+   */
+  private static int generateMoves(final BitGame game, final int side, final int[] out, final boolean[] allowed) {
+    final WindowIndex index = game.getWindowIndex();
+    int num = index.collectCompletingCells(side, out);
+    if (num > 0) {
+      num = Math.min(num, 1);
+    }
+    else {
+      num = index.collectCompletingCells(BitBoard.getOtherSide(side), out);
+      if (num == 0) {
+        num = game.getBoard().collectEmpty(out);
+      }
+    }
+    if (allowed == null) {
+      return num;
+    }
+    int numAllowed = 0;
+    for (int i = 0; i < num; i++) {
+      if (allowed[out[i]]) {
+        out[numAllowed++] = out[i];
+      }
+    }
+    return numAllowed;
+  }
+
+  /**
+   * Get the proof and disproof numbers of a terminal position (for the attacker), or {@code 0} if it is not terminal.
+   */
+  private long evaluateTerminal(final BitGame game) {
+    if (game.didSideWin(attacker)) {
+      return pack(0, INFINITY);
+    }
+    if (game.isGameOver()) {
+      // Defender won, or draw
+      return pack(INFINITY, 0);
+    }
+    return 0L;
+  }
+
+  private void checkStop() {
+    numNodes++;
+    if ((numNodes & (NODES_PER_STOP_CHECK - 1)) == 0 && System.nanoTime() - deadline >= 0) {
+      throw new SearchStoppedException();
+    }
+  }
+
+  private long lookup(final long key) {
+    final int start = getBucketStart(key);
+    for (int i = start; i < start + BUCKET_SIZE; i++) {
+      if (numbers[i] != 0L && keys[i] == key) {
+        return numbers[i];
+      }
+    }
+    return pack(1, 1);
+  }
+
+  private void store(final long key, final long value, final long work) {
+    final int start = getBucketStart(key);
+    int replaceIdx = start;
+    for (int i = start; i < start + BUCKET_SIZE; i++) {
+      if (numbers[i] == 0L || keys[i] == key) {
+        replaceIdx = i;
+        break;
+      }
+      if (works[i] < works[replaceIdx]) {
+        replaceIdx = i;
+      }
+    }
+    keys[replaceIdx] = key;
+    numbers[replaceIdx] = value;
+    works[replaceIdx] = work;
+  }
+
+  private void clearTable() {
+    Arrays.fill(keys, 0L);
+    Arrays.fill(numbers, 0L);
+    Arrays.fill(works, 0L);
+  }
+
+  private int getBucketStart(final long key) {
+    return ((int) (key ^ (key >>> 32)) & bucketMask) * BUCKET_SIZE;
+  }
+
+  private static long pack(final int proof, final int disproof) {
+    // Never zero, since at most one of the two numbers is zero and INFINITY is nonzero
+    return ((long) proof << 32) | (disproof & 0xFFFFFFFFL);
+  }
+
+  private static int getProof(final long numbers) {
+    return (int) (numbers >>> 32);
+  }
+
+  private static int getDisproof(final long numbers) {
+    return (int) numbers;
+  }
+
+  private static int add(final int a, final int b) {
+    return a >= INFINITY || b >= INFINITY ? INFINITY : Math.min(INFINITY, a + b);
+  }
+
+  private static int subtract(final int a, final int b) {
+    return a >= INFINITY ? INFINITY : a - b;
+  }
+}
@@ -4,8 +4,10 @@ import edu.gwu.ai.codeknights.tictactoe.core.Board;
 import edu.gwu.ai.codeknights.tictactoe.core.Cell;
 import edu.gwu.ai.codeknights.tictactoe.core.Game;
 import edu.gwu.ai.codeknights.tictactoe.core.Player;
+import edu.gwu.ai.codeknights.tictactoe.jfr.GameEvents;
 
 import java.util.*;
+import java.util.function.Supplier;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
@@ -22,7 +24,8 @@ public class RuleBasedChooser extends AbstractCellChooser {
     final int dim = game.getDim();
     final int center = (int) (dim / 2);
     if (board.isEmpty()) {
-      final Cell centerCell = findCellNear(cells, center, center, Math.max(2, (int) (dim / 4)));
+      final Cell centerCell = evaluateRule("center", game, cells,
+        () -> findCellNear(cells, center, center, Math.max(2, (int) (dim / 4))));
       if (centerCell != null) {
         return centerCell;
       }
@@ -31,21 +34,23 @@ public class RuleBasedChooser extends AbstractCellChooser {
     // Rule 2: win if immediately possible
     final int winLength = game.getWinLength();
     final Player player = game.getNextPlayer();
-    final Cell winningCell = findWinningCell(game, cells, winLength, player);
+    final Cell winningCell = evaluateRule("win", game, cells,
+      () -> findWinningCell(game, cells, winLength, player));
     if (winningCell != null) {
       return winningCell;
     }
 
     // Rule 3: block opponent if he can win
     final Player opponent = game.getOtherPlayer(player);
-    final Cell losingCell = findWinningCell(game, cells, winLength, opponent);
+    final Cell losingCell = evaluateRule("block", game, cells,
+      () -> findWinningCell(game, cells, winLength, opponent));
     if (losingCell != null) {
       return losingCell;
     }
 
     // Rule 4: try to fork on this move
-    final List<Cell> forkCells = findForkCells(game, cells, winLength);
-    final Cell forkCell = forkCells.stream().findAny().orElse(null);
+    final Cell forkCell = evaluateRule("fork", game, cells,
+      () -> findForkCells(game, cells, winLength).stream().findAny().orElse(null));
     if (forkCell != null) {
       return forkCell;
     }
@@ -83,7 +88,8 @@ public class RuleBasedChooser extends AbstractCellChooser {
     */
 
     // Rule 7: block opponent early if he can win in 2 moves
-    final Cell loseInTwoCell = findWinInTwo(game, cells, winLength, opponent);
+    final Cell loseInTwoCell = evaluateRule("block win in two", game, cells,
+      () -> findWinInTwo(game, cells, winLength, opponent));
     if (loseInTwoCell != null) {
       return loseInTwoCell;
     }
@@ -92,6 +98,19 @@ public class RuleBasedChooser extends AbstractCellChooser {
     return null;
   }
 
+  /**
+   * Evaluate one rule, recording it as a Flight Recorder event (see {@link GameEvents#beginRuleEvaluation()}).
+   */
+  private static Cell evaluateRule(final String rule, final Game game, final List<Cell> cells,
+                                   final Supplier<Cell> ruleFn) {
+    final GameEvents.RuleEvaluation event = GameEvents.beginRuleEvaluation();
+    final Cell choice = ruleFn.get();
+    if (event != null) {
+      event.record(game.getGameId(), rule, cells.size(), choice != null);
+    }
+    return choice;
+  }
+
   public static Cell findCellNear(final List<Cell> cells, final int rowIdx, final int colIdx, final int maxRadius) {
     for (int i = 0; i < maxRadius; i++) {
       final int curRadius = i;
@@ -109,24 +128,9 @@ public class RuleBasedChooser extends AbstractCellChooser {
 
   public static Cell findWinningCell(final Game game, final List<Cell> cells, final int winLength,
     final Player player) {
+    // Find a cell where the player would win on one of the lines through it
     return cells.stream()
-      .filter(cell -> {
-
-        // Find all lines through this cell
-        final List<List<Cell>> lines = game.getBoard().findLinesThrough(cell, winLength);
-
-        // Find those lines where the player would win by playing on this cell
-        return lines.stream()
-          .anyMatch(line -> {
-            if (cell.isEmpty()) {
-              cell.setPlayer(player);
-              final boolean didWin = game.didPlayerWinOnLine(player, line);
-              cell.setPlayer(null);
-              return didWin;
-            }
-            return false;
-          });
-      })
+      .filter(cell -> cell.isEmpty() && game.didPlayerWinThrough(player, cell.getRowIdx(), cell.getColIdx()))
       .findAny()
       .orElse(null);
   }
@@ -144,11 +148,11 @@ public class RuleBasedChooser extends AbstractCellChooser {
             final Cell secondCell = cells.get(j);
             if (secondCell.isEmpty()
               && board.getNeighborsOfCell(secondCell).stream().anyMatch(cell -> cell.isPopulatedBy(player))) {
-              firstCell.setPlayer(player);
-              secondCell.setPlayer(player);
+              game.makeMove(firstCell.getRowIdx(), firstCell.getColIdx(), player);
+              game.makeMove(secondCell.getRowIdx(), secondCell.getColIdx(), player);
               final boolean didWin = game.didPlayerWin(player);
-              firstCell.setPlayer(null);
-              secondCell.setPlayer(null);
+              game.unmakeMove();
+              game.unmakeMove();
               if (didWin) {
                 final int distFromCenter1 = Math.abs(firstCell.getRowIdx() - center)
                   + Math.abs(firstCell.getColIdx() - center);
@@ -172,11 +176,11 @@ public class RuleBasedChooser extends AbstractCellChooser {
     }
     for (final Cell cell : possibleCells) {
       if (cell.getPlayer() == null) {
-        cell.setPlayer(player);
+        game.makeMove(cell.getRowIdx(), cell.getColIdx(), player);
         if (game.didPlayerWin(player)) {
           numWins++;
         }
-        cell.setPlayer(null);
+        game.unmakeMove();
       }
     }
     return numWins;
@@ -192,9 +196,9 @@ public class RuleBasedChooser extends AbstractCellChooser {
     for (final Cell cell : cells) {
       if (cell.isEmpty()) {
         final int numWinsBefore = countNumberOfWinningCellsFor(game, curPlayer, Collections.singleton(cell));
-        cell.setPlayer(curPlayer);
+        game.makeMove(cell.getRowIdx(), cell.getColIdx(), curPlayer);
         final int numWinsAfter = countNumberOfWinningCellsFor(game, curPlayer);
-        cell.setPlayer(null);
+        game.unmakeMove();
         if (numWinsAfter > numWinsBefore + 1) {
           forkCells.add(cell);
         }
@@ -0,0 +1,241 @@
+package edu.gwu.ai.codeknights.tictactoe.chooser;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Statistics about the work done by one search (see {@link AlphaBetaPruningChooser#getSearchStats()}): nodes visited,
+ * leaf evaluations, transposition-table probes, hits, and stores, and beta-cutoffs by the index of the move that caused
+ * them (in move order, so most cutoffs at index zero means good move ordering), all summed over the search threads;
+ * plus, for each iterative-deepening iteration of the reporting thread, its depth, node count, and elapsed time.
+ *
+ * NOTE: counters are collected per thread and added here when each thread finishes, so they are only complete once the
+ * search has returned.
+ *
+ * @author ajv
+ */
+public class SearchStats {
+
+  /**
+   * Cutoffs at this move index or later are counted together, in the last element of
+   * {@link #getCutoffsByMoveIdx()}.
+   */
+  public static final int MAX_CUTOFF_MOVE_IDX = 8;
+
+  private long numNodes;
+  private long numLeafEvals;
+  private long numTtProbes;
+  private long numTtHits;
+  private long numTtStores;
+  private final long[] cutoffsByMoveIdx;
+  private final List<Iteration> iterations;
+  private long elapsedNanos;
+
+  public SearchStats() {
+    numNodes = 0L;
+    numLeafEvals = 0L;
+    numTtProbes = 0L;
+    numTtHits = 0L;
+    numTtStores = 0L;
+    cutoffsByMoveIdx = new long[MAX_CUTOFF_MOVE_IDX + 1];
+    iterations = new ArrayList<>();
+    elapsedNanos = 0L;
+  }
+
+  synchronized void addCounts(final long numNodes, final long numLeafEvals, final long numTtProbes,
+                              final long numTtHits, final long numTtStores, final long[] cutoffsByMoveIdx) {
+    this.numNodes += numNodes;
+    this.numLeafEvals += numLeafEvals;
+    this.numTtProbes += numTtProbes;
+    this.numTtHits += numTtHits;
+    this.numTtStores += numTtStores;
+    for (int i = 0; i < this.cutoffsByMoveIdx.length; i++) {
+      this.cutoffsByMoveIdx[i] += cutoffsByMoveIdx[i];
+    }
+  }
+
+  synchronized void addIteration(final int depth, final long numNodes, final long elapsedNanos) {
+    iterations.add(new Iteration(depth, numNodes, elapsedNanos));
+  }
+
+  synchronized void setElapsedNanos(final long elapsedNanos) {
+    this.elapsedNanos = elapsedNanos;
+  }
+
+  public synchronized long getNumNodes() {
+    return numNodes;
+  }
+
+  public synchronized long getNumLeafEvals() {
+    return numLeafEvals;
+  }
+
+  public synchronized long getNumTtProbes() {
+    return numTtProbes;
+  }
+
+  public synchronized long getNumTtHits() {
+    return numTtHits;
+  }
+
+  public synchronized long getNumTtStores() {
+    return numTtStores;
+  }
+
+  /**
+   * Get the number of beta-cutoffs caused by the move at each index (in the order the moves were tried).
+   *
+   * @return a copy of the counts, where the last element counts every index from {@link #MAX_CUTOFF_MOVE_IDX} on
+   */
+  public synchronized long[] getCutoffsByMoveIdx() {
+    return cutoffsByMoveIdx.clone();
+  }
+
+  public synchronized long getNumCutoffs() {
+    long sum = 0L;
+    for (final long count : cutoffsByMoveIdx) {
+      sum += count;
+    }
+    return sum;
+  }
+
+  /**
+   * Get the iterations completed by the reporting thread, in order.
+   *
+   * @return the iterations
+   */
+  public synchronized List<Iteration> getIterations() {
+    return Collections.unmodifiableList(new ArrayList<>(iterations));
+  }
+
+  /**
+   * Get the depth of the last completed iteration.
+   *
+   * @return the depth, or zero if no iteration completed
+   */
+  public synchronized int getCompletedDepth() {
+    return iterations.isEmpty() ? 0 : iterations.get(iterations.size() - 1).getDepth();
+  }
+
+  public synchronized long getElapsedMs() {
+    return TimeUnit.NANOSECONDS.toMillis(elapsedNanos);
+  }
+
+  public synchronized long getNodesPerSec() {
+    return elapsedNanos > 0L ? (long) (numNodes * (double) TimeUnit.SECONDS.toNanos(1L) / elapsedNanos) : 0L;
+  }
+
+  /**
+   * Get the fraction of transposition-table probes that found an entry for the position (whether or not it was deep
+   * enough to be used).
+   *
+   * @return the hit rate, between zero and one
+   */
+  public synchronized double getTtHitRate() {
+    return numTtProbes > 0L ? (double) numTtHits / numTtProbes : 0.0;
+  }
+
+  /**
+   * Get the fraction of beta-cutoffs caused by the first move tried.
+   *
+   * @return the fraction, between zero and one
+   */
+  public synchronized double getFirstMoveCutoffRate() {
+    final long numCutoffs = getNumCutoffs();
+    return numCutoffs > 0L ? (double) cutoffsByMoveIdx[0] / numCutoffs : 0.0;
+  }
+
+  /**
+   * Get the effective branching factor: the ratio of the node counts of the last two completed iterations.
+   *
+   * @return the effective branching factor, or zero if fewer than two iterations completed
+   */
+  public synchronized double getEffectiveBranchingFactor() {
+    final int num = iterations.size();
+    if (num < 2 || iterations.get(num - 2).getNumNodes() == 0L) {
+      return 0.0;
+    }
+    return (double) iterations.get(num - 1).getNumNodes() / iterations.get(num - 2).getNumNodes();
+  }
+
+  /**
+   * Get a short summary, for places with little room (e.g., the move history in the GUI).
+   *
+   * @return the summary
+   */
+  public synchronized String toShortString() {
+    return String.format("d%d %dn %dnps", getCompletedDepth(), numNodes, getNodesPerSec());
+  }
+
+  @Override
+  public synchronized String toString() {
+    final StringBuilder sb = new StringBuilder()
+      .append("depth=").append(getCompletedDepth())
+      .append(", elapsedMs=").append(getElapsedMs())
+      .append(", nodes=").append(numNodes)
+      .append(", nps=").append(getNodesPerSec())
+      .append(", leafEvals=").append(numLeafEvals)
+      .append(", ttProbes=").append(numTtProbes)
+      .append(", ttHits=").append(numTtHits)
+      .append(String.format(" (%.1f%%)", 100.0 * getTtHitRate()))
+      .append(", ttStores=").append(numTtStores)
+      .append(", cutoffs=").append(getNumCutoffs())
+      .append(String.format(" (%.1f%% first move)", 100.0 * getFirstMoveCutoffRate()))
+      .append(", cutoffsByMoveIdx=[");
+    for (int i = 0; i < cutoffsByMoveIdx.length; i++) {
+      sb.append(i > 0 ? " " : "").append(cutoffsByMoveIdx[i]);
+    }
+    sb.append("]")
+      .append(String.format(", ebf=%.2f", getEffectiveBranchingFactor()))
+      .append(", iterations=[");
+    for (int i = 0; i < iterations.size(); i++) {
+      sb.append(i > 0 ? " " : "").append(iterations.get(i));
+    }
+    return sb.append("]").toString();
+  }
+
+  /**
+   * One completed iteration of the iterative deepening.
+   */
+  public static class Iteration {
+
+    private final int depth;
+    private final long numNodes;
+    private final long elapsedNanos;
+
+    private Iteration(final int depth, final long numNodes, final long elapsedNanos) {
+      this.depth = depth;
+      this.numNodes = numNodes;
+      this.elapsedNanos = elapsedNanos;
+    }
+
+    /**
+     * Get the depth of the iteration.
+     *
+     * @return the depth (in plies, including the root move)
+     */
+    public int getDepth() {
+      return depth;
+    }
+
+    /**
+     * Get the number of nodes visited by the iteration (in the reporting thread only).
+     *
+     * @return the number of nodes
+     */
+    public long getNumNodes() {
+      return numNodes;
+    }
+
+    public long getElapsedMs() {
+      return TimeUnit.NANOSECONDS.toMillis(elapsedNanos);
+    }
+
+    @Override
+    public String toString() {
+      return "d" + depth + ":" + numNodes + "n/" + getElapsedMs() + "ms";
+    }
+  }
+}
@@ -0,0 +1,18 @@
+package edu.gwu.ai.codeknights.tictactoe.chooser;
+
+/**
+ * Thrown to unwind a search when it must stop (its deadline passed, or it was asked to stop); the searching chooser
+ * catches it and keeps the results it had so far.
+ *
+ * NOTE: it has no message, cause, or stack trace, so throwing it costs about as much as a return.
+ *
+ * @author ajv
+ */
+final class SearchStoppedException extends RuntimeException {
+
+  private static final long serialVersionUID = 1L;
+
+  SearchStoppedException() {
+    super(null, null, false, false);
+  }
+}
@@ -0,0 +1,258 @@
+package edu.gwu.ai.codeknights.tictactoe.chooser;
+
+import edu.gwu.ai.codeknights.tictactoe.core.BitBoard;
+import edu.gwu.ai.codeknights.tictactoe.core.BitGame;
+import edu.gwu.ai.codeknights.tictactoe.core.BoardGeometry;
+import edu.gwu.ai.codeknights.tictactoe.core.Cell;
+import edu.gwu.ai.codeknights.tictactoe.core.Game;
+import edu.gwu.ai.codeknights.tictactoe.core.WindowIndex;
+import edu.gwu.ai.codeknights.tictactoe.util.Const;
+import org.pmw.tinylog.Logger;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * Threat-space search: looks for a forced win, in which every move of the player is a threat, and returns the first
+ * move of such a win (or {@code null} if none is found within the limits).
+ *
+ * A "four" is a move after which a window of {@code winLength} cells holds {@code winLength-1} of the player's stones and
+ * none of the opponent's; the opponent must answer it by blocking the remaining cell. A "three" is a move after which
+ * such a window holds {@code winLength-2} of the player's stones; it is not forcing, so the opponent may answer it
+ * anywhere. The search first tries continuous fours (VCF), in which the opponent's replies are all forced, and then
+ * allows up to {@link #getMaxThrees()} threes (VCT), trying every opponent reply to each (those that block the threat
+ * first). Because the player's own moves are restricted to threats, forced wins many plies deep are found quickly.
+ *
+ * NOTE: a win that is reported is a real forced win (every defense is considered); a win may be missed if it needs
+ * quiet moves, more threes, or more time than the limit.
+ *
+ * @author ajv
+ */
+public class ThreatSpaceChooser extends AbstractCellChooser {
+
+  public static final int MAX_THREES_DEFAULT = 2;
+
+  /**
+   * The deadline is checked once every this many nodes (must be a power of two).
+   */
+  private static final int NODES_PER_STOP_CHECK = 256;
+
+  private static final int NO_THREAT = 0;
+  private static final int THREE = 1;
+  private static final int FOUR = 2;
+
+  private final int maxThrees;
+  private final long limitMs;
+
+  private final Map<Long, Boolean> attackResults;
+  private long deadline;
+  private long numNodes;
+
+  public ThreatSpaceChooser(final int maxThrees, final long limitMs) {
+    this.maxThrees = Math.max(0, maxThrees);
+    this.limitMs = limitMs;
+
+    attackResults = new HashMap<>();
+    deadline = 0L;
+    numNodes = 0L;
+  }
+
+  public ThreatSpaceChooser() {
+    this(MAX_THREES_DEFAULT, Const.THREAT_SPACE_TIME_LIMIT_MS_DEFAULT);
+  }
+
+  public int getMaxThrees() {
+    return maxThrees;
+  }
+
+  public long getLimitMs() {
+    return limitMs;
+  }
+
+  @Override
+  public Cell chooseCell(final Stream<Cell> input, final Game game) {
+    final BitGame copy = new BitGame(game);
+    if (copy.isGameOver() || copy.getWinLength() < 3) {
+      return null;
+    }
+
+    // Only the given cells may be played as the first move
+    final BitBoard board = copy.getBoard();
+    final boolean[] allowed = new boolean[board.getNumCells()];
+    input.forEach(cell -> allowed[board.getIdx(cell.getRowIdx(), cell.getColIdx())] = true);
+
+    // Continuous fours first, then with more and more threes
+    final long startTime = System.nanoTime();
+    deadline = startTime + TimeUnit.MILLISECONDS.toNanos(limitMs);
+    numNodes = 0L;
+    attackResults.clear();
+    try {
+      for (int threes = 0; threes <= maxThrees; threes++) {
+        final int idx = findWinningMove(copy, copy.getNextSide(), threes, allowed);
+        if (idx >= 0) {
+          Logger.debug("found forced win with up to {} threes in {} nodes", threes, numNodes);
+          return game.getBoard().getCell(board.getRowIdx(idx), board.getColIdx(idx));
+        }
+      }
+    }
+    catch (final SearchStoppedException e) {
+      Logger.debug("threat-space search stopped after {} nodes", numNodes);
+    }
+    finally {
+      attackResults.clear();
+    }
+    return null;
+  }
+
+  private int findWinningMove(final BitGame game, final int attacker, final int threesLeft, final boolean[] allowed) {
+    final int[] candidates = new int[game.getBoard().getNumCells()];
+    int numCandidates = findAttacks(game, attacker, threesLeft, candidates);
+    if (numCandidates < 0) {
+      // Immediate win
+      numCandidates = game.getWindowIndex().collectCompletingCells(attacker, candidates);
+      for (int i = 0; i < numCandidates; i++) {
+        if (allowed[candidates[i]]) {
+          return candidates[i];
+        }
+      }
+      return -1;
+    }
+    for (int i = 0; i < numCandidates; i++) {
+      final int idx = candidates[i];
+      if (allowed[idx] && tryAttack(game, attacker, idx, threesLeft)) {
+        return idx;
+      }
+    }
+    return -1;
+  }
+
+  /**
+   * Check whether the attacker (to move) can force a win with threats only.
+   */
+  private boolean attack(final BitGame game, final int attacker, final int threesLeft) {
+    checkStop();
+    final long key = game.getBoardHash() * 31L + threesLeft;
+    final Boolean known = attackResults.get(key);
+    if (known != null) {
+      return known;
+    }
+    final int[] candidates = new int[game.getBoard().getNumCells()];
+    final int numCandidates = findAttacks(game, attacker, threesLeft, candidates);
+    boolean win = numCandidates < 0;
+    for (int i = 0; !win && i < numCandidates; i++) {
+      win = tryAttack(game, attacker, candidates[i], threesLeft);
+    }
+    attackResults.put(key, win);
+    return win;
+  }
+
+  /**
+   * Collect the attacker's candidate moves: if the defender threatens to win, only the block; otherwise, all cells that
+   * could make a four (or, if threes are still allowed, a three).
+   *
+   * @return the number of candidates, or {@code -1} if the attacker can win immediately
+   */
+  private static int findAttacks(final BitGame game, final int attacker, final int threesLeft, final int[] out) {
+    final WindowIndex index = game.getWindowIndex();
+    final int winLength = index.getWinLength();
+    if (index.collectCompletingCells(attacker, null) > 0) {
+      return -1;
+    }
+    final int numBlocks = index.collectCompletingCells(BitBoard.getOtherSide(attacker), out);
+    if (numBlocks > 0) {
+      return numBlocks == 1 ? 1 : 0;
+    }
+    return index.collectThreatCells(attacker, winLength - (threesLeft > 0 ? 3 : 2), out, 0);
+  }
+
+  private boolean tryAttack(final BitGame game, final int attacker, final int idx, final int threesLeft) {
+    game.makeMove(idx, attacker);
+    try {
+      final int threat = getThreat(game, attacker, idx);
+      if (threat == FOUR) {
+        return defend(game, attacker, threesLeft);
+      }
+      if (threat == THREE && threesLeft > 0) {
+        return defend(game, attacker, threesLeft - 1);
+      }
+      return false;
+    }
+    finally {
+      game.unmakeMove();
+    }
+  }
+
+  /**
+   * Check whether the attacker wins against every defense (defender to move, after the attacker's threat).
+   */
+  private boolean defend(final BitGame game, final int attacker, final int threesLeft) {
+    checkStop();
+    final int defender = BitBoard.getOtherSide(attacker);
+    final WindowIndex index = game.getWindowIndex();
+    if (index.hasCompleteWindow(attacker)) {
+      return true;
+    }
+    if (index.collectCompletingCells(defender, null) > 0) {
+      return false;
+    }
+
+    // Against a four, the only defense is to block it (and against two fours, there is none)
+    final int numCells = game.getBoard().getNumCells();
+    final int[] replies = new int[numCells];
+    final int numFours = index.collectCompletingCells(attacker, replies);
+    if (numFours > 1) {
+      return true;
+    }
+    int numReplies = numFours;
+    if (numFours == 0) {
+      // Against a three, try every move: first those in the attacker's threat windows, then all others
+      numReplies = index.collectThreatCells(attacker, index.getWinLength() - 2, replies, 0);
+      final boolean[] isReply = new boolean[numCells];
+      for (int i = 0; i < numReplies; i++) {
+        isReply[replies[i]] = true;
+      }
+      for (int idx = 0; idx < numCells; idx++) {
+        if (!isReply[idx] && game.getBoard().isEmpty(idx)) {
+          replies[numReplies++] = idx;
+        }
+      }
+    }
+    if (numReplies == 0) {
+      return false;
+    }
+    for (int i = 0; i < numReplies; i++) {
+      game.makeMove(replies[i], defender);
+      final boolean win = attack(game, attacker, threesLeft);
+      game.unmakeMove();
+      if (!win) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  private static int getThreat(final BitGame game, final int side, final int idx) {
+    final WindowIndex index = game.getWindowIndex();
+    final int winLength = index.getWinLength();
+    final int opponent = BitBoard.getOtherSide(side);
+    int maxCount = 0;
+    for (final int windowIdx : BoardGeometry.forDim(game.getDim()).getWindowsThrough(winLength, idx)) {
+      if (index.getCount(windowIdx, opponent) == 0) {
+        maxCount = Math.max(maxCount, index.getCount(windowIdx, side));
+      }
+    }
+    if (maxCount >= winLength - 1) {
+      return FOUR;
+    }
+    return maxCount == winLength - 2 ? THREE : NO_THREAT;
+  }
+
+  private void checkStop() {
+    numNodes++;
+    if ((numNodes & (NODES_PER_STOP_CHECK - 1)) == 0 && System.nanoTime() - deadline >= 0) {
+      throw new SearchStoppedException();
+    }
+  }
+}
@@ -0,0 +1,207 @@
+package edu.gwu.ai.codeknights.tictactoe.chooser;
+
+/**
+ * A fixed-size transposition table for alpha-beta search, keyed by the 64-bit Zobrist key of a position.
+ *
+ * Each entry is packed into one {@code long} (score, remaining depth, bound type, best move, and search age) and stored
+ * next to its key XOR-ed with the data, so a torn or overwritten entry fails verification instead of returning another
+ * position's data. Entries live in buckets of {@link #BUCKET_SIZE} slots. A new entry replaces, in order of preference:
+ * the entry for the same key; an entry from an older search; the entry with the smallest depth.
+ *
+ * NOTE: the table may be shared by several search threads without locking. Threads may overwrite each other's entries
+ * or read a key and data that were written by different threads (or, on JVMs that split 64-bit writes, half-written
+ * values); in all of these cases the XOR check fails and the probe misses. {@link #newSearch()} and {@link #clear()}
+ * must not be called while other threads use the table.
+ *
+ * @author ajv
+ */
+public class TranspositionTable {
+
+  public static final int FLAG_NONE = 0;
+  public static final int FLAG_EXACT = 1;
+  public static final int FLAG_LOWER = 2;
+  public static final int FLAG_UPPER = 3;
+
+  public static final int NO_MOVE = -1;
+
+  private static final int BUCKET_SIZE = 2;
+  private static final int BYTES_PER_ENTRY = 2 * Long.BYTES;
+
+  // Layout of the packed data: [age:8][move:13][flag:2][depth:8][(unused):1][score:32]
+  private static final int SCORE_BITS = 32;
+  private static final int DEPTH_SHIFT = 33;
+  private static final int FLAG_SHIFT = 41;
+  private static final int MOVE_SHIFT = 43;
+  private static final int AGE_SHIFT = 56;
+  private static final long DEPTH_MASK = 0xFFL;
+  private static final long FLAG_MASK = 0x3L;
+  private static final long MOVE_MASK = 0x1FFFL;
+  private static final long AGE_MASK = 0xFFL;
+
+  private final long[] keys;
+  private final long[] data;
+  private final int bucketMask;
+  private int age;
+
+  /**
+   * Construct a new table that uses (approximately, rounded down to a power of two) the given amount of memory.
+   *
+   * @param sizeMb the size of the table in megabytes
+   */
+  public TranspositionTable(final int sizeMb) {
+    final long numEntries = Math.max(BUCKET_SIZE, (long) Math.max(1, sizeMb) * 1024L * 1024L / BYTES_PER_ENTRY);
+    final long numBuckets = Long.highestOneBit(Math.min(numEntries / BUCKET_SIZE, 1L << 28));
+    keys = new long[(int) numBuckets * BUCKET_SIZE];
+    data = new long[(int) numBuckets * BUCKET_SIZE];
+    bucketMask = (int) numBuckets - 1;
+    age = 0;
+  }
+
+  /**
+   * Start a new search: entries stored from now on are preferred over entries from earlier searches when the table
+   * must replace something.
+   */
+  public void newSearch() {
+    age = (age + 1) & (int) AGE_MASK;
+  }
+
+  /**
+   * Remove all entries.
+   */
+  public void clear() {
+    for (int i = 0; i < keys.length; i++) {
+      keys[i] = 0L;
+      data[i] = 0L;
+    }
+  }
+
+  /**
+   * Get the number of entries the table can hold.
+   *
+   * @return the capacity
+   */
+  public int getCapacity() {
+    return keys.length;
+  }
+
+  /**
+   * Look up the entry for the given key.
+   *
+   * @param key the Zobrist key of the position
+   *
+   * @return the packed entry (see {@link #getScore(long)}, etc.), or {@code 0} if there is none; the flag of a
+   *         returned entry is never {@link #FLAG_NONE}
+   */
+  public long probe(final long key) {
+    final int start = getBucketStart(key);
+    for (int i = start; i < start + BUCKET_SIZE; i++) {
+      final long entry = data[i];
+      if (entry != 0L && (keys[i] ^ entry) == key) {
+        return entry;
+      }
+    }
+    return 0L;
+  }
+
+  /**
+   * Store an entry for the given key, possibly replacing another entry (see {@link TranspositionTable}).
+   *
+   * @param key   the Zobrist key of the position
+   * @param score the score of the position, from the perspective of the side to move
+   * @param depth the remaining depth that was searched
+   * @param flag  {@link #FLAG_EXACT}, {@link #FLAG_LOWER} (score is a lower bound), or {@link #FLAG_UPPER} (score is
+   *              an upper bound)
+   * @param move  the best move found (cell index), or {@link #NO_MOVE}
+   */
+  public void store(final long key, final long score, final int depth, final int flag, final int move) {
+    if (score < Integer.MIN_VALUE || score > Integer.MAX_VALUE) {
+      return;
+    }
+    final int start = getBucketStart(key);
+    int replaceIdx = start;
+    int replaceWorth = Integer.MAX_VALUE;
+    for (int i = start; i < start + BUCKET_SIZE; i++) {
+      final long entry = data[i];
+      if (entry == 0L) {
+        replaceIdx = i;
+        break;
+      }
+      if ((keys[i] ^ entry) == key) {
+        // Same position: keep a deeper entry from this search, unless the new one is exact
+        if (getAge(entry) == age && getDepth(entry) > depth && flag != FLAG_EXACT) {
+          return;
+        }
+        replaceIdx = i;
+        break;
+      }
+      final int worth = (getAge(entry) == age ? 256 : 0) + getDepth(entry);
+      if (worth < replaceWorth) {
+        replaceWorth = worth;
+        replaceIdx = i;
+      }
+    }
+    final long entry = pack(score, depth, flag, move, age);
+    data[replaceIdx] = entry;
+    keys[replaceIdx] = key ^ entry;
+  }
+
+  /**
+   * Get the score of a packed entry.
+   *
+   * @param entry the packed entry
+   *
+   * @return the score
+   */
+  public static long getScore(final long entry) {
+    return (int) entry;
+  }
+
+  /**
+   * Get the remaining depth that was searched for a packed entry.
+   *
+   * @param entry the packed entry
+   *
+   * @return the depth
+   */
+  public static int getDepth(final long entry) {
+    return (int) ((entry >>> DEPTH_SHIFT) & DEPTH_MASK);
+  }
+
+  /**
+   * Get the bound type of a packed entry.
+   *
+   * @param entry the packed entry
+   *
+   * @return {@link #FLAG_EXACT}, {@link #FLAG_LOWER}, or {@link #FLAG_UPPER}
+   */
+  public static int getFlag(final long entry) {
+    return (int) ((entry >>> FLAG_SHIFT) & FLAG_MASK);
+  }
+
+  /**
+   * Get the best move of a packed entry.
+   *
+   * @param entry the packed entry
+   *
+   * @return the cell index, or {@link #NO_MOVE}
+   */
+  public static int getMove(final long entry) {
+    return (int) ((entry >>> MOVE_SHIFT) & MOVE_MASK) - 1;
+  }
+
+  private static int getAge(final long entry) {
+    return (int) ((entry >>> AGE_SHIFT) & AGE_MASK);
+  }
+
+  private static long pack(final long score, final int depth, final int flag, final int move, final int age) {
+    return (score & ((1L << SCORE_BITS) - 1))
+      | ((Math.min(depth, (int) DEPTH_MASK) & DEPTH_MASK) << DEPTH_SHIFT)
+      | ((flag & FLAG_MASK) << FLAG_SHIFT)
+      | (((move + 1) & MOVE_MASK) << MOVE_SHIFT)
+      | ((age & AGE_MASK) << AGE_SHIFT);
+  }
+
+  private int getBucketStart(final long key) {
+    return ((int) (key ^ (key >>> 32)) & bucketMask) * BUCKET_SIZE;
+  }
+}
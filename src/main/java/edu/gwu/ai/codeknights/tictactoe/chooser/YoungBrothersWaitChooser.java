@@ -0,0 +1,530 @@
+package edu.gwu.ai.codeknights.tictactoe.chooser;
+
+import edu.gwu.ai.codeknights.tictactoe.core.BitBoard;
+import edu.gwu.ai.codeknights.tictactoe.core.BitGame;
+import edu.gwu.ai.codeknights.tictactoe.core.Cell;
+import edu.gwu.ai.codeknights.tictactoe.core.Game;
+import edu.gwu.ai.codeknights.tictactoe.filter.AbstractCellFilter;
+import edu.gwu.ai.codeknights.tictactoe.util.Const;
+import org.pmw.tinylog.Logger;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Parallel alpha-beta (negamax) search on a {@link ForkJoinPool}, using the "Young Brothers Wait" strategy: at each
+ * node, the first (eldest) move is searched sequentially, and only once it has established a bound are the remaining
+ * (younger) moves searched in parallel, each as a subtask with its own copy of the board. Younger brothers are searched
+ * with a null window, and re-searched with the full window if they turn out to be better. When a younger brother causes
+ * a cutoff, the siblings still in flight are cancelled.
+ *
+ * Nodes with less than {@link #MIN_SPLIT_DEPTH} plies left are searched sequentially with make/unmake, since splitting
+ * them would cost more than it saves. The search deepens iteratively until the time limit passes, and all threads
+ * share one transposition table (see {@link TranspositionTable}).
+ *
+ * NOTE: the evaluation and the meaning of scores are the same as in {@link AlphaBetaPruningChooser}.
+ *
+ * @author ajv
+ */
+public class YoungBrothersWaitChooser extends AbstractCellChooser {
+
+  private static final long INFINITY = Long.MAX_VALUE / 2;
+
+  /**
+   * Nodes with fewer plies left than this are not split.
+   */
+  private static final int MIN_SPLIT_DEPTH = 3;
+
+  /**
+   * Each task checks whether it must stop once every this many nodes (must be a power of two).
+   */
+  private static final int NODES_PER_STOP_CHECK = 64;
+
+  /**
+   * Runs the tasks of all searches, one pool per number of threads. The pools are shared (rather than one per chooser,
+   * which would never be shut down), and their idle workers end on their own.
+   */
+  private static final ConcurrentMap<Integer, ForkJoinPool> POOLS = new ConcurrentHashMap<>();
+
+  private final int limitSec;
+  private final AbstractCellFilter filter;
+  private final TranspositionTable table;
+  private final int numThreads;
+
+  private volatile boolean stopRequested;
+  private int maxDepth;
+  private Long bestScore;
+  private int completedDepth;
+  private long numNodes;
+
+  public YoungBrothersWaitChooser(final int limitSec, final AbstractCellFilter filter, final int tableSizeMb,
+                                  final int numThreads) {
+    this.limitSec = limitSec;
+    this.filter = filter;
+
+    table = new TranspositionTable(tableSizeMb);
+    this.numThreads = Math.max(1, numThreads);
+
+    stopRequested = false;
+    maxDepth = AlphaBetaPruningChooser.NO_MAX_DEPTH;
+    bestScore = null;
+    completedDepth = 0;
+    numNodes = 0L;
+  }
+
+  public YoungBrothersWaitChooser(final int limitSec, final AbstractCellFilter filter) {
+    this(limitSec, filter, Const.TRANSPOSITION_TABLE_SIZE_MB_DEFAULT, Const.SEARCH_THREADS_DEFAULT);
+  }
+
+  public YoungBrothersWaitChooser(final int limitSec) {
+    this(limitSec, null);
+  }
+
+  public int getLimitSec() {
+    return limitSec;
+  }
+
+  public AbstractCellFilter getFilter() {
+    return filter;
+  }
+
+  public int getNumThreads() {
+    return numThreads;
+  }
+
+  public int getMaxDepth() {
+    return maxDepth;
+  }
+
+  /**
+   * Limit the depth of the search (as {@link AlphaBetaPruningChooser#setMaxDepth(int)} does).
+   *
+   * @param maxDepth the deepest iteration to search, or {@link AlphaBetaPruningChooser#NO_MAX_DEPTH}
+   */
+  public void setMaxDepth(final int maxDepth) {
+    if (maxDepth < 0) {
+      throw new IllegalArgumentException("maxDepth must be >= 0");
+    }
+    this.maxDepth = maxDepth;
+  }
+
+  /**
+   * Ask the search that is currently running (in another thread) to stop as soon as possible (as
+   * {@link AlphaBetaPruningChooser#stop()} does). It then returns the best cell of the last iteration it completed.
+   */
+  public void stop() {
+    stopRequested = true;
+  }
+
+  @Override
+  public Cell chooseCell(final Stream<Cell> input, final Game game) {
+    // Starting a new search, initialize results
+    final long startTime = System.nanoTime();
+    stopRequested = false;
+    final Search search = new Search(startTime + TimeUnit.SECONDS.toNanos(limitSec));
+    bestScore = null;
+    completedDepth = 0;
+    numNodes = 0L;
+    table.newSearch();
+
+    // Collect (shuffled) root moves
+    final List<Cell> cells = input.collect(Collectors.toList());
+    Collections.shuffle(cells);
+    final BitGame copy = new BitGame(game);
+    final BitBoard board = copy.getBoard();
+    final List<Cell> rootCells = new ArrayList<>();
+    for (final Cell cell : cells) {
+      if (board.isEmpty(board.getIdx(cell.getRowIdx(), cell.getColIdx()))) {
+        rootCells.add(cell);
+      }
+    }
+    if (rootCells.isEmpty()) {
+      return null;
+    }
+    final int[] rootMoves = new int[rootCells.size()];
+    for (int i = 0; i < rootMoves.length; i++) {
+      rootMoves[i] = board.getIdx(rootCells.get(i).getRowIdx(), rootCells.get(i).getColIdx());
+    }
+
+    // Iterative deepening; an iteration that is stopped by the time limit is discarded
+    final ForkJoinPool pool = POOLS.computeIfAbsent(numThreads, ForkJoinPool::new);
+    Cell bestCell = rootCells.get(0);
+    final int treeDepth = Math.max(2, board.countEmpty());
+    final int maxDepth = this.maxDepth != AlphaBetaPruningChooser.NO_MAX_DEPTH
+      ? Math.min(treeDepth, this.maxDepth + 1) : treeDepth;
+    for (int curMaxDepth = 1; curMaxDepth < maxDepth; curMaxDepth++) {
+      final NodeTask root = new NodeTask(search, null, copy.getCopy(), copy.getNextSide(), -INFINITY, INFINITY,
+        curMaxDepth, rootMoves);
+      final long score = pool.invoke(root);
+      if (search.isStopped()) {
+        break;
+      }
+      bestScore = score;
+      completedDepth = curMaxDepth;
+      bestCell = moveToFront(rootMoves, rootCells, root.bestMove);
+    }
+
+    // Done
+    numNodes = search.numNodes.sum();
+    final long elapsedMs = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startTime);
+    Logger.info("searched to depth {} ({} nodes) in {} ms (time limit: {} seconds)", completedDepth, numNodes,
+      elapsedMs, limitSec);
+    return bestCell;
+  }
+
+  private static Cell moveToFront(final int[] rootMoves, final List<Cell> rootCells, final int move) {
+    for (int i = 0; i < rootMoves.length; i++) {
+      if (rootMoves[i] == move) {
+        System.arraycopy(rootMoves, 0, rootMoves, 1, i);
+        rootMoves[0] = move;
+        rootCells.add(0, rootCells.remove(i));
+        break;
+      }
+    }
+    return rootCells.get(0);
+  }
+
+  protected Long getBestScore() {
+    return bestScore;
+  }
+
+  /**
+   * Get the depth of the last iteration that the last search completed.
+   *
+   * @return the depth (in plies, including the root move), or zero if no iteration completed
+   */
+  public int getCompletedDepth() {
+    return completedDepth;
+  }
+
+  /**
+   * Get the number of nodes visited by the last search, in all threads.
+   *
+   * @return the number of nodes
+   */
+  public long getNumNodes() {
+    return numNodes;
+  }
+
+  /**
+   * State shared by all tasks of one search.
+   */
+  private class Search {
+
+    private final long deadline;
+    private final LongAdder numNodes;
+    private volatile boolean stopped;
+
+    private Search(final long deadline) {
+      this.deadline = deadline;
+      numNodes = new LongAdder();
+      stopped = false;
+    }
+
+    private boolean isStopped() {
+      if (!stopped && (stopRequested || System.nanoTime() - deadline >= 0)) {
+        stopped = true;
+      }
+      return stopped;
+    }
+  }
+
+  /**
+   * Thrown to unwind a task's sequential search when it must stop.
+   */
+  private static class SearchAbortedException extends RuntimeException {
+
+    private static final long serialVersionUID = 1L;
+
+    private SearchAbortedException() {
+      super(null, null, false, false);
+    }
+  }
+
+  /**
+   * Search of one node. The task owns its game (and restores it before returning), except for the eldest brother,
+   * which runs in its parent's thread on the parent's game.
+   */
+  private class NodeTask extends RecursiveTask<Long> {
+
+    private static final long serialVersionUID = 1L;
+
+    private final Search search;
+    private final NodeTask parent;
+    private final BitGame game;
+    private final int side;
+    private final long alpha;
+    private final long beta;
+    private final int depth;
+    private final int[] rootMoves;
+
+    private volatile boolean cutoff;
+    private int bestMove;
+    private long numNodes;
+
+    private NodeTask(final Search search, final NodeTask parent, final BitGame game, final int side, final long alpha,
+                     final long beta, final int depth, final int[] rootMoves) {
+      this.search = search;
+      this.parent = parent;
+      this.game = game;
+      this.side = side;
+      this.alpha = alpha;
+      this.beta = beta;
+      this.depth = depth;
+      this.rootMoves = rootMoves;
+
+      cutoff = false;
+      bestMove = TranspositionTable.NO_MOVE;
+      numNodes = 0L;
+    }
+
+    /**
+     * Check whether the result of this task is no longer needed: the time limit passed, or an ancestor had a cutoff.
+     */
+    private boolean isAborted() {
+      if (search.isStopped()) {
+        return true;
+      }
+      for (NodeTask task = parent; task != null; task = task.parent) {
+        if (task.cutoff) {
+          return true;
+        }
+      }
+      return false;
+    }
+
+    @Override
+    protected Long compute() {
+      try {
+        if (depth < MIN_SPLIT_DEPTH && rootMoves == null) {
+          return searchSequential(game, side, alpha, beta, depth, new int[depth + 1][game.getBoard().getNumCells()]);
+        }
+        return searchSplit();
+      }
+      catch (final SearchAbortedException e) {
+        return 0L;
+      }
+      finally {
+        search.numNodes.add(numNodes);
+        numNodes = 0L;
+      }
+    }
+
+    private long searchSplit() {
+      numNodes++;
+      if (isAborted()) {
+        throw new SearchAbortedException();
+      }
+
+      // Check for terminal state or stopping condition
+      final boolean isGameOver = game.isGameOver();
+      if (isGameOver || depth <= 0) {
+        return AlphaBetaPruningChooser.evaluate(game, side, isGameOver);
+      }
+
+      // Check if we've already searched this state deeply enough (but always search the root)
+      final long hash = game.getBoardHash();
+      final long entry = table.probe(hash);
+      final int ttMove = entry != 0L ? TranspositionTable.getMove(entry) : TranspositionTable.NO_MOVE;
+      if (rootMoves == null && isUsable(entry, depth, alpha, beta)) {
+        return TranspositionTable.getScore(entry);
+      }
+
+      // Order moves: the root moves as given, others shuffled with the transposition-table move first
+      final int[] moves;
+      final int numMoves;
+      if (rootMoves != null) {
+        moves = rootMoves.clone();
+        numMoves = moves.length;
+      }
+      else {
+        moves = new int[game.getBoard().getNumCells()];
+        numMoves = generateMoves(game, moves);
+      }
+      orderMoves(moves, numMoves, ttMove, rootMoves == null);
+
+      // Eldest brother: search sequentially, in this thread, on this game
+      final int opponent = BitBoard.getOtherSide(side);
+      long curAlpha = alpha;
+      long best = -INFINITY;
+      int firstIdx = 0;
+      while (firstIdx < numMoves && !game.getBoard().isEmpty(moves[firstIdx])) {
+        firstIdx++;
+      }
+      if (firstIdx == numMoves) {
+        return AlphaBetaPruningChooser.evaluate(game, side, false);
+      }
+      game.makeMove(moves[firstIdx], side);
+      final long eldestScore = -new NodeTask(search, this, game, opponent, -beta, -curAlpha, depth - 1, null).compute();
+      game.unmakeMove();
+      if (isAborted()) {
+        throw new SearchAbortedException();
+      }
+      best = eldestScore;
+      bestMove = moves[firstIdx];
+      curAlpha = Math.max(curAlpha, eldestScore);
+
+      // Younger brothers: search in parallel (null window at the current alpha), each on its own copy of the game
+      if (curAlpha < beta) {
+        final long forkAlpha = curAlpha;
+        final List<NodeTask> brothers = new ArrayList<>();
+        final List<Integer> brotherMoves = new ArrayList<>();
+        for (int i = firstIdx + 1; i < numMoves; i++) {
+          if (game.getBoard().isEmpty(moves[i])) {
+            final BitGame brotherGame = game.getCopy();
+            brotherGame.makeMove(moves[i], side);
+            final NodeTask brother = new NodeTask(search, this, brotherGame, opponent, -forkAlpha - 1, -forkAlpha,
+              depth - 1, null);
+            brother.fork();
+            brothers.add(brother);
+            brotherMoves.add(moves[i]);
+          }
+        }
+        for (int i = 0; i < brothers.size(); i++) {
+          final NodeTask brother = brothers.get(i);
+          long score = -brother.join();
+          if (isAborted()) {
+            cancelAll(brothers, i + 1);
+            throw new SearchAbortedException();
+          }
+          if (score > forkAlpha && score < beta) {
+            // Failed high on the null window, so the score is only a lower bound (and may be at most the current
+            // alpha, which may have risen since the fork): search again, with the full window
+            score = -new NodeTask(search, this, brother.game, opponent, -beta, -curAlpha, depth - 1, null).compute();
+            if (isAborted()) {
+              cancelAll(brothers, i + 1);
+              throw new SearchAbortedException();
+            }
+          }
+          if (score > best) {
+            best = score;
+            bestMove = brotherMoves.get(i);
+          }
+          curAlpha = Math.max(curAlpha, score);
+          if (curAlpha >= beta) {
+            // Cutoff: the remaining brothers are no longer needed
+            cutoff = true;
+            cancelAll(brothers, i + 1);
+            break;
+          }
+        }
+      }
+
+      // Update transposition table
+      table.store(hash, best, depth, getFlag(best, alpha, beta), bestMove);
+      return best;
+    }
+
+    private long searchSequential(final BitGame game, final int side, long alpha, final long beta, final int depth,
+                                  final int[][] moveBuffers) {
+      // Check (every few nodes) whether the search must stop
+      numNodes++;
+      if ((numNodes & (NODES_PER_STOP_CHECK - 1)) == 0 && isAborted()) {
+        throw new SearchAbortedException();
+      }
+
+      // Check for terminal state or stopping condition
+      final boolean isGameOver = game.isGameOver();
+      if (isGameOver || depth <= 0) {
+        return AlphaBetaPruningChooser.evaluate(game, side, isGameOver);
+      }
+
+      // Check if we've already searched this state deeply enough
+      final long hash = game.getBoardHash();
+      final long entry = table.probe(hash);
+      if (isUsable(entry, depth, alpha, beta)) {
+        return TranspositionTable.getScore(entry);
+      }
+
+      // Filter and order cells
+      final int[] moves = moveBuffers[depth];
+      final int numMoves = generateMoves(game, moves);
+      orderMoves(moves, numMoves,
+        entry != 0L ? TranspositionTable.getMove(entry) : TranspositionTable.NO_MOVE, true);
+
+      // Try all possible moves
+      final long alphaOrig = alpha;
+      final int opponent = BitBoard.getOtherSide(side);
+      long best = -INFINITY;
+      int move = TranspositionTable.NO_MOVE;
+      for (int i = 0; i < numMoves; i++) {
+        final int idx = moves[i];
+        if (game.getBoard().isEmpty(idx)) {
+          game.makeMove(idx, side);
+          final long score = -searchSequential(game, opponent, -beta, -alpha, depth - 1, moveBuffers);
+          game.unmakeMove();
+          if (score > best) {
+            best = score;
+            move = idx;
+          }
+          alpha = Math.max(alpha, score);
+          if (alpha >= beta) {
+            break;
+          }
+        }
+      }
+
+      // No move to try (e.g., filtered out), so treat as a leaf
+      if (move == TranspositionTable.NO_MOVE) {
+        return AlphaBetaPruningChooser.evaluate(game, side, false);
+      }
+
+      // Update transposition table
+      table.store(hash, best, depth, getFlag(best, alphaOrig, beta), move);
+      return best;
+    }
+  }
+
+  private int generateMoves(final BitGame game, final int[] out) {
+    return filter != null ? filter.filterIndices(game, out) : game.getBoard().collectEmpty(out);
+  }
+
+  private static void orderMoves(final int[] moves, final int numMoves, final int ttMove, final boolean shuffle) {
+    if (shuffle) {
+      AlphaBetaPruningChooser.shuffle(moves, numMoves);
+    }
+    for (int i = 0; i < numMoves; i++) {
+      if (moves[i] == ttMove) {
+        System.arraycopy(moves, 0, moves, 1, i);
+        moves[0] = ttMove;
+        break;
+      }
+    }
+  }
+
+  private static boolean isUsable(final long entry, final int depth, final long alpha, final long beta) {
+    if (entry == 0L || TranspositionTable.getDepth(entry) < depth) {
+      return false;
+    }
+    final long score = TranspositionTable.getScore(entry);
+    final int flag = TranspositionTable.getFlag(entry);
+    return flag == TranspositionTable.FLAG_EXACT
+      || (flag == TranspositionTable.FLAG_LOWER && score >= beta)
+      || (flag == TranspositionTable.FLAG_UPPER && score <= alpha);
+  }
+
+  private static int getFlag(final long score, final long alphaOrig, final long beta) {
+    if (score <= alphaOrig) {
+      return TranspositionTable.FLAG_UPPER;
+    }
+    else if (score >= beta) {
+      return TranspositionTable.FLAG_LOWER;
+    }
+    return TranspositionTable.FLAG_EXACT;
+  }
+
+  private static void cancelAll(final List<NodeTask> tasks, final int fromIdx) {
+    for (int i = fromIdx; i < tasks.size(); i++) {
+      tasks.get(i).cancel(false);
+    }
+  }
+}
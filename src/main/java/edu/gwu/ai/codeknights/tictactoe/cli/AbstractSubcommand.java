@@ -1,5 +1,7 @@
 package edu.gwu.ai.codeknights.tictactoe.cli;
 
+import edu.gwu.ai.codeknights.tictactoe.chooser.AlphaBetaPruningChooser;
+import edu.gwu.ai.codeknights.tictactoe.chooser.SearchStats;
 import edu.gwu.ai.codeknights.tictactoe.core.Game;
 import edu.gwu.ai.codeknights.tictactoe.core.Player;
 import edu.gwu.ai.codeknights.tictactoe.core.exception.GameException;
@@ -41,6 +43,16 @@ public abstract class AbstractSubcommand implements Callable<Void> {
     description = "identifier for player2")
   private int player2Id = 2;
 
+  @Option(
+    names = {"--threads"},
+    description = "number of threads used by each search")
+  private int numThreads = Const.SEARCH_THREADS_DEFAULT;
+
+  @Option(
+    names = {"--pattern-eval"},
+    description = "evaluate search leaves with incremental window patterns, instead of by scanning every line")
+  private boolean patternEval = Const.PATTERN_EVALUATION_DEFAULT;
+
   protected void validateArgs() throws Exception {
     help = !!help;
     dim = Math.max(0, dim);
@@ -54,6 +66,13 @@ public abstract class AbstractSubcommand implements Callable<Void> {
     gameId = Math.max(0, gameId);
     player1Id = Math.max(0, player1Id);
     player2Id = Math.max(0, player2Id);
+    numThreads = Math.max(0, numThreads);
+    if (numThreads < 1) {
+      throw new IllegalArgumentException("numThreads must be >= 1");
+    }
+
+    // Populate global settings
+    AlphaBetaPruningChooser.setPatternEvaluation(isPatternEval());
   }
 
   protected boolean isHelp() {
@@ -80,6 +99,14 @@ public abstract class AbstractSubcommand implements Callable<Void> {
     return player2Id;
   }
 
+  protected int getNumThreads() {
+    return numThreads;
+  }
+
+  protected boolean isPatternEval() {
+    return patternEval;
+  }
+
   protected Game createGame(boolean isHome) {
     final Player player1 = new Player(getPlayer1Id(), Const.MASTER_PLAYER_CHAR);
     final Player player2 = new Player(getPlayer2Id(), Const.OPPONENT_PLAYER_CHAR);
@@ -118,15 +145,24 @@ public abstract class AbstractSubcommand implements Callable<Void> {
       }
     }
 
+    public void printSearchStats(final Player player) {
+      final SearchStats stats = player.getChooser() != null ? player.getChooser().getLastSearchStats() : null;
+      if (stats != null) {
+        System.out.println("search stats: " + stats.toString());
+      }
+    }
+
     public void singleMove() {
       printCurGameInfo();
       try {
         if (!game.isGameOver()) {
+          final Player player = game.getNextPlayer();
           final long startTimeMs = System.currentTimeMillis();
           game.tryPlayNextCell();
           final long endTimeMs = System.currentTimeMillis();
           final double elapsedSec = (double) ((endTimeMs - startTimeMs) / 1000.0);
           System.out.println("time elapsed: " + String.valueOf(elapsedSec));
+          printSearchStats(player);
           printCurGameInfo();
         }
       }
@@ -139,11 +175,13 @@ public abstract class AbstractSubcommand implements Callable<Void> {
       printCurGameInfo();
       try {
         while (!game.isGameOver()) {
+          final Player player = game.getNextPlayer();
           final long startTimeMs = System.currentTimeMillis();
           game.tryPlayNextCell();
           final long endTimeMs = System.currentTimeMillis();
           final double elapsedSec = (double) ((endTimeMs - startTimeMs) / 1000.0);
           System.out.println("time elapsed: " + String.valueOf(elapsedSec));
+          printSearchStats(player);
           printCurGameInfo();
         }
       }
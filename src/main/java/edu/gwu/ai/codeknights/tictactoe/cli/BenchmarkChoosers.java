@@ -0,0 +1,464 @@
+package edu.gwu.ai.codeknights.tictactoe.cli;
+
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import edu.gwu.ai.codeknights.tictactoe.chooser.AbstractCellChooser;
+import edu.gwu.ai.codeknights.tictactoe.chooser.AlphaBetaPruningChooser;
+import edu.gwu.ai.codeknights.tictactoe.chooser.Chooser;
+import edu.gwu.ai.codeknights.tictactoe.chooser.MctsChooser;
+import edu.gwu.ai.codeknights.tictactoe.chooser.YoungBrothersWaitChooser;
+import edu.gwu.ai.codeknights.tictactoe.core.Cell;
+import edu.gwu.ai.codeknights.tictactoe.core.Game;
+import edu.gwu.ai.codeknights.tictactoe.core.Player;
+import edu.gwu.ai.codeknights.tictactoe.util.Const;
+import org.pmw.tinylog.Logger;
+import picocli.CommandLine.Command;
+import picocli.CommandLine.Option;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+@Command(
+  name = "benchmark", sortOptions = false, showDefaultValues = true,
+  description = "run the given choosers on a file of positions and write a JSON report")
+public class BenchmarkChoosers extends AbstractSubcommand {
+
+  @Option(
+    names = {"--positions"}, required = true,
+    description = "file of positions, one per line: <dim> <winLength> <board> [<row>,<col> ...], where <board> lists"
+      + " the cells row by row (\"X\" for player1, \"O\" for player2, anything else for empty) and the optional cells"
+      + " (zero-based) are the expected best moves; blank lines and lines starting with \"#\" are skipped")
+  private File positionsFile = null;
+
+  @Option(
+    names = {"--choosers"}, arity = "1..*",
+    description = "choosers to run on each position (default: AbpLimit10Sec)")
+  private Chooser[] choosers = null;
+
+  @Option(
+    names = {"--time-ms"},
+    description = "stop alpha-beta searches (including parallel YBW ones) after this many milliseconds (0 for no extra"
+      + " limit); other choosers use their own limits")
+  private long timeMs = 0;
+
+  @Option(
+    names = {"--depth"},
+    description = "limit alpha-beta searches (including parallel YBW ones) to this depth (0 for no limit)")
+  private int depth = AlphaBetaPruningChooser.NO_MAX_DEPTH;
+
+  @Option(
+    names = {"--warmup"},
+    description = "number of untimed runs of each chooser on the first position, to warm up the JIT before the"
+      + " positions are timed")
+  private int warmup = 1;
+
+  @Option(
+    names = {"--parallel"},
+    description = "number of positions to run at the same time")
+  private int parallel = 1;
+
+  @Option(
+    names = {"-o", "--output"},
+    description = "file to write the report to")
+  private File outputFile = new File("benchmark-report.json");
+
+  @Override
+  protected void validateArgs() throws Exception {
+    super.validateArgs();
+    if (positionsFile == null || !positionsFile.isFile()) {
+      throw new IllegalArgumentException("positions file does not exist: " + positionsFile);
+    }
+    choosers = choosers != null ? choosers : new Chooser[]{Chooser.ABP_LIMIT_10SEC};
+    timeMs = Math.max(0, timeMs);
+    depth = Math.max(0, depth);
+    warmup = Math.max(0, warmup);
+    if (parallel < 1) {
+      throw new IllegalArgumentException("parallel must be >= 1");
+    }
+    if (outputFile == null) {
+      throw new IllegalArgumentException("must give an output file");
+    }
+  }
+
+  protected File getPositionsFile() {
+    return positionsFile;
+  }
+
+  protected Chooser[] getChoosers() {
+    return choosers;
+  }
+
+  protected long getTimeMs() {
+    return timeMs;
+  }
+
+  protected int getDepth() {
+    return depth;
+  }
+
+  protected int getWarmup() {
+    return warmup;
+  }
+
+  protected int getParallel() {
+    return parallel;
+  }
+
+  protected File getOutputFile() {
+    return outputFile;
+  }
+
+  @Override
+  public Void call() throws Exception {
+    validateArgs();
+
+    // Stream positions from the file, running each one (with every chooser) as a task
+    final ExecutorService executor = Executors.newFixedThreadPool(getParallel());
+    final ScheduledExecutorService timer = Executors.newSingleThreadScheduledExecutor(runnable -> {
+      final Thread thread = new Thread(runnable, "benchmark-timer");
+      thread.setDaemon(true);
+      return thread;
+    });
+    final List<Future<List<PositionResult>>> futures = new ArrayList<>();
+    try {
+      try (BufferedReader reader = Files.newBufferedReader(getPositionsFile().toPath(), StandardCharsets.UTF_8)) {
+        int lineNumber = 0;
+        String line;
+        while ((line = reader.readLine()) != null) {
+          lineNumber++;
+          final String trimmed = line.trim();
+          if (trimmed.isEmpty() || trimmed.startsWith("#")) {
+            continue;
+          }
+          final Position position = Position.parse(trimmed, lineNumber, futures.size());
+          if (futures.isEmpty()) {
+            warmUp(position, timer);
+          }
+          futures.add(executor.submit(() -> runPosition(position, timer)));
+        }
+      }
+
+      // Collect results (in file order), then summarize them per chooser
+      final Report report = new Report(getTimeMs(), getDepth(), getWarmup(), futures.size());
+      for (final Future<List<PositionResult>> future : futures) {
+        try {
+          report.results.addAll(future.get());
+        }
+        catch (final ExecutionException e) {
+          Logger.error(e.getCause(), "error while running position");
+        }
+      }
+      for (final Chooser chooser : getChoosers()) {
+        report.summaries.add(ChooserSummary.summarize(chooser.getName(), report.results));
+      }
+      writeReport(report);
+    }
+    finally {
+      executor.shutdownNow();
+      timer.shutdownNow();
+    }
+
+    // Done.
+    return null;
+  }
+
+  /**
+   * Run each chooser on the given position without reporting the results, so that the first timed positions are not
+   * slowed down by the JIT compiling the search.
+   */
+  private void warmUp(final Position position, final ScheduledExecutorService timer) {
+    for (int i = 0; i < getWarmup(); i++) {
+      for (final Chooser chooserType : getChoosers()) {
+        final PositionResult result = runChooser(position, chooserType, timer);
+        Logger.info("warmup {} (line {}), chooser {}: {} ms", i + 1, position.lineNumber, chooserType.getName(),
+          result.elapsedMs);
+      }
+    }
+  }
+
+  private List<PositionResult> runPosition(final Position position, final ScheduledExecutorService timer) {
+    final List<PositionResult> results = new ArrayList<>();
+    for (final Chooser chooserType : getChoosers()) {
+      final PositionResult result = runChooser(position, chooserType, timer);
+      Logger.info("position {} (line {}), chooser {}: cell {},{} in {} ms (solved: {})", position.idx,
+        position.lineNumber, chooserType.getName(), result.row, result.col, result.elapsedMs, result.solved);
+      results.add(result);
+    }
+    return results;
+  }
+
+  private PositionResult runChooser(final Position position, final Chooser chooserType,
+                                    final ScheduledExecutorService timer) {
+    final Game game = position.createGame(getPlayer1Id(), getPlayer2Id());
+    final AbstractCellChooser chooser = chooserType.createChooser(getNumThreads());
+    final AlphaBetaPruningChooser abpChooser = chooser instanceof AlphaBetaPruningChooser
+      ? (AlphaBetaPruningChooser) chooser : null;
+    final YoungBrothersWaitChooser ybwChooser = chooser instanceof YoungBrothersWaitChooser
+      ? (YoungBrothersWaitChooser) chooser : null;
+    Runnable stop = null;
+    if (abpChooser != null) {
+      abpChooser.setMaxDepth(getDepth());
+      stop = abpChooser::stop;
+    }
+    else if (ybwChooser != null) {
+      ybwChooser.setMaxDepth(getDepth());
+      stop = ybwChooser::stop;
+    }
+    final ScheduledFuture<?> stopTask = stop != null && getTimeMs() > 0
+      ? timer.schedule(stop, getTimeMs(), TimeUnit.MILLISECONDS) : null;
+
+    final PositionResult result = new PositionResult(position, chooserType.getName());
+    final long startTime = System.nanoTime();
+    final Cell cell;
+    try {
+      cell = chooser.chooseCell(game.getBoard().getEmptyCells().stream(), game);
+    }
+    finally {
+      if (stopTask != null) {
+        stopTask.cancel(false);
+      }
+    }
+    result.elapsedMs = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startTime);
+    if (cell != null) {
+      result.row = cell.getRowIdx();
+      result.col = cell.getColIdx();
+    }
+    if (abpChooser != null) {
+      result.depth = abpChooser.getCompletedDepth();
+      result.nodes = abpChooser.getNumNodes();
+    }
+    else if (ybwChooser != null) {
+      result.depth = ybwChooser.getCompletedDepth();
+      result.nodes = ybwChooser.getNumNodes();
+    }
+    else if (chooser instanceof MctsChooser) {
+      result.nodes = (long) ((MctsChooser) chooser).getNumNodes();
+    }
+    if (result.nodes != null) {
+      result.nodesPerSec = result.nodes * 1000L / Math.max(1L, result.elapsedMs);
+    }
+    if (!position.expected.isEmpty()) {
+      result.solved = cell != null && position.isExpected(cell.getRowIdx(), cell.getColIdx());
+      if (result.solved) {
+        result.solutionMs = abpChooser != null ? abpChooser.getBestCellsElapsedMs() : result.elapsedMs;
+      }
+    }
+    return result;
+  }
+
+  private void writeReport(final Report report) throws IOException {
+    final Gson gson = new GsonBuilder().setPrettyPrinting().create();
+    try (Writer writer = new OutputStreamWriter(Files.newOutputStream(getOutputFile().toPath()),
+      StandardCharsets.UTF_8)) {
+      gson.toJson(report, writer);
+    }
+    Logger.info("wrote report for {} positions to {}", report.numPositions, getOutputFile());
+  }
+
+  /**
+   * A position from the positions file.
+   */
+  public static class Position {
+
+    public final int idx;
+    public final int lineNumber;
+    public final int dim;
+    public final int winLength;
+    public final String board;
+    public final List<int[]> expected;
+
+    private Position(final int idx, final int lineNumber, final int dim, final int winLength, final String board,
+                     final List<int[]> expected) {
+      this.idx = idx;
+      this.lineNumber = lineNumber;
+      this.dim = dim;
+      this.winLength = winLength;
+      this.board = board;
+      this.expected = expected;
+    }
+
+    public static Position parse(final String line, final int lineNumber, final int idx) {
+      final String[] fields = line.trim().split("\\s+");
+      try {
+        if (fields.length < 3) {
+          throw new IllegalArgumentException("expected at least <dim> <winLength> <board>");
+        }
+        final int dim = Integer.parseInt(fields[0]);
+        final int winLength = Integer.parseInt(fields[1]);
+        if (dim < 1 || winLength < 1 || winLength > dim) {
+          throw new IllegalArgumentException("dim must be >= 1, and winLength must be >= 1 and <= dim");
+        }
+        final String board = fields[2];
+        if (board.length() != dim * dim) {
+          throw new IllegalArgumentException("board must have dim*dim=" + dim * dim + " cells");
+        }
+        final List<int[]> expected = new ArrayList<>();
+        for (int i = 3; i < fields.length; i++) {
+          final String[] coords = fields[i].split(",");
+          if (coords.length != 2) {
+            throw new IllegalArgumentException("expected move must be <row>,<col>: " + fields[i]);
+          }
+          expected.add(new int[]{Integer.parseInt(coords[0]), Integer.parseInt(coords[1])});
+        }
+        return new Position(idx, lineNumber, dim, winLength, board, expected);
+      }
+      catch (final NumberFormatException e) {
+        throw new IllegalArgumentException("invalid position on line " + lineNumber + ": " + line, e);
+      }
+      catch (final IllegalArgumentException e) {
+        throw new IllegalArgumentException("invalid position on line " + lineNumber + ": " + e.getMessage(), e);
+      }
+    }
+
+    public Game createGame(final int player1Id, final int player2Id) {
+      final Game game = new Game(dim, winLength, 0, new Player(player1Id, Const.MASTER_PLAYER_CHAR),
+        new Player(player2Id, Const.OPPONENT_PLAYER_CHAR), true);
+      final String[] stateArgs = new String[board.length()];
+      for (int i = 0; i < board.length(); i++) {
+        stateArgs[i] = String.valueOf(board.charAt(i));
+      }
+      game.populate(stateArgs);
+      return game;
+    }
+
+    public boolean isExpected(final int rowIdx, final int colIdx) {
+      return expected.stream().anyMatch(move -> move[0] == rowIdx && move[1] == colIdx);
+    }
+  }
+
+  /**
+   * The result of one chooser on one position (fields that do not apply are left out of the report). For MCTS choosers,
+   * the nodes are those of the search tree.
+   */
+  public static class PositionResult {
+
+    public final int position;
+    public final int line;
+    public final String chooser;
+    public Integer row;
+    public Integer col;
+    public long elapsedMs;
+    public Integer depth;
+    public Long nodes;
+    public Long nodesPerSec;
+    public Boolean solved;
+    public Long solutionMs;
+
+    public PositionResult(final Position position, final String chooser) {
+      this.position = position.idx;
+      line = position.lineNumber;
+      this.chooser = chooser;
+    }
+  }
+
+  /**
+   * Totals of one chooser over all positions. Time-to-solution (for alpha-beta choosers, the time until the search
+   * settled on its answer; otherwise, the time to choose) is over the solved positions only.
+   */
+  public static class ChooserSummary {
+
+    public final String chooser;
+    public int positions;
+    public int withExpected;
+    public int solved;
+    public Double solveRate;
+    public Long nodesPerSec;
+    public Double meanDepth;
+    public Long solutionMsP50;
+    public Long solutionMsP90;
+    public Long solutionMsMax;
+
+    private ChooserSummary(final String chooser) {
+      this.chooser = chooser;
+    }
+
+    public static ChooserSummary summarize(final String chooser, final List<PositionResult> results) {
+      final ChooserSummary summary = new ChooserSummary(chooser);
+      long totalNodes = 0L;
+      long totalNodesMs = 0L;
+      long totalDepth = 0L;
+      int numDepths = 0;
+      final List<Long> solutionMs = new ArrayList<>();
+      for (final PositionResult result : results) {
+        if (!chooser.equals(result.chooser)) {
+          continue;
+        }
+        summary.positions++;
+        if (result.nodes != null) {
+          totalNodes += result.nodes;
+          totalNodesMs += result.elapsedMs;
+        }
+        if (result.depth != null) {
+          totalDepth += result.depth;
+          numDepths++;
+        }
+        if (result.solved != null) {
+          summary.withExpected++;
+          if (result.solved) {
+            summary.solved++;
+            solutionMs.add(result.solutionMs);
+          }
+        }
+      }
+      if (summary.withExpected > 0) {
+        summary.solveRate = (double) summary.solved / summary.withExpected;
+      }
+      if (totalNodesMs > 0) {
+        summary.nodesPerSec = totalNodes * 1000L / totalNodesMs;
+      }
+      if (numDepths > 0) {
+        summary.meanDepth = (double) totalDepth / numDepths;
+      }
+      if (!solutionMs.isEmpty()) {
+        Collections.sort(solutionMs);
+        summary.solutionMsP50 = getPercentile(solutionMs, 50);
+        summary.solutionMsP90 = getPercentile(solutionMs, 90);
+        summary.solutionMsMax = solutionMs.get(solutionMs.size() - 1);
+      }
+      return summary;
+    }
+
+    private static long getPercentile(final List<Long> sorted, final int percentile) {
+      // Nearest-rank method
+      final int rank = (int) Math.ceil(percentile / 100.0 * sorted.size());
+      return sorted.get(Math.max(0, rank - 1));
+    }
+  }
+
+  /**
+   * The whole report, as written in JSON.
+   */
+  public static class Report {
+
+    public final long timeMs;
+    public final int depth;
+    public final int warmup;
+    public final int numPositions;
+    public final List<PositionResult> results;
+    public final List<ChooserSummary> summaries;
+
+    public Report(final long timeMs, final int depth, final int warmup, final int numPositions) {
+      this.timeMs = timeMs;
+      this.depth = depth;
+      this.warmup = warmup;
+      this.numPositions = numPositions;
+      results = new ArrayList<>();
+      summaries = new ArrayList<>();
+    }
+  }
+}
@@ -13,8 +13,8 @@ import java.util.concurrent.Callable;
   name = "cli", sortOptions = false, showDefaultValues = true,
   description = "command-line interface",
   subcommands = {
-    SingleMove.class, FinishGame.class, TestFilter.class, CompareChoosers.class, CreateOnlineGame.class,
-    PlayOnlineGame.class, LaunchGui.class})
+    SingleMove.class, FinishGame.class, TestFilter.class, CompareChoosers.class, BenchmarkChoosers.class,
+    PlayMatch.class, CreateOnlineGame.class, PlayOnlineGame.class, LaunchGui.class})
 public class Cli implements Callable<Void> {
 
   @Option(
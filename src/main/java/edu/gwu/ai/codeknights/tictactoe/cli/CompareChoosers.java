@@ -2,6 +2,7 @@ package edu.gwu.ai.codeknights.tictactoe.cli;
 
 import edu.gwu.ai.codeknights.tictactoe.chooser.AbstractCellChooser;
 import edu.gwu.ai.codeknights.tictactoe.chooser.Chooser;
+import edu.gwu.ai.codeknights.tictactoe.chooser.SearchStats;
 import edu.gwu.ai.codeknights.tictactoe.core.Cell;
 import edu.gwu.ai.codeknights.tictactoe.core.Game;
 import edu.gwu.ai.codeknights.tictactoe.core.Player;
@@ -19,13 +20,13 @@ public class CompareChoosers extends AbstractOfflineSubcommand {
 
   @Option(
     names = {"--choosers"}, arity = "1..*",
-    description = "choosers that will be compared on the next move for the current board state")
-  private Chooser[] choosers = Chooser.values();
+    description = "choosers that will be compared on the next move for the current board state (default: all)")
+  private Chooser[] choosers = null;
 
   @Override
   protected void validateArgs() throws Exception {
     super.validateArgs();
-    choosers = choosers != null ? choosers : new Chooser[0];
+    choosers = choosers != null ? choosers : Chooser.values();
     if (choosers.length < 1) {
       throw new IllegalArgumentException("must select at least one chooser");
     }
@@ -45,7 +46,7 @@ public class CompareChoosers extends AbstractOfflineSubcommand {
     // Compare selected choosers
     final Map<String, AbstractCellChooser> chooserMap = new LinkedHashMap<>();
     for (final Chooser chooser : getChoosers()) {
-      chooserMap.put(chooser.getName(), chooser.createChooser());
+      chooserMap.put(chooser.getName(), chooser.createChooser(getNumThreads()));
     }
     System.out.println(
       "will test " + String.valueOf(chooserMap.size()) + " choosers on this board:\n" + String.valueOf(game));
@@ -54,28 +55,34 @@ public class CompareChoosers extends AbstractOfflineSubcommand {
       final AbstractCellChooser chooser = chooserMap.get(name);
       System.out.println("testing chooser '" + name + "' (class=" + chooser.getClass().getSimpleName() + ") ...");
       try {
-        final Game copy = game.getCopy();
-        final Player nextPlayer = copy.getNextPlayer();
+        final Player nextPlayer = game.getNextPlayer();
         nextPlayer.setChooser(chooser);
         Integer rowIdx = null;
         Integer colIdx = null;
         String playerMark = null;
         Long playerUtility = null;
         final long startTimeMs = System.currentTimeMillis();
-        final Cell cell = nextPlayer.chooseCell(copy);
+        final Cell cell = nextPlayer.chooseCell(game);
         final long endTimeMs = System.currentTimeMillis();
         final double elapsedSec = (double) ((endTimeMs - startTimeMs) / 1000.0);
         if (cell != null) {
           rowIdx = cell.getRowIdx();
           colIdx = cell.getColIdx();
-          copy.playInCell(rowIdx, colIdx, nextPlayer);
-          playerUtility = copy.evaluatePlayerUtility(nextPlayer);
-          playerMark = String.valueOf(copy.getBoard().getCell(rowIdx, colIdx).getPlayer().getMarker());
+          game.makeMove(rowIdx, colIdx, nextPlayer);
+          playerUtility = game.evaluatePlayerUtility(nextPlayer);
+          playerMark = String.valueOf(game.getBoard().getCell(rowIdx, colIdx).getPlayer().getMarker());
         }
         System.out.println("updated board:");
-        System.out.println(String.valueOf(copy));
-        resultMap.put(name, new TestResult(rowIdx, colIdx, playerMark, playerUtility, elapsedSec));
+        System.out.println(String.valueOf(game));
+        if (cell != null) {
+          game.unmakeMove();
+        }
+        final SearchStats searchStats = chooser.getLastSearchStats();
+        resultMap.put(name, new TestResult(rowIdx, colIdx, playerMark, playerUtility, elapsedSec, searchStats));
         System.out.println("time elapsed (sec): " + String.valueOf(elapsedSec));
+        if (searchStats != null) {
+          System.out.println("search stats: " + searchStats.toString());
+        }
       }
       catch (final Exception e) {
         Logger.error(e, "error while testing chooser: " + name);
@@ -99,14 +106,16 @@ public class CompareChoosers extends AbstractOfflineSubcommand {
     public final String playerMark;
     public final Long playerUtility;
     public final Double elapsedSec;
+    public final SearchStats searchStats;
 
     public TestResult(final Integer rowIdx, final Integer colIdx, final String playerMark, final Long playerUtility,
-      final double elapsedSec) {
+      final double elapsedSec, final SearchStats searchStats) {
       this.rowIdx = rowIdx;
       this.colIdx = colIdx;
       this.playerMark = playerMark;
       this.playerUtility = playerUtility;
       this.elapsedSec = elapsedSec;
+      this.searchStats = searchStats;
     }
 
     public TestResult() {
@@ -115,6 +124,7 @@ public class CompareChoosers extends AbstractOfflineSubcommand {
       playerMark = null;
       playerUtility = null;
       elapsedSec = null;
+      searchStats = null;
     }
 
     @Override
@@ -125,6 +135,7 @@ public class CompareChoosers extends AbstractOfflineSubcommand {
         .append("playerMark=").append(playerMark).append(", ")
         .append("playerUtility=").append(playerUtility).append(", ")
         .append("elapsedSec=").append(elapsedSec)
+        .append(searchStats != null ? ", searchStats=" + searchStats.toShortString() : "")
         .toString();
     }
   }
@@ -49,8 +49,8 @@ public class FinishGame extends AbstractOfflineSubcommand {
     final Game game = createGame(true);
 
     // Configure choosers for both players
-    game.getPlayer1().setChooser(getPlayer1Chooser().createChooser());
-    game.getPlayer2().setChooser(getPlayer2Chooser().createChooser());
+    game.getPlayer1().setChooser(getPlayer1Chooser().createChooser(getNumThreads()));
+    game.getPlayer2().setChooser(getPlayer2Chooser().createChooser(getNumThreads()));
 
     // Finish the game
     final GameplayHelper helper = new GameplayHelper(game);
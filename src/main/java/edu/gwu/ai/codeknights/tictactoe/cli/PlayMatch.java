@@ -0,0 +1,329 @@
+package edu.gwu.ai.codeknights.tictactoe.cli;
+
+import edu.gwu.ai.codeknights.tictactoe.chooser.Chooser;
+import edu.gwu.ai.codeknights.tictactoe.core.Cell;
+import edu.gwu.ai.codeknights.tictactoe.core.Game;
+import edu.gwu.ai.codeknights.tictactoe.core.Player;
+import edu.gwu.ai.codeknights.tictactoe.core.exception.GameException;
+import edu.gwu.ai.codeknights.tictactoe.filter.PopulatedNeighborFilter;
+import org.pmw.tinylog.Logger;
+import picocli.CommandLine.Command;
+import picocli.CommandLine.Option;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.stream.Collectors;
+
+@Command(
+  name = "match", sortOptions = false, showDefaultValues = true,
+  description = "play many games between two choosers, until a sequential probability ratio test (SPRT) decides"
+    + " whether chooser A is stronger than chooser B by elo1 rather than elo0, or the maximum number of games is"
+    + " played")
+public class PlayMatch extends AbstractSubcommand {
+
+  @Option(
+    names = {"--chooser-a"},
+    description = "chooser under test")
+  private Chooser chooserA = Chooser.CASE_BY_CASE_ABP_LIMIT_10SEC;
+
+  @Option(
+    names = {"--chooser-b"},
+    description = "baseline chooser")
+  private Chooser chooserB = Chooser.CASE_BY_CASE_ABP_LIMIT_10SEC;
+
+  @Option(
+    names = {"--games"},
+    description = "maximum number of games (each opening is played twice, with colors swapped)")
+  private int numGames = 1000;
+
+  @Option(
+    names = {"--concurrency"},
+    description = "number of games to play at the same time")
+  private int concurrency = 1;
+
+  @Option(
+    names = {"--opening-moves"},
+    description = "number of random moves that start each game")
+  private int numOpeningMoves = 2;
+
+  @Option(
+    names = {"--seed"},
+    description = "seed for the random openings")
+  private long seed = 0;
+
+  @Option(
+    names = {"--elo0"},
+    description = "Elo difference of the null hypothesis")
+  private double elo0 = 0.0;
+
+  @Option(
+    names = {"--elo1"},
+    description = "Elo difference of the alternative hypothesis")
+  private double elo1 = 10.0;
+
+  @Option(
+    names = {"--alpha"},
+    description = "probability of accepting elo1 when elo0 is true")
+  private double alpha = 0.05;
+
+  @Option(
+    names = {"--beta"},
+    description = "probability of accepting elo0 when elo1 is true")
+  private double beta = 0.05;
+
+  @Override
+  protected void validateArgs() throws Exception {
+    super.validateArgs();
+    if (chooserA == null || chooserB == null) {
+      throw new IllegalArgumentException("must select both choosers");
+    }
+    if (numGames < 1) {
+      throw new IllegalArgumentException("games must be >= 1");
+    }
+    if (concurrency < 1) {
+      throw new IllegalArgumentException("concurrency must be >= 1");
+    }
+    numOpeningMoves = Math.max(0, numOpeningMoves);
+    if (elo1 <= elo0) {
+      throw new IllegalArgumentException("elo1 must be > elo0");
+    }
+    if (alpha <= 0.0 || alpha >= 1.0 || beta <= 0.0 || beta >= 1.0) {
+      throw new IllegalArgumentException("alpha and beta must be > 0 and < 1");
+    }
+  }
+
+  protected Chooser getChooserA() {
+    return chooserA;
+  }
+
+  protected Chooser getChooserB() {
+    return chooserB;
+  }
+
+  protected int getNumGames() {
+    return numGames;
+  }
+
+  protected int getConcurrency() {
+    return concurrency;
+  }
+
+  protected int getNumOpeningMoves() {
+    return numOpeningMoves;
+  }
+
+  protected long getSeed() {
+    return seed;
+  }
+
+  @Override
+  public Void call() throws Exception {
+    validateArgs();
+
+    // Play games on a thread pool until the test decides (games that already started are still counted)
+    final MatchResults results = new MatchResults(elo0, elo1, alpha, beta);
+    final ExecutorService executor = Executors.newFixedThreadPool(getConcurrency());
+    try {
+      final List<Future<?>> futures = new ArrayList<>();
+      for (int gameIdx = 0; gameIdx < getNumGames(); gameIdx++) {
+        final int idx = gameIdx;
+        futures.add(executor.submit(() -> {
+          if (!results.isDecided()) {
+            final int result = playGame(idx);
+            results.record(result);
+            Logger.info("game {}: {} for {} as player{}; {}", idx, result > 0 ? "win" : result < 0 ? "loss" : "draw",
+              getChooserA().getName(), idx % 2 == 0 ? 1 : 2, results);
+          }
+          return null;
+        }));
+      }
+      for (final Future<?> future : futures) {
+        try {
+          future.get();
+        }
+        catch (final ExecutionException e) {
+          Logger.error(e.getCause(), "error while playing game");
+        }
+      }
+    }
+    finally {
+      executor.shutdownNow();
+    }
+
+    // Report
+    System.out.println(getChooserA().getName() + " vs " + getChooserB().getName() + ": " + results);
+    System.out.println("SPRT(elo0=" + elo0 + ", elo1=" + elo1 + ", alpha=" + alpha + ", beta=" + beta + "): "
+      + results.getDecision());
+
+    // Done.
+    return null;
+  }
+
+  /**
+   * Play one game. Games {@code 2k} and {@code 2k+1} start from the same random opening, with chooser A as player1 in
+   * the first and as player2 in the second.
+   *
+   * @return {@code 1}, {@code 0}, or {@code -1} if chooser A won, drew, or lost
+   */
+  private int playGame(final int gameIdx) throws GameException {
+    final Game game = createGame(true);
+    final boolean isAPlayer1 = gameIdx % 2 == 0;
+    final Player playerA = isAPlayer1 ? game.getPlayer1() : game.getPlayer2();
+    final Player playerB = game.getOtherPlayer(playerA);
+    playerA.setChooser(getChooserA().createChooser(getNumThreads()));
+    playerB.setChooser(getChooserB().createChooser(getNumThreads()));
+
+    // Random opening: the first move anywhere, the rest next to populated cells
+    final Random random = new Random(getSeed() + gameIdx / 2);
+    final PopulatedNeighborFilter neighborFilter = new PopulatedNeighborFilter();
+    for (int i = 0; i < getNumOpeningMoves() && !game.isGameOver(); i++) {
+      List<Cell> cells = neighborFilter.filterCells(game).collect(Collectors.toList());
+      if (cells.isEmpty()) {
+        cells = game.getBoard().getEmptyCells();
+      }
+      final Cell cell = cells.get(random.nextInt(cells.size()));
+      game.makeMove(cell.getRowIdx(), cell.getColIdx());
+    }
+
+    // Play it out
+    while (!game.isGameOver()) {
+      game.tryPlayNextCell();
+    }
+    return game.didPlayerWin(playerA) ? 1 : game.didPlayerWin(playerB) ? -1 : 0;
+  }
+
+  /**
+   * Wins, draws, and losses of chooser A, with an Elo estimate and the log-likelihood ratio of the SPRT (using the
+   * normal approximation of the trinomial model, as in the "GSPRT" used by engine testing frameworks).
+   */
+  public static class MatchResults {
+
+    private final double elo0;
+    private final double elo1;
+    private final double lowerBound;
+    private final double upperBound;
+
+    private int numWins;
+    private int numDraws;
+    private int numLosses;
+
+    public MatchResults(final double elo0, final double elo1, final double alpha, final double beta) {
+      this.elo0 = elo0;
+      this.elo1 = elo1;
+      lowerBound = Math.log(beta / (1.0 - alpha));
+      upperBound = Math.log((1.0 - beta) / alpha);
+    }
+
+    public synchronized void record(final int result) {
+      if (result > 0) {
+        numWins++;
+      }
+      else if (result < 0) {
+        numLosses++;
+      }
+      else {
+        numDraws++;
+      }
+    }
+
+    public synchronized int getNumGames() {
+      return numWins + numDraws + numLosses;
+    }
+
+    /**
+     * Get the log-likelihood ratio of "A is elo1 stronger" over "A is elo0 stronger".
+     *
+     * NOTE: the variance is estimated with half a win and half a loss added, so that a run of identical results (e.g.
+     * all draws, which is common on small boards) still moves the ratio.
+     *
+     * @return the log-likelihood ratio, or {@code 0} before any game is played
+     */
+    public synchronized double getLlr() {
+      final int numGames = getNumGames();
+      if (numGames == 0) {
+        return 0.0;
+      }
+      final double score = getScore();
+      final double variance = (getVariance(score) * numGames + 0.5 * Math.pow(1.0 - score, 2)
+        + 0.5 * Math.pow(score, 2)) / (numGames + 1);
+      final double score0 = toScore(elo0);
+      final double score1 = toScore(elo1);
+      return numGames * (score1 - score0) * (2.0 * score - score0 - score1) / (2.0 * variance);
+    }
+
+    public synchronized boolean isDecided() {
+      final double llr = getLlr();
+      return llr <= lowerBound || llr >= upperBound;
+    }
+
+    public synchronized String getDecision() {
+      final double llr = getLlr();
+      if (llr >= upperBound) {
+        return "accepted elo1 (LLR " + format(llr) + " >= " + format(upperBound) + ")";
+      }
+      if (llr <= lowerBound) {
+        return "accepted elo0 (LLR " + format(llr) + " <= " + format(lowerBound) + ")";
+      }
+      return "undecided (LLR " + format(llr) + " in (" + format(lowerBound) + ", " + format(upperBound) + "))";
+    }
+
+    /**
+     * Get the Elo difference of A over B implied by the score so far.
+     *
+     * @return the Elo difference (infinite if A won or lost every game)
+     */
+    public synchronized double getElo() {
+      return toElo(getScore());
+    }
+
+    /**
+     * Get the half-width of the 95% confidence interval of {@link #getElo()} (approximately).
+     *
+     * @return the error margin, in Elo
+     */
+    public synchronized double getEloError() {
+      final int numGames = getNumGames();
+      if (numGames == 0) {
+        return Double.POSITIVE_INFINITY;
+      }
+      final double score = getScore();
+      final double margin = 1.96 * Math.sqrt(getVariance(score) / numGames);
+      return (toElo(Math.min(1.0, score + margin)) - toElo(Math.max(0.0, score - margin))) / 2.0;
+    }
+
+    private double getScore() {
+      final int numGames = getNumGames();
+      return numGames > 0 ? (numWins + 0.5 * numDraws) / numGames : 0.5;
+    }
+
+    private double getVariance(final double score) {
+      final int numGames = getNumGames();
+      return (numWins * Math.pow(1.0 - score, 2) + numDraws * Math.pow(0.5 - score, 2)
+        + numLosses * Math.pow(score, 2)) / numGames;
+    }
+
+    private static double toScore(final double elo) {
+      return 1.0 / (1.0 + Math.pow(10.0, -elo / 400.0));
+    }
+
+    private static double toElo(final double score) {
+      return -400.0 * Math.log10(1.0 / score - 1.0);
+    }
+
+    private static String format(final double value) {
+      return String.format("%.2f", value);
+    }
+
+    @Override
+    public synchronized String toString() {
+      return "W-D-L " + numWins + "-" + numDraws + "-" + numLosses + " (" + getNumGames() + " games), Elo "
+        + format(getElo()) + " +/- " + format(getEloError()) + ", LLR " + format(getLlr()) + " ["
+        + format(lowerBound) + ", " + format(upperBound) + "]";
+    }
+  }
+}
@@ -23,6 +23,11 @@ public class PlayOnlineGame extends AbstractOnlineSubcommand {
     description = "do not play as either player, just spectate and display moves that are made by the players")
   private boolean spectator = false;
 
+  @Option(
+    names = {"--no-ponder"},
+    description = "do not search on the opponent's time (while waiting for its moves)")
+  private boolean noPonder = false;
+
   @Option(
     names = {"--time-limit-sec"},
     description = "time limit (in seconds) for choosing a move")
@@ -36,6 +41,7 @@ public class PlayOnlineGame extends AbstractOnlineSubcommand {
     }
     player2 = !!player2;
     spectator = !!spectator;
+    noPonder = !!noPonder;
     timeLimitSec = Math.max(0, timeLimitSec);
     if (timeLimitSec < 1) {
       throw new IllegalArgumentException("timeLimitSec must be >= 1");
@@ -50,6 +56,10 @@ public class PlayOnlineGame extends AbstractOnlineSubcommand {
     return spectator;
   }
 
+  protected boolean isNoPonder() {
+    return noPonder;
+  }
+
   protected int getTimeLimitSec() {
     return timeLimitSec;
   }
@@ -66,16 +76,18 @@ public class PlayOnlineGame extends AbstractOnlineSubcommand {
     if (isPlayer2()) {
       localPlayer = game.getPlayer2();
     }
+    OnlineMoveMaker moveMaker = null;
     if (isSpectator()) {
       localPlayer.setChooser(new OnlineMoveFetcher());
     }
     else {
-      localPlayer.setChooser(new OnlineMoveMaker(getTimeLimitSec()));
+      moveMaker = new OnlineMoveMaker(getTimeLimitSec(), getNumThreads());
+      localPlayer.setChooser(moveMaker);
     }
 
-    // Configure remote player
+    // Configure remote player (the local player ponders while waiting for its moves, unless disabled)
     final Player remotePlayer = game.getOtherPlayer(localPlayer);
-    remotePlayer.setChooser(new OnlineMoveFetcher());
+    remotePlayer.setChooser(new OnlineMoveFetcher(isNoPonder() ? null : moveMaker));
 
     // Fast-forward game to current state
     AbstractOnlineChooser.tryFastForward(game);
@@ -36,7 +36,7 @@ public class SingleMove extends AbstractOfflineSubcommand {
     final Game game = createGame(true);
 
     // Configure the chooser for whichever player is next
-    game.getNextPlayer().setChooser(chooser.createChooser());
+    game.getNextPlayer().setChooser(chooser.createChooser(getNumThreads()));
 
     // Play the next move
     final GameplayHelper helper = new GameplayHelper(game);
@@ -0,0 +1,512 @@
+package edu.gwu.ai.codeknights.tictactoe.core;
+
+/**
+ * A compact square board for Tic Tac Toe that keeps one packed bitset per side instead of {@link Cell} objects. Cells
+ * are addressed by a single index, {@code rowIdx * dim + colIdx}, and players are addressed by side ({@link #SIDE_1}
+ * or {@link #SIDE_2}). This representation is meant for search and evaluation, where walking the object graph of a
+ * {@link Board} at every node is too expensive; see {@link BitGame} for a game-level facade.
+ *
+ * NOTE: some operations use internal scratch buffers, so a single instance must not be shared between threads. Use
+ *       {@link #getCopy()} to give each thread its own board.
+ *
+ * @author ajv
+ */
+public class BitBoard {
+
+  public static final int NO_SIDE = -1;
+  public static final int SIDE_1 = 0;
+  public static final int SIDE_2 = 1;
+
+  private static final int[][] LINE_DIRECTIONS = {{0, 1}, {1, 0}, {1, 1}, {1, -1}};
+
+  private final int dim;
+  private final int numCells;
+  private final int numWords;
+
+  private final long[][] bits;
+  private final int[] counts;
+
+  private final long[] validMask;
+  private final long[] notFirstColMask;
+  private final long[] notLastColMask;
+
+  private final long[] scratch1;
+  private final long[] scratch2;
+  private final long[] scratch3;
+
+  /**
+   * Construct a new, empty square board of the given dimension.
+   *
+   * @param dim the dimension (number of rows and columns)
+   */
+  public BitBoard(final int dim) {
+    this.dim = dim;
+    numCells = dim * dim;
+    numWords = Math.max(1, (numCells + 63) >>> 6);
+
+    bits = new long[2][numWords];
+    counts = new int[2];
+
+    validMask = new long[numWords];
+    notFirstColMask = new long[numWords];
+    notLastColMask = new long[numWords];
+    for (int idx = 0; idx < numCells; idx++) {
+      final int colIdx = idx % dim;
+      setBit(validMask, idx);
+      if (colIdx > 0) {
+        setBit(notFirstColMask, idx);
+      }
+      if (colIdx < dim - 1) {
+        setBit(notLastColMask, idx);
+      }
+    }
+
+    scratch1 = new long[numWords];
+    scratch2 = new long[numWords];
+    scratch3 = new long[numWords];
+  }
+
+  private BitBoard(final BitBoard other) {
+    dim = other.dim;
+    numCells = other.numCells;
+    numWords = other.numWords;
+
+    bits = new long[][] {other.bits[SIDE_1].clone(), other.bits[SIDE_2].clone()};
+    counts = other.counts.clone();
+
+    // Masks are never modified, so they can be shared
+    validMask = other.validMask;
+    notFirstColMask = other.notFirstColMask;
+    notLastColMask = other.notLastColMask;
+
+    scratch1 = new long[numWords];
+    scratch2 = new long[numWords];
+    scratch3 = new long[numWords];
+  }
+
+  /**
+   * Construct a bitboard with the same contents as the given board. Cells populated by {@code player1} are assigned to
+   * {@link #SIDE_1}, cells populated by {@code player2} are assigned to {@link #SIDE_2}, and all other cells are
+   * left empty.
+   *
+   * @param board   the board to copy
+   * @param player1 the player assigned to {@link #SIDE_1}
+   * @param player2 the player assigned to {@link #SIDE_2}
+   *
+   * @return a new bitboard
+   */
+  public static BitBoard fromBoard(final Board board, final Player player1, final Player player2) {
+    final int dim = board.getDim();
+    final BitBoard bitBoard = new BitBoard(dim);
+    for (int rowIdx = 0; rowIdx < dim; rowIdx++) {
+      for (int colIdx = 0; colIdx < dim; colIdx++) {
+        final Cell cell = board.getCell(rowIdx, colIdx);
+        if (cell.isPopulatedBy(player1)) {
+          bitBoard.set(bitBoard.getIdx(rowIdx, colIdx), SIDE_1);
+        }
+        else if (cell.isPopulatedBy(player2)) {
+          bitBoard.set(bitBoard.getIdx(rowIdx, colIdx), SIDE_2);
+        }
+      }
+    }
+    return bitBoard;
+  }
+
+  /**
+   * Get the side that plays against the given side.
+   *
+   * @param side either {@link #SIDE_1} or {@link #SIDE_2}
+   *
+   * @return the other side
+   */
+  public static int getOtherSide(final int side) {
+    return 1 - side;
+  }
+
+  /**
+   * Get the dimension (number of rows and columns).
+   *
+   * @return the dimension
+   */
+  public int getDim() {
+    return dim;
+  }
+
+  /**
+   * Get the total number of cells on the board.
+   *
+   * @return the number of cells
+   */
+  public int getNumCells() {
+    return numCells;
+  }
+
+  /**
+   * Get the index of the cell at the given coordinates.
+   *
+   * @param rowIdx zero-based index of the row
+   * @param colIdx zero-based index of the column
+   *
+   * @return the cell index
+   */
+  public int getIdx(final int rowIdx, final int colIdx) {
+    return rowIdx * dim + colIdx;
+  }
+
+  /**
+   * Get the zero-based row index of the given cell index.
+   *
+   * @param idx the cell index
+   *
+   * @return the row index
+   */
+  public int getRowIdx(final int idx) {
+    return idx / dim;
+  }
+
+  /**
+   * Get the zero-based column index of the given cell index.
+   *
+   * @param idx the cell index
+   *
+   * @return the column index
+   */
+  public int getColIdx(final int idx) {
+    return idx % dim;
+  }
+
+  /**
+   * Get the side populating the given cell.
+   *
+   * @param idx the cell index
+   *
+   * @return {@link #SIDE_1}, {@link #SIDE_2}, or {@link #NO_SIDE} if the cell is empty
+   */
+  public int getSide(final int idx) {
+    if (testBit(bits[SIDE_1], idx)) {
+      return SIDE_1;
+    }
+    if (testBit(bits[SIDE_2], idx)) {
+      return SIDE_2;
+    }
+    return NO_SIDE;
+  }
+
+  /**
+   * Check whether the given cell is empty.
+   *
+   * @param idx the cell index
+   *
+   * @return {@code true} if the cell is empty, {@code false} otherwise
+   */
+  public boolean isEmpty(final int idx) {
+    return !testBit(bits[SIDE_1], idx) && !testBit(bits[SIDE_2], idx);
+  }
+
+  /**
+   * Check whether the given cell is populated by the given side.
+   *
+   * @param idx  the cell index
+   * @param side the side to check for
+   *
+   * @return {@code true} if the cell is populated by the side, {@code false} otherwise
+   */
+  public boolean isPopulatedBy(final int idx, final int side) {
+    return testBit(bits[side], idx);
+  }
+
+  /**
+   * Populate the given cell with the given side.
+   *
+   * NOTE: no checking is performed to ensure that the cell is empty.
+   *
+   * @param idx  the cell index
+   * @param side the side populating the cell
+   */
+  public void set(final int idx, final int side) {
+    setBit(bits[side], idx);
+    counts[side]++;
+  }
+
+  /**
+   * Empty the given cell, if it is populated.
+   *
+   * @param idx the cell index
+   */
+  public void clear(final int idx) {
+    final int side = getSide(idx);
+    if (side != NO_SIDE) {
+      bits[side][idx >>> 6] &= ~(1L << idx);
+      counts[side]--;
+    }
+  }
+
+  /**
+   * Count the number of cells populated by the given side.
+   *
+   * @param side the side whose cells will be counted
+   *
+   * @return the number of cells populated by the side
+   */
+  public int count(final int side) {
+    return counts[side];
+  }
+
+  /**
+   * Count the number of empty cells.
+   *
+   * @return the number of empty cells
+   */
+  public int countEmpty() {
+    return numCells - counts[SIDE_1] - counts[SIDE_2];
+  }
+
+  /**
+   * Check if all of the cells are empty.
+   *
+   * @return {@code true} if all cells are empty, {@code false} otherwise
+   */
+  public boolean isEmpty() {
+    return counts[SIDE_1] == 0 && counts[SIDE_2] == 0;
+  }
+
+  /**
+   * Check if none of the cells are empty.
+   *
+   * @return {@code true} if none of the cells are empty, {@code false} otherwise
+   */
+  public boolean isFull() {
+    return countEmpty() == 0;
+  }
+
+  /**
+   * Get the bitset of cells populated by the given side. Bit {@code idx} of the returned words is set if the cell with
+   * that index is populated.
+   *
+   * NOTE: the returned array is the internal state of this board and must not be modified.
+   *
+   * @param side the side
+   *
+   * @return the packed bitset of the side's cells
+   */
+  public long[] getBits(final int side) {
+    return bits[side];
+  }
+
+  /**
+   * Write the indices of all empty cells into the given buffer, in increasing order.
+   *
+   * @param out buffer that receives the cell indices (must hold at least {@link #getNumCells()} values)
+   *
+   * @return the number of indices written
+   */
+  public int collectEmpty(final int[] out) {
+    for (int w = 0; w < numWords; w++) {
+      scratch1[w] = ~(bits[SIDE_1][w] | bits[SIDE_2][w]) & validMask[w];
+    }
+    return collectBits(scratch1, out);
+  }
+
+  /**
+   * Write the indices of all empty cells that have at least one populated neighbor (in any of the 8 directions) into
+   * the given buffer, in increasing order.
+   *
+   * @param out buffer that receives the cell indices (must hold at least {@link #getNumCells()} values)
+   *
+   * @return the number of indices written
+   */
+  public int collectPopulatedNeighbors(final int[] out) {
+    final long[] occupied = scratch1;
+    final long[] neighbors = scratch2;
+    final long[] shifted = scratch3;
+    for (int w = 0; w < numWords; w++) {
+      occupied[w] = bits[SIDE_1][w] | bits[SIDE_2][w];
+      neighbors[w] = 0L;
+    }
+    orShifted(occupied, 1, notFirstColMask, shifted, neighbors);
+    orShifted(occupied, -1, notLastColMask, shifted, neighbors);
+    orShifted(occupied, dim, validMask, shifted, neighbors);
+    orShifted(occupied, -dim, validMask, shifted, neighbors);
+    orShifted(occupied, dim + 1, notFirstColMask, shifted, neighbors);
+    orShifted(occupied, -(dim + 1), notLastColMask, shifted, neighbors);
+    orShifted(occupied, dim - 1, notLastColMask, shifted, neighbors);
+    orShifted(occupied, -(dim - 1), notFirstColMask, shifted, neighbors);
+    for (int w = 0; w < numWords; w++) {
+      neighbors[w] &= ~occupied[w] & validMask[w];
+    }
+    return collectBits(neighbors, out);
+  }
+
+  /**
+   * Find the longest line of cells populated by the given side that passes through the given cell, counting the cell
+   * itself as if it were populated by the side. This works for empty cells as well, in which case it gives the length
+   * the side would reach by playing there.
+   *
+   * @param idx  the cell index
+   * @param side the side
+   *
+   * @return the length of the longest line through the cell
+   */
+  public int getLongestRunThrough(final int idx, final int side) {
+    final int rowIdx = getRowIdx(idx);
+    final int colIdx = getColIdx(idx);
+    int longest = 0;
+    for (final int[] direction : LINE_DIRECTIONS) {
+      final int len = 1
+        + countRun(rowIdx, colIdx, side, direction[0], direction[1])
+        + countRun(rowIdx, colIdx, side, -direction[0], -direction[1]);
+      longest = Math.max(longest, len);
+    }
+    return longest;
+  }
+
+  /**
+   * Check whether the given side has (or, for an empty cell, would have) at least {@code winLength} contiguous cells
+   * in a straight line through the given cell.
+   *
+   * @param idx       the cell index
+   * @param side      the side
+   * @param winLength the length required to win
+   *
+   * @return {@code true} if such a line exists, {@code false} otherwise
+   */
+  public boolean didWinThrough(final int idx, final int side, final int winLength) {
+    final int rowIdx = getRowIdx(idx);
+    final int colIdx = getColIdx(idx);
+    for (final int[] direction : LINE_DIRECTIONS) {
+      final int len = 1
+        + countRun(rowIdx, colIdx, side, direction[0], direction[1])
+        + countRun(rowIdx, colIdx, side, -direction[0], -direction[1]);
+      if (len >= winLength) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  /**
+   * Check whether the given side has at least {@code winLength} contiguous cells in any straight line on the board.
+   * This scans the whole board with word-level shifts, so prefer {@link #didWinThrough(int, int, int)} when the last
+   * move is known.
+   *
+   * @param side      the side
+   * @param winLength the length required to win
+   *
+   * @return {@code true} if the side has won, {@code false} otherwise
+   */
+  public boolean didWin(final int side, final int winLength) {
+    if (counts[side] < winLength) {
+      return false;
+    }
+    return hasRun(bits[side], 1, notFirstColMask, winLength)
+      || hasRun(bits[side], dim, validMask, winLength)
+      || hasRun(bits[side], dim + 1, notFirstColMask, winLength)
+      || hasRun(bits[side], dim - 1, notLastColMask, winLength);
+  }
+
+  /**
+   * Create an identical copy of the board.
+   *
+   * @return the copy
+   */
+  public BitBoard getCopy() {
+    return new BitBoard(this);
+  }
+
+  private int countRun(final int rowIdx, final int colIdx, final int side, final int dRow, final int dCol) {
+    final long[] sideBits = bits[side];
+    int num = 0;
+    int r = rowIdx + dRow;
+    int c = colIdx + dCol;
+    while (r >= 0 && r < dim && c >= 0 && c < dim && testBit(sideBits, r * dim + c)) {
+      num++;
+      r += dRow;
+      c += dCol;
+    }
+    return num;
+  }
+
+  private boolean hasRun(final long[] sideBits, final int step, final long[] mask, final int winLength) {
+    // After k rounds, bit p is set iff cells p, p-step, ..., p-k*step are all populated
+    final long[] run = scratch1;
+    System.arraycopy(sideBits, 0, run, 0, numWords);
+    for (int k = 1; k < winLength; k++) {
+      shiftInto(run, step, run);
+      boolean isZero = true;
+      for (int w = 0; w < numWords; w++) {
+        run[w] &= mask[w] & sideBits[w];
+        isZero &= run[w] == 0L;
+      }
+      if (isZero) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  private static void orShifted(final long[] src, final int shift, final long[] mask, final long[] tmp,
+                                final long[] dst) {
+    shiftInto(src, shift, tmp);
+    for (int w = 0; w < dst.length; w++) {
+      dst[w] |= tmp[w] & mask[w];
+    }
+  }
+
+  /**
+   * Shift the packed bitset {@code src} towards higher indices (positive {@code shift}) or lower indices (negative
+   * {@code shift}) and write the result into {@code dst}. Safe to use with {@code src == dst}.
+   */
+  private static void shiftInto(final long[] src, final int shift, final long[] dst) {
+    final int len = src.length;
+    if (shift >= 0) {
+      final int wordShift = shift >>> 6;
+      final int bitShift = shift & 63;
+      for (int i = len - 1; i >= 0; i--) {
+        final int srcIdx = i - wordShift;
+        long value = 0L;
+        if (srcIdx >= 0) {
+          value = src[srcIdx] << bitShift;
+          if (bitShift != 0 && srcIdx > 0) {
+            value |= src[srcIdx - 1] >>> (64 - bitShift);
+          }
+        }
+        dst[i] = value;
+      }
+    }
+    else {
+      final int wordShift = (-shift) >>> 6;
+      final int bitShift = (-shift) & 63;
+      for (int i = 0; i < len; i++) {
+        final int srcIdx = i + wordShift;
+        long value = 0L;
+        if (srcIdx < len) {
+          value = src[srcIdx] >>> bitShift;
+          if (bitShift != 0 && srcIdx + 1 < len) {
+            value |= src[srcIdx + 1] << (64 - bitShift);
+          }
+        }
+        dst[i] = value;
+      }
+    }
+  }
+
+  private static int collectBits(final long[] words, final int[] out) {
+    int num = 0;
+    for (int w = 0; w < words.length; w++) {
+      long word = words[w];
+      while (word != 0L) {
+        out[num++] = (w << 6) + Long.numberOfTrailingZeros(word);
+        word &= word - 1;
+      }
+    }
+    return num;
+  }
+
+  private static boolean testBit(final long[] words, final int idx) {
+    return (words[idx >>> 6] & (1L << idx)) != 0L;
+  }
+
+  private static void setBit(final long[] words, final int idx) {
+    words[idx >>> 6] |= 1L << idx;
+  }
+}
@@ -0,0 +1,523 @@
+package edu.gwu.ai.codeknights.tictactoe.core;
+
+import java.util.Objects;
+
+/**
+ * A facade over a {@link BitBoard} that mirrors the parts of the {@link Game} API used by search and evaluation
+ * (next player, win detection, utility, etc.). A {@code BitGame} is a snapshot: it is created from a {@link Game} and
+ * then changed only through {@link #makeMove(int, int)} and {@link #unmakeMove()}, which keep the winner up to date by
+ * checking just the lines through the changed cell.
+ *
+ * NOTE: instances are not thread-safe; give each searching thread its own copy (see {@link #getCopy()}).
+ *
+ * @author ajv
+ */
+public class BitGame {
+
+  private static final int WON_BY_SIDE_1 = 1;
+  private static final int WON_BY_SIDE_2 = 2;
+
+  private final int dim;
+  private final int winLength;
+  private final long gameId;
+  private final Player player1;
+  private final Player player2;
+  private final boolean isHome;
+
+  private final BitBoard board;
+  private final WindowIndex windowIndex;
+  private PatternEvaluator patternEvaluator;
+  private final long[][] zobristKeys;
+  private long zobristKey;
+
+  private final int[] moveStack;
+  private final int[] winnerStack;
+  private int numMoves;
+  private int winner;
+
+  private final OpenSublineScanner scanner;
+
+  /**
+   * Construct a snapshot of the given game.
+   *
+   * @param game the game to copy
+   */
+  public BitGame(final Game game) {
+    dim = game.getDim();
+    winLength = game.getWinLength();
+    gameId = game.getGameId();
+    player1 = game.getPlayer1();
+    player2 = game.getPlayer2();
+    isHome = game.isHome();
+
+    board = BitBoard.fromBoard(game.getBoard(), player1, player2);
+    windowIndex = new WindowIndex(BoardGeometry.forDim(dim), winLength);
+    patternEvaluator = null;
+    zobristKeys = new long[2][board.getNumCells()];
+    zobristKey = Zobrist.getGameKey(dim, winLength, player1.getMarker(), isHome);
+    for (int idx = 0; idx < board.getNumCells(); idx++) {
+      zobristKeys[BitBoard.SIDE_1][idx] = Zobrist.getKey(idx, player1.getMarker());
+      zobristKeys[BitBoard.SIDE_2][idx] = Zobrist.getKey(idx, player2.getMarker());
+      final int side = board.getSide(idx);
+      if (side != BitBoard.NO_SIDE) {
+        zobristKey ^= zobristKeys[side][idx];
+        windowIndex.place(idx, side);
+      }
+    }
+
+    moveStack = new int[board.getNumCells()];
+    winnerStack = new int[board.getNumCells()];
+    numMoves = 0;
+    scanner = new OpenSublineScanner();
+    winner = 0;
+    if (board.didWin(BitBoard.SIDE_1, winLength)) {
+      winner |= WON_BY_SIDE_1;
+    }
+    if (board.didWin(BitBoard.SIDE_2, winLength)) {
+      winner |= WON_BY_SIDE_2;
+    }
+  }
+
+  private BitGame(final BitGame other) {
+    dim = other.dim;
+    winLength = other.winLength;
+    gameId = other.gameId;
+    player1 = other.player1;
+    player2 = other.player2;
+    isHome = other.isHome;
+
+    board = other.board.getCopy();
+    windowIndex = other.windowIndex.getCopy();
+    patternEvaluator = other.patternEvaluator != null ? other.patternEvaluator.getCopy() : null;
+    zobristKeys = other.zobristKeys;
+    zobristKey = other.zobristKey;
+
+    moveStack = other.moveStack.clone();
+    winnerStack = other.winnerStack.clone();
+    scanner = new OpenSublineScanner();
+    numMoves = other.numMoves;
+    winner = other.winner;
+  }
+
+  /**
+   * Get the dimension of the square board (number of rows and columns).
+   *
+   * @return the board dimension
+   */
+  public int getDim() {
+    return dim;
+  }
+
+  /**
+   * Get the length (number of contiguous cells populated by a player in a straight line) required to win.
+   *
+   * @return the length required to win
+   */
+  public int getWinLength() {
+    return winLength;
+  }
+
+  /**
+   * Get the game ID.
+   *
+   * @return the game ID
+   */
+  public long getGameId() {
+    return gameId;
+  }
+
+  /**
+   * Get the first player, who plays as {@link BitBoard#SIDE_1}.
+   *
+   * @return the first player
+   */
+  public Player getPlayer1() {
+    return player1;
+  }
+
+  /**
+   * Get the second player, who plays as {@link BitBoard#SIDE_2}.
+   *
+   * @return the second player
+   */
+  public Player getPlayer2() {
+    return player2;
+  }
+
+  /**
+   * Get the bitboard on which the game is being played.
+   *
+   * @return the board
+   */
+  public BitBoard getBoard() {
+    return board;
+  }
+
+  /**
+   * Get the index of {@link #getWinLength()}-cell windows on the board (see {@link WindowIndex}), which is kept up to
+   * date by {@link #makeMove(int, int)} and {@link #unmakeMove()}.
+   *
+   * @return the window index
+   */
+  public WindowIndex getWindowIndex() {
+    return windowIndex;
+  }
+
+  /**
+   * Get the side on which the given player plays.
+   *
+   * @param player the player
+   *
+   * @return {@link BitBoard#SIDE_1}, {@link BitBoard#SIDE_2}, or {@link BitBoard#NO_SIDE} if the player is not part of
+   *         this game
+   */
+  public int getSide(final Player player) {
+    if (player == player1 || Objects.equals(player, player1)) {
+      return BitBoard.SIDE_1;
+    }
+    if (player == player2 || Objects.equals(player, player2)) {
+      return BitBoard.SIDE_2;
+    }
+    return BitBoard.NO_SIDE;
+  }
+
+  /**
+   * Get the player who plays on the given side.
+   *
+   * @param side either {@link BitBoard#SIDE_1} or {@link BitBoard#SIDE_2}
+   *
+   * @return the player
+   */
+  public Player getPlayer(final int side) {
+    return side == BitBoard.SIDE_1 ? player1 : player2;
+  }
+
+  /**
+   * Fetch the side that should play next, using the same rules as {@link Game#getNextPlayer()}.
+   *
+   * @return the next side
+   */
+  public int getNextSide() {
+    final int p1Count = board.count(BitBoard.SIDE_1);
+    final int p2Count = board.count(BitBoard.SIDE_2);
+    if ((p1Count == p2Count && isHome) || p1Count < p2Count) {
+      return BitBoard.SIDE_1;
+    }
+    else {
+      return BitBoard.SIDE_2;
+    }
+  }
+
+  /**
+   * Fetch the next player that should play on the board (see {@link Game#getNextPlayer()}).
+   *
+   * @return the next player that should play
+   */
+  public Player getNextPlayer() {
+    return getPlayer(getNextSide());
+  }
+
+  /**
+   * Fetch the opponent of the given player (see {@link Game#getOtherPlayer(Player)}).
+   *
+   * @param player the player whose opponent should be fetched
+   *
+   * @return the opponent of the given player, or {@code null} if the given player is not part of this game
+   */
+  public Player getOtherPlayer(final Player player) {
+    final int side = getSide(player);
+    return side != BitBoard.NO_SIDE ? getPlayer(BitBoard.getOtherSide(side)) : null;
+  }
+
+  /**
+   * Check whether the given side has won anywhere on the board.
+   *
+   * @param side the side
+   *
+   * @return {@code true} if the side has won, {@code false} otherwise
+   */
+  public boolean didSideWin(final int side) {
+    return (winner & (side == BitBoard.SIDE_1 ? WON_BY_SIDE_1 : WON_BY_SIDE_2)) != 0;
+  }
+
+  /**
+   * Check whether the given player has won anywhere on the board.
+   *
+   * @param player the player
+   *
+   * @return {@code true} if the player has won, {@code false} otherwise
+   */
+  public boolean didPlayerWin(final Player player) {
+    final int side = getSide(player);
+    return side != BitBoard.NO_SIDE && didSideWin(side);
+  }
+
+  /**
+   * Check whether either player has won anywhere on the board.
+   *
+   * @return {@code true} if either player has won, {@code false} otherwise
+   */
+  public boolean didAnyWin() {
+    return winner != 0;
+  }
+
+  /**
+   * Check terminal conditions to determine whether the game is over. The game is over if either player won or the
+   * board is full.
+   *
+   * @return {@code true} if the game is over, {@code false} otherwise
+   */
+  public boolean isGameOver() {
+    return winner != 0 || board.isFull();
+  }
+
+  /**
+   * Populate the given empty cell with the given side and push the move onto the move stack.
+   *
+   * @param idx  the cell index
+   * @param side the side that plays in the cell
+   */
+  public void makeMove(final int idx, final int side) {
+    moveStack[numMoves] = idx;
+    winnerStack[numMoves] = winner;
+    numMoves++;
+    board.set(idx, side);
+    windowIndex.place(idx, side);
+    if (patternEvaluator != null) {
+      patternEvaluator.place(idx, side);
+    }
+    zobristKey ^= zobristKeys[side][idx];
+    if (board.didWinThrough(idx, side, winLength)) {
+      winner |= side == BitBoard.SIDE_1 ? WON_BY_SIDE_1 : WON_BY_SIDE_2;
+    }
+  }
+
+  /**
+   * Populate the given empty cell with the next side (see {@link #getNextSide()}).
+   *
+   * @param idx the cell index
+   */
+  public void makeMove(final int idx) {
+    makeMove(idx, getNextSide());
+  }
+
+  /**
+   * Undo the most recent call to {@link #makeMove(int, int)}.
+   *
+   * @return the index of the cell that was emptied
+   */
+  public int unmakeMove() {
+    numMoves--;
+    final int idx = moveStack[numMoves];
+    winner = winnerStack[numMoves];
+    final int side = board.getSide(idx);
+    zobristKey ^= zobristKeys[side][idx];
+    windowIndex.remove(idx, side);
+    if (patternEvaluator != null) {
+      patternEvaluator.remove(idx, side);
+    }
+    board.clear(idx);
+    return idx;
+  }
+
+  /**
+   * Delegates to {@link #makeMove(int, int)} to populate the cell at {@code (rowIdx,colIdx)} by the given player.
+   *
+   * @param rowIdx zero-based index of the row of the cell
+   * @param colIdx zero-based index of the column of the cell
+   * @param player the player who will populate the cell
+   */
+  public void playInCell(final int rowIdx, final int colIdx, final Player player) {
+    makeMove(board.getIdx(rowIdx, colIdx), getSide(player));
+  }
+
+  /**
+   * Count the empty cells the given side could populate on the current board state that would lead to a win.
+   *
+   * NOTE: will return zero if the given side already won.
+   *
+   * @param side the side
+   *
+   * @return the number of winning cells
+   */
+  public int countWinningCells(final int side) {
+    if (didSideWin(side)) {
+      return 0;
+    }
+    return windowIndex.collectCompletingCells(side, null);
+  }
+
+  /**
+   * Compute the same utility as {@link Game#evaluatePlayerUtility(Player)}, but from the bitsets.
+   *
+   * @param player evaluate the board from the perspective of this player
+   *
+   * @return a numeric value describing the utility of the current game state for the given player
+   */
+  public long evaluatePlayerUtility(final Player player) {
+    return evaluateSideUtility(getSide(player));
+  }
+
+  /**
+   * Compute the same utility as {@link Game#evaluatePlayerUtility(Player)} for the given side.
+   *
+   * @param side evaluate the board from the perspective of this side
+   *
+   * @return a numeric value describing the utility of the current game state for the given side
+   */
+  public long evaluateSideUtility(final int side) {
+    long score = 0L;
+    final int opponent = BitBoard.getOtherSide(side);
+    final int nextSide = getNextSide();
+
+    // Consider all lines that could be involved in a win/loss (same lines as Board#getLinesAtLeastLength)
+    for (int rowIdx = 0; rowIdx < dim; rowIdx++) {
+      score += evaluateLine(board.getIdx(rowIdx, 0), 1, dim, side, opponent);
+    }
+    for (int colIdx = 0; colIdx < dim; colIdx++) {
+      score += evaluateLine(board.getIdx(0, colIdx), dim, dim, side, opponent);
+    }
+    for (int i = 0 - dim + 1; i <= dim - 1; i++) {
+      final int len = dim - Math.abs(i);
+      if (len >= winLength) {
+        final int diagRowIdx = Math.max(0, 0 - i);
+        score += evaluateLine(board.getIdx(diagRowIdx, diagRowIdx + i), dim + 1, len, side, opponent);
+        final int antiRowIdx = Math.min(dim - 1, dim - i - 1);
+        score += evaluateLine(board.getIdx(antiRowIdx, Math.max(0, 0 - i)), -(dim - 1), len, side, opponent);
+      }
+    }
+
+    // Depending on whose turn it is, count the number of ways the player could win/lose
+    if (side == nextSide) {
+      final int numWinners = countWinningCells(side);
+      if (numWinners > 1) {
+        score += numWinners * dim * dim;
+      }
+    }
+    else {
+      final int numLosers = countWinningCells(opponent);
+      if (numLosers > 1) {
+        score -= numLosers * dim * dim;
+      }
+    }
+
+    // Return final score
+    return score;
+  }
+
+  /**
+   * Compute a utility for the given side from the window pattern scores (see {@link PatternEvaluator}), which are kept
+   * up to date by {@link #makeMove(int, int)} and {@link #unmakeMove()}, so this does not scan the board (except on the
+   * first call, which creates the evaluator, so that games that are never evaluated this way do not pay for it). Like
+   * {@link #evaluateSideUtility(int)}, it credits the side to move with a win if it can complete a window, or the other
+   * side if it can complete two.
+   *
+   * @param side evaluate the board from the perspective of this side
+   *
+   * @return a numeric value describing the utility of the current game state for the given side
+   */
+  public long evaluateSidePatterns(final int side) {
+    final int nextSide = getNextSide();
+    final int otherSide = BitBoard.getOtherSide(nextSide);
+    if (patternEvaluator == null) {
+      patternEvaluator = new PatternEvaluator(BoardGeometry.forDim(dim), winLength);
+      for (int idx = 0; idx < board.getNumCells(); idx++) {
+        final int cellSide = board.getSide(idx);
+        if (cellSide != BitBoard.NO_SIDE) {
+          patternEvaluator.place(idx, cellSide);
+        }
+      }
+    }
+    long score = patternEvaluator.getTotal(nextSide) - patternEvaluator.getTotal(otherSide);
+    if (!isGameOver()) {
+      if (windowIndex.collectCompletingCells(nextSide, null) > 0) {
+        score += patternEvaluator.getCompleteScore() / 2;
+      }
+      else if (windowIndex.collectCompletingCells(otherSide, null) > 1) {
+        score -= patternEvaluator.getCompleteScore() / 2;
+      }
+    }
+    return side == nextSide ? score : -score;
+  }
+
+  private long evaluateLine(final int startIdx, final int step, final int len, final int side, final int opponent) {
+    if (len < winLength) {
+      return 0L;
+    }
+    long score = 0L;
+
+    scanLine(startIdx, step, len, side);
+    final boolean didWin = scanner.getLongestOwnRun() >= winLength;
+    final int longestLen = scanner.getBestLength();
+    final int numPopulated = scanner.getBestPopulated();
+
+    scanLine(startIdx, step, len, opponent);
+    final boolean didLose = scanner.getLongestOwnRun() >= winLength;
+
+    // Big plus for wins, big minus for losses
+    if (didWin) {
+      score += dim * dim * dim * dim;
+    }
+    else if (didLose) {
+      score -= dim * dim * dim * dim;
+    }
+
+    // The player could win on this line, add to the score
+    if (longestLen >= winLength) {
+      score += numPopulated * numPopulated;
+    }
+
+    // The player could lose on this line, subtract from the score
+    if (scanner.getBestLength() >= winLength) {
+      score -= scanner.getBestPopulated() * scanner.getBestPopulated();
+    }
+    return score;
+  }
+
+  private void scanLine(final int startIdx, final int step, final int len, final int side) {
+    scanner.begin();
+    for (int i = 0, idx = startIdx; i < len; i++, idx += step) {
+      final int cellSide = board.getSide(idx);
+      scanner.accept(cellSide == BitBoard.NO_SIDE ? OpenSublineScanner.EMPTY
+        : cellSide == side ? OpenSublineScanner.OWN : OpenSublineScanner.OTHER);
+    }
+    scanner.end();
+  }
+
+  /**
+   * Get the Zobrist key of the current board state, which is updated incrementally by {@link #makeMove(int, int)} and
+   * {@link #unmakeMove()}. It is {@link Board#getZobristKey()} for the same position, XOR-ed with
+   * {@link Zobrist#getGameKey(int, int, char, boolean)} for the rules of the game, so that a transposition table reused
+   * for another game (with another board size, or in which the other player moves first) gets no false hits.
+   *
+   * @return the Zobrist key of the current board state
+   */
+  public long getBoardHash() {
+    return zobristKey;
+  }
+
+  /**
+   * Create an identical copy of the game, including its move stack.
+   *
+   * @return the copy
+   */
+  public BitGame getCopy() {
+    return new BitGame(this);
+  }
+
+  /**
+   * Create a regular {@link Game} with the same players and board state.
+   *
+   * @return a new game
+   */
+  public Game toGame() {
+    final Game game = new Game(dim, winLength, gameId, player1, player2, isHome);
+    for (int idx = 0; idx < board.getNumCells(); idx++) {
+      final int side = board.getSide(idx);
+      if (side != BitBoard.NO_SIDE) {
+        game.playInCell(board.getRowIdx(idx), board.getColIdx(idx), getPlayer(side));
+      }
+    }
+    return game;
+  }
+}
@@ -1,7 +1,6 @@
 package edu.gwu.ai.codeknights.tictactoe.core;
 
 import java.util.*;
-import java.util.stream.Collectors;
 
 /**
  * A square board for a {@link Game} of Tic Tac Toe.
@@ -10,60 +9,72 @@ import java.util.stream.Collectors;
  */
 public class Board {
 
+  private static final int NUM_ORTHOGONAL_LINES_PER_DIM = 2;
+
+  private final BoardGeometry geometry;
   private final int dim;
 
-  private final Cell[][] matrix;
-  private final List<Cell> allCells;
-  private final List<List<Cell>> rows;
-  private final List<List<Cell>> cols;
-  private final List<List<Cell>> diagonals;
-  private final List<List<Cell>> allLines;
-  private final Map<Integer, List<List<Cell>>> linesAtLeastLength;
+  private final Player[] occupancy;
+  private final Cell[] cells;
+  private final List<List<Cell>> lineViews;
+  private final List<List<List<Cell>>> linesAtLeastLengthViews;
+  private List<Cell> allCells;
+  private List<List<Cell>> allLines;
+
+  private long zobristKey;
+  private ChangeListener changeListener;
+
+  private Player[] countedPlayers;
+  private int[] playerCounts;
+  private int numCountedPlayers;
+  private int numPopulated;
 
   /**
    * Construct a new square board of the given dimension.
    *
+   * NOTE: the geometry of the board (lines, neighbors, etc.) is shared between all boards of the same dimension (see
+   *       {@link BoardGeometry}), and {@link Cell} objects and lists of cells are only created when first requested.
+   *
    * @param dim the dimension (number of rows and columns)
    */
   public Board(final int dim) {
     this.dim = dim;
+    geometry = BoardGeometry.forDim(dim);
 
-    matrix = new Cell[dim][dim];
-    allCells = new ArrayList<>();
-    rows = new ArrayList<>(dim);
-    for (int rowIdx = 0; rowIdx < dim; rowIdx++) {
-      for (int colIdx = 0; colIdx < dim; colIdx++) {
-        final Cell cell = new Cell(rowIdx, colIdx);
-        matrix[rowIdx][colIdx] = cell;
-        allCells.add(cell);
-      }
-      rows.add(Arrays.asList(matrix[rowIdx]));
-    }
-    cols = new ArrayList<>(dim);
-    for (int colIdx = 0; colIdx < dim; colIdx++) {
-      final Cell[] col = new Cell[dim];
-      for (int rowIdx = 0; rowIdx < dim; rowIdx++) {
-        col[rowIdx] = matrix[rowIdx][colIdx];
-      }
-      cols.add(Arrays.asList(col));
-    }
-    diagonals = new ArrayList<>(2 * (2 * dim - 1));
-    for (int i = 0 - dim + 1; i <= dim - 1; i++) {
-      diagonals.add(Arrays.asList(constructDiag(matrix, i)));
-      diagonals.add(Arrays.asList(constructAntiDiag(matrix, i)));
-    }
-    allLines = new ArrayList<>();
-    allLines.addAll(rows);
-    allLines.addAll(cols);
-    allLines.addAll(diagonals);
-    linesAtLeastLength = new HashMap<>();
-    for (int i = 1; i <= dim; i++) {
-      final int length = i;
-      final List<List<Cell>> lines = allLines.stream()
-        .filter(line -> line.size() >= length)
-        .collect(Collectors.toList());
-      linesAtLeastLength.put(length, lines);
-    }
+    occupancy = new Player[geometry.getNumCells()];
+    cells = new Cell[geometry.getNumCells()];
+    lineViews = new ArrayList<>(Collections.nCopies(geometry.getNumLines(), null));
+    linesAtLeastLengthViews = new ArrayList<>(Collections.nCopies(dim + 1, null));
+    allCells = null;
+    allLines = null;
+
+    zobristKey = 0L;
+    changeListener = null;
+
+    countedPlayers = new Player[2];
+    playerCounts = new int[2];
+    numCountedPlayers = 0;
+    numPopulated = 0;
+  }
+
+  private Board(final Board other) {
+    dim = other.dim;
+    geometry = other.geometry;
+
+    occupancy = other.occupancy.clone();
+    cells = new Cell[geometry.getNumCells()];
+    lineViews = new ArrayList<>(Collections.nCopies(geometry.getNumLines(), null));
+    linesAtLeastLengthViews = new ArrayList<>(Collections.nCopies(dim + 1, null));
+    allCells = null;
+    allLines = null;
+
+    zobristKey = other.zobristKey;
+    changeListener = null;
+
+    countedPlayers = other.countedPlayers.clone();
+    playerCounts = other.playerCounts.clone();
+    numCountedPlayers = other.numCountedPlayers;
+    numPopulated = other.numPopulated;
   }
 
   /**
@@ -75,6 +86,15 @@ public class Board {
     return dim;
   }
 
+  /**
+   * Get the (shared, immutable) geometry of the board.
+   *
+   * @return the geometry
+   */
+  public BoardGeometry getGeometry() {
+    return geometry;
+  }
+
   /**
    * Retrieve the cell at the given coordinates.
    *
@@ -84,7 +104,48 @@ public class Board {
    * @return the cell at the given coordinates.
    */
   public Cell getCell(final int rowIdx, final int colIdx) {
-    return matrix[rowIdx][colIdx];
+    return getCell(geometry.getIdx(rowIdx, colIdx));
+  }
+
+  /**
+   * Retrieve the cell at the given index (see {@link BoardGeometry#getIdx(int, int)}).
+   *
+   * @param idx the cell index
+   *
+   * @return the cell at the given index
+   */
+  public Cell getCell(final int idx) {
+    Cell cell = cells[idx];
+    if (cell == null) {
+      cell = new Cell(this, geometry.getRowIdx(idx), geometry.getColIdx(idx));
+      cells[idx] = cell;
+    }
+    return cell;
+  }
+
+  /**
+   * Get the player who has populated the cell at the given index, without creating a {@link Cell} object.
+   *
+   * @param idx the cell index
+   *
+   * @return the player who has populated the cell (may be {@code null})
+   */
+  public Player getPlayer(final int idx) {
+    return occupancy[idx];
+  }
+
+  /**
+   * Check whether the cell at the given index is populated by the given player, without creating a {@link Cell}
+   * object.
+   *
+   * @param idx    the cell index
+   * @param player the player to check for
+   *
+   * @return {@code true} if the cell is populated by the given player, {@code false} otherwise
+   */
+  public boolean isPopulatedBy(final int idx, final Player player) {
+    final Player curPlayer = occupancy[idx];
+    return curPlayer != null && curPlayer.equals(player);
   }
 
   /**
@@ -100,32 +161,12 @@ public class Board {
    * @return an unmodifiable list of neighbors of the cell at the given coordinates
    */
   public List<Cell> getNeighborsOfCell(final int rowIdx, final int colIdx) {
-    final List<Cell> cells = new ArrayList<>();
-    if (rowIdx > 0 && colIdx > 0) {
-      cells.add(matrix[rowIdx - 1][colIdx - 1]);
-    }
-    if (rowIdx > 0) {
-      cells.add(matrix[rowIdx - 1][colIdx]);
-    }
-    if (rowIdx > 0 && colIdx + 1 < dim) {
-      cells.add(matrix[rowIdx - 1][colIdx + 1]);
-    }
-    if (colIdx > 0) {
-      cells.add(matrix[rowIdx][colIdx - 1]);
-    }
-    if (colIdx + 1 < dim) {
-      cells.add(matrix[rowIdx][colIdx + 1]);
-    }
-    if (rowIdx + 1 < dim && colIdx > 0) {
-      cells.add(matrix[rowIdx + 1][colIdx - 1]);
+    final int[] neighbors = geometry.getNeighbors(geometry.getIdx(rowIdx, colIdx));
+    final Cell[] neighborCells = new Cell[neighbors.length];
+    for (int i = 0; i < neighbors.length; i++) {
+      neighborCells[i] = getCell(neighbors[i]);
     }
-    if (rowIdx + 1 < dim) {
-      cells.add(matrix[rowIdx + 1][colIdx]);
-    }
-    if (rowIdx + 1 < dim && colIdx + 1 < dim) {
-      cells.add(matrix[rowIdx + 1][colIdx + 1]);
-    }
-    return Collections.unmodifiableList(cells);
+    return Collections.unmodifiableList(Arrays.asList(neighborCells));
   }
 
   /**
@@ -149,7 +190,16 @@ public class Board {
    * @return an unmodifiable list of all cells
    */
   public List<Cell> getAllCells() {
-    return Collections.unmodifiableList(allCells);
+    List<Cell> list = allCells;
+    if (list == null) {
+      final Cell[] all = new Cell[geometry.getNumCells()];
+      for (int idx = 0; idx < all.length; idx++) {
+        all[idx] = getCell(idx);
+      }
+      list = Collections.unmodifiableList(Arrays.asList(all));
+      allCells = list;
+    }
+    return list;
   }
 
   /**
@@ -158,7 +208,12 @@ public class Board {
    * @return an unmodifiable list of all empty cells
    */
   public List<Cell> getEmptyCells() {
-    final List<Cell> emptyCells = allCells.stream().filter(Cell::isEmpty).collect(Collectors.toList());
+    final List<Cell> emptyCells = new ArrayList<>(countEmpty());
+    for (int idx = 0; idx < occupancy.length; idx++) {
+      if (occupancy[idx] == null) {
+        emptyCells.add(getCell(idx));
+      }
+    }
     return Collections.unmodifiableList(emptyCells);
   }
 
@@ -171,7 +226,7 @@ public class Board {
    * @return an unmodifiable list of the given row of cells
    */
   public List<Cell> getRow(final int idx) {
-    return Collections.unmodifiableList(rows.get(idx));
+    return getLine(idx);
   }
 
   /**
@@ -180,7 +235,7 @@ public class Board {
    * @return an unmodifiable list of all rows
    */
   public List<List<Cell>> getRows() {
-    return Collections.unmodifiableList(rows);
+    return getAllLines().subList(0, dim);
   }
 
   /**
@@ -192,7 +247,7 @@ public class Board {
    * @return an unmodifiable list of the given column of cells
    */
   public List<Cell> getCol(final int idx) {
-    return Collections.unmodifiableList(cols.get(idx));
+    return getLine(dim + idx);
   }
 
   /**
@@ -201,7 +256,7 @@ public class Board {
    * @return an unmodifiable list of all columns
    */
   public List<List<Cell>> getCols() {
-    return Collections.unmodifiableList(cols);
+    return getAllLines().subList(dim, NUM_ORTHOGONAL_LINES_PER_DIM * dim);
   }
 
   /**
@@ -211,7 +266,7 @@ public class Board {
    * @return an unmodifiable list of all diagonals
    */
   public List<List<Cell>> getDiagonals() {
-    return Collections.unmodifiableList(diagonals);
+    return getAllLines().subList(NUM_ORTHOGONAL_LINES_PER_DIM * dim, geometry.getNumLines());
   }
 
   /**
@@ -221,7 +276,37 @@ public class Board {
    * @return an unmodifiable list of all lines
    */
   public List<List<Cell>> getAllLines() {
-    return Collections.unmodifiableList(allLines);
+    List<List<Cell>> list = allLines;
+    if (list == null) {
+      final List<List<Cell>> lines = new ArrayList<>(geometry.getNumLines());
+      for (int lineIdx = 0; lineIdx < geometry.getNumLines(); lineIdx++) {
+        lines.add(getLine(lineIdx));
+      }
+      list = Collections.unmodifiableList(lines);
+      allLines = list;
+    }
+    return list;
+  }
+
+  /**
+   * Get the cells in the given line (see {@link BoardGeometry#getLine(int)}). These are guaranteed to be in order.
+   *
+   * @param lineIdx the line index
+   *
+   * @return an unmodifiable list of the cells in the line
+   */
+  public List<Cell> getLine(final int lineIdx) {
+    List<Cell> list = lineViews.get(lineIdx);
+    if (list == null) {
+      final int[] line = geometry.getLine(lineIdx);
+      final Cell[] lineCells = new Cell[line.length];
+      for (int i = 0; i < line.length; i++) {
+        lineCells[i] = getCell(line[i]);
+      }
+      list = Collections.unmodifiableList(Arrays.asList(lineCells));
+      lineViews.set(lineIdx, list);
+    }
+    return list;
   }
 
   /**
@@ -232,8 +317,23 @@ public class Board {
    * @return an unmodifiable list of lines
    */
   public List<List<Cell>> getLinesAtLeastLength(final int length) {
-    final List<List<Cell>> lines = linesAtLeastLength.get(length);
-    return lines != null ? Collections.unmodifiableList(lines) : Collections.emptyList();
+    if (length < 1 || length > dim) {
+      return Collections.emptyList();
+    }
+    List<List<Cell>> list = linesAtLeastLengthViews.get(length);
+    if (list == null) {
+      list = toLineList(geometry.getLinesAtLeastLength(length));
+      linesAtLeastLengthViews.set(length, list);
+    }
+    return list;
+  }
+
+  private List<List<Cell>> toLineList(final int[] lineIdxs) {
+    final List<List<Cell>> lines = new ArrayList<>(lineIdxs.length);
+    for (final int lineIdx : lineIdxs) {
+      lines.add(getLine(lineIdx));
+    }
+    return Collections.unmodifiableList(lines);
   }
 
   /**
@@ -246,9 +346,47 @@ public class Board {
    * @return a list of lines
    */
   public List<List<Cell>> findLinesThrough(final int rowIdx, final int colIdx, final int minLength) {
-    return getLinesAtLeastLength(minLength).stream()
-      .filter(line -> line.stream().anyMatch(cell -> cell.getRowIdx() == rowIdx && cell.getColIdx() == colIdx))
-      .collect(Collectors.toList());
+    final int[] lineIdxs = new int[BoardGeometry.NUM_LINES_THROUGH_CELL];
+    final int numLines = findLinesThrough(rowIdx, colIdx, minLength, lineIdxs, null);
+    final List<List<Cell>> lines = new ArrayList<>(numLines);
+    for (int i = 0; i < numLines; i++) {
+      lines.add(getLine(lineIdxs[i]));
+    }
+    return lines;
+  }
+
+  /**
+   * Find all lines (at least as long as the given length) that contain the cell at the given coordinates, without
+   * allocating anything. The lines can then be fetched with {@link #getLine(int)} or
+   * {@link BoardGeometry#getLine(int)}.
+   *
+   * @param rowIdx    zero-based row index
+   * @param colIdx    zero-based column index
+   * @param minLength minimum line length
+   * @param lineIdxs  buffer that receives the line indices (must hold {@link BoardGeometry#NUM_LINES_THROUGH_CELL})
+   * @param offsets   buffer that receives the offset of the cell within each line (may be {@code null})
+   *
+   * @return the number of lines found
+   */
+  public int findLinesThrough(final int rowIdx, final int colIdx, final int minLength, final int[] lineIdxs,
+    final int[] offsets) {
+    if (minLength < 1 || minLength > dim) {
+      return 0;
+    }
+    final int idx = geometry.getIdx(rowIdx, colIdx);
+    final int[] allLineIdxs = geometry.getLinesThrough(idx);
+    final int[] allOffsets = geometry.getLineOffsetsThrough(idx);
+    int num = 0;
+    for (int i = 0; i < allLineIdxs.length; i++) {
+      if (geometry.getLine(allLineIdxs[i]).length >= minLength) {
+        lineIdxs[num] = allLineIdxs[i];
+        if (offsets != null) {
+          offsets[num] = allOffsets[i];
+        }
+        num++;
+      }
+    }
+    return num;
   }
 
   /**
@@ -268,7 +406,7 @@ public class Board {
    * @return {@code true} if all cells are empty, {@code false} otherwise
    */
   public boolean isEmpty() {
-    return allCells.stream().allMatch(Cell::isEmpty);
+    return numPopulated == 0;
   }
 
   /**
@@ -277,7 +415,7 @@ public class Board {
    * @return {@code true} if none of the cells are empty, {@code false} otherwise
    */
   public boolean isFull() {
-    return allCells.stream().noneMatch(Cell::isEmpty);
+    return numPopulated == dim * dim;
   }
 
   /**
@@ -286,22 +424,43 @@ public class Board {
    * @return the number of empty cells
    */
   public int countEmpty() {
-    return allCells.stream()
-      .mapToInt(cell -> cell.isEmpty() ? 1 : 0)
-      .sum();
+    return dim * dim - numPopulated;
   }
 
   /**
    * Count and return the number of cells that are populated by the given player.
    *
+   * NOTE: the counts (and the number of populated cells) are updated as cells change, so this and the other counting
+   *       methods take constant time.
+   *
    * @param player the player whose cells will be counted
    *
    * @return the number of cells populated by the player
    */
   public int countPlayer(final Player player) {
-    return allCells.stream()
-      .mapToInt(cell -> cell.isPopulatedBy(player) ? 1 : 0)
-      .sum();
+    for (int i = 0; i < numCountedPlayers; i++) {
+      if (countedPlayers[i].equals(player)) {
+        return playerCounts[i];
+      }
+    }
+    return 0;
+  }
+
+  private void addToCount(final Player player, final int delta) {
+    numPopulated += delta;
+    for (int i = 0; i < numCountedPlayers; i++) {
+      if (countedPlayers[i].equals(player)) {
+        playerCounts[i] += delta;
+        return;
+      }
+    }
+    if (numCountedPlayers == countedPlayers.length) {
+      countedPlayers = Arrays.copyOf(countedPlayers, 2 * numCountedPlayers);
+      playerCounts = Arrays.copyOf(playerCounts, 2 * numCountedPlayers);
+    }
+    countedPlayers[numCountedPlayers] = player;
+    playerCounts[numCountedPlayers] = delta;
+    numCountedPlayers++;
   }
 
   /**
@@ -317,7 +476,7 @@ public class Board {
     final StringBuilder bldr = new StringBuilder();
     for (int rowIdx = 0; rowIdx < dim; rowIdx++) {
       for (int colIdx = 0; colIdx < dim; colIdx++) {
-        final Player mark = matrix[rowIdx][colIdx].getPlayer();
+        final Player mark = occupancy[geometry.getIdx(rowIdx, colIdx)];
         bldr.append(mark != null ? mark.getMarker() : ".");
       }
     }
@@ -325,16 +484,93 @@ public class Board {
   }
 
   /**
-   * Create an identical copy of the board (but with its own cell objects).
+   * Get the Zobrist key of the current board state (see {@link Zobrist}). Unlike {@link #getHash()}, this is not
+   * computed on demand: it is updated in constant time whenever a cell changes, so it is cheap enough to call at every
+   * node of a search.
+   *
+   * NOTE: different board states may (very rarely) share the same key.
+   *
+   * @return the 64-bit key of the current board state
+   */
+  public long getZobristKey() {
+    return zobristKey;
+  }
+
+  /**
+   * Called by a {@link Cell} on this board to change its player.
+   *
+   * @param cell      the cell that is changing
+   * @param newPlayer the player who populates the cell now (may be {@code null})
+   */
+  void setPlayer(final Cell cell, final Player newPlayer) {
+    final int idx = geometry.getIdx(cell.getRowIdx(), cell.getColIdx());
+    final Player oldPlayer = occupancy[idx];
+    occupancy[idx] = newPlayer;
+    cellChanged(cell, oldPlayer, newPlayer);
+  }
+
+  private void cellChanged(final Cell cell, final Player oldPlayer, final Player newPlayer) {
+    zobristKey ^= Zobrist.getDelta(cell.getRowIdx() * dim + cell.getColIdx(), oldPlayer, newPlayer);
+    if (oldPlayer != null) {
+      addToCount(oldPlayer, -1);
+    }
+    if (newPlayer != null) {
+      addToCount(newPlayer, 1);
+    }
+    if (changeListener != null) {
+      changeListener.cellChanged(cell, oldPlayer, newPlayer);
+    }
+  }
+
+  /**
+   * Register the (single) listener that will be notified after any cell on this board changes.
+   *
+   * @param changeListener the listener (may be {@code null} to remove the current listener)
+   */
+  void setChangeListener(final ChangeListener changeListener) {
+    this.changeListener = changeListener;
+  }
+
+  /**
+   * Create an identical copy of the board (but with its own cell objects). Only the contents of the cells are copied;
+   * the geometry is shared.
    *
    * @return the copy
    */
   public Board getCopy() {
-    final Board copy = new Board(dim);
-    for (final Cell cell : allCells) {
-      copy.getCell(cell.getRowIdx(), cell.getColIdx()).setPlayer(cell.getPlayer());
+    return new Board(this);
+  }
+
+  /**
+   * Check whether the given object is a {@link Board} with the same dimension and the same player in every cell.
+   *
+   * @param o the other object
+   *
+   * @return {@code true} if the given object is a {@link Board} with identical contents, {@code false} otherwise
+   */
+  @Override
+  public boolean equals(final Object o) {
+    if (this == o) {
+      return true;
+    }
+    if (o == null || !getClass().equals(o.getClass())) {
+      return false;
+    }
+    final Board other = (Board) o;
+    if (dim != other.dim || zobristKey != other.zobristKey) {
+      return false;
+    }
+    for (int idx = 0; idx < occupancy.length; idx++) {
+      if (!Objects.equals(occupancy[idx], other.occupancy[idx])) {
+        return false;
+      }
     }
-    return copy;
+    return true;
+  }
+
+  @Override
+  public int hashCode() {
+    return Long.hashCode(zobristKey);
   }
 
   /**
@@ -360,33 +596,12 @@ public class Board {
     return bldr.toString();
   }
 
-  private static Cell[] constructDiag(final Cell[][] matrix, final int idx) {
-    final int dim = matrix.length;
-    final Cell[] diag = new Cell[dim - Math.abs(idx)];
-    int rowIdx = Math.max(0, 0 - idx);
-    int colIdx = rowIdx + idx;
-    int diagIdx = 0;
-    while (rowIdx < dim && colIdx < dim) {
-      diag[diagIdx] = matrix[rowIdx][colIdx];
-      rowIdx++;
-      colIdx++;
-      diagIdx++;
-    }
-    return diag;
-  }
-
-  private static Cell[] constructAntiDiag(final Cell[][] matrix, final int idx) {
-    final int dim = matrix.length;
-    final Cell[] diag = new Cell[dim - Math.abs(idx)];
-    int rowIdx = Math.min(dim - 1, dim - idx - 1);
-    int colIdx = Math.max(0, 0 - idx);
-    int diagIdx = 0;
-    while (rowIdx >= 0 && colIdx < dim) {
-      diag[diagIdx] = matrix[rowIdx][colIdx];
-      rowIdx--;
-      colIdx++;
-      diagIdx++;
-    }
-    return diag;
+  /**
+   * Receives a callback whenever the player in a cell on the board changes, so that derived state (e.g., the cached
+   * winner of a {@link Game}) can be updated incrementally.
+   */
+  interface ChangeListener {
+
+    void cellChanged(Cell cell, Player oldPlayer, Player newPlayer);
   }
 }
@@ -0,0 +1,379 @@
+package edu.gwu.ai.codeknights.tictactoe.core;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * The immutable geometry of a square {@link Board}: cell indices, straight lines, the lines through each cell, and the
+ * neighbors of each cell. It depends only on the board dimension, so one instance per dimension is shared by all boards
+ * (see {@link #forDim(int)}).
+ *
+ * Cells are identified by their index {@code rowIdx * dim + colIdx}. Lines are identified by their index in
+ * {@link #getNumLines()} order, which matches {@link Board#getAllLines()}: all rows, then all columns, then the
+ * diagonals of both directions.
+ *
+ * Every cell lies on exactly {@link #NUM_LINES_THROUGH_CELL} lines (its row, its column, and one diagonal of each
+ * direction), and the geometry records the position (offset) of the cell within each of them, so a line can be walked
+ * outwards from a cell without searching.
+ *
+ * NOTE: for speed, the arrays returned by this class are shared and must not be modified.
+ *
+ * @author ajv
+ */
+public final class BoardGeometry {
+
+  public static final int NUM_LINES_THROUGH_CELL = 4;
+
+  private static final Map<Integer, BoardGeometry> CACHE = new ConcurrentHashMap<>();
+
+  private final int dim;
+  private final int numCells;
+  private final int[][] lines;
+  private final int[][] linesThroughCell;
+  private final int[][] lineOffsetsThroughCell;
+  private final int[][] linesAtLeastLength;
+  private final int[][] neighbors;
+  private final Map<Integer, Windows> windowsByLength;
+
+  private BoardGeometry(final int dim) {
+    this.dim = dim;
+    numCells = dim * dim;
+
+    // Lines: rows, cols, then diagonals and anti-diagonals (interleaved)
+    final List<int[]> lineList = new ArrayList<>();
+    for (int rowIdx = 0; rowIdx < dim; rowIdx++) {
+      final int[] row = new int[dim];
+      for (int colIdx = 0; colIdx < dim; colIdx++) {
+        row[colIdx] = rowIdx * dim + colIdx;
+      }
+      lineList.add(row);
+    }
+    for (int colIdx = 0; colIdx < dim; colIdx++) {
+      final int[] col = new int[dim];
+      for (int rowIdx = 0; rowIdx < dim; rowIdx++) {
+        col[rowIdx] = rowIdx * dim + colIdx;
+      }
+      lineList.add(col);
+    }
+    for (int i = 0 - dim + 1; i <= dim - 1; i++) {
+      lineList.add(constructDiag(dim, i));
+      lineList.add(constructAntiDiag(dim, i));
+    }
+    lines = lineList.toArray(new int[lineList.size()][]);
+
+    // Lines through each cell (and the offset of the cell within each), in line order
+    linesThroughCell = new int[numCells][NUM_LINES_THROUGH_CELL];
+    lineOffsetsThroughCell = new int[numCells][NUM_LINES_THROUGH_CELL];
+    final int[] numThrough = new int[numCells];
+    for (int lineIdx = 0; lineIdx < lines.length; lineIdx++) {
+      final int[] line = lines[lineIdx];
+      for (int offset = 0; offset < line.length; offset++) {
+        final int idx = line[offset];
+        linesThroughCell[idx][numThrough[idx]] = lineIdx;
+        lineOffsetsThroughCell[idx][numThrough[idx]] = offset;
+        numThrough[idx]++;
+      }
+    }
+
+    // Lines at least as long as each length, in line order
+    linesAtLeastLength = new int[dim + 1][];
+    for (int length = 0; length <= dim; length++) {
+      int num = 0;
+      for (final int[] line : lines) {
+        if (line.length >= length) {
+          num++;
+        }
+      }
+      linesAtLeastLength[length] = new int[num];
+      num = 0;
+      for (int lineIdx = 0; lineIdx < lines.length; lineIdx++) {
+        if (lines[lineIdx].length >= length) {
+          linesAtLeastLength[length][num++] = lineIdx;
+        }
+      }
+    }
+
+    // Neighbors of each cell, starting north-west and proceeding in row-major order
+    neighbors = new int[numCells][];
+    final int[] buffer = new int[8];
+    for (int rowIdx = 0; rowIdx < dim; rowIdx++) {
+      for (int colIdx = 0; colIdx < dim; colIdx++) {
+        int num = 0;
+        for (int dRow = -1; dRow <= 1; dRow++) {
+          for (int dCol = -1; dCol <= 1; dCol++) {
+            final int r = rowIdx + dRow;
+            final int c = colIdx + dCol;
+            if ((dRow != 0 || dCol != 0) && r >= 0 && r < dim && c >= 0 && c < dim) {
+              buffer[num++] = r * dim + c;
+            }
+          }
+        }
+        final int[] cellNeighbors = new int[num];
+        System.arraycopy(buffer, 0, cellNeighbors, 0, num);
+        neighbors[rowIdx * dim + colIdx] = cellNeighbors;
+      }
+    }
+
+    windowsByLength = new ConcurrentHashMap<>();
+  }
+
+  /**
+   * Get the (shared) geometry for boards of the given dimension, creating it the first time it is needed.
+   *
+   * @param dim the dimension (number of rows and columns)
+   *
+   * @return the geometry
+   */
+  public static BoardGeometry forDim(final int dim) {
+    return CACHE.computeIfAbsent(dim, BoardGeometry::new);
+  }
+
+  /**
+   * Get the dimension (number of rows and columns).
+   *
+   * @return the dimension
+   */
+  public int getDim() {
+    return dim;
+  }
+
+  /**
+   * Get the number of cells, {@code dim * dim}.
+   *
+   * @return the number of cells
+   */
+  public int getNumCells() {
+    return numCells;
+  }
+
+  /**
+   * Get the index of the cell at the given coordinates.
+   *
+   * @param rowIdx zero-based row index
+   * @param colIdx zero-based column index
+   *
+   * @return the cell index
+   */
+  public int getIdx(final int rowIdx, final int colIdx) {
+    return rowIdx * dim + colIdx;
+  }
+
+  /**
+   * Get the zero-based row index of the given cell.
+   *
+   * @param idx the cell index
+   *
+   * @return the row index
+   */
+  public int getRowIdx(final int idx) {
+    return idx / dim;
+  }
+
+  /**
+   * Get the zero-based column index of the given cell.
+   *
+   * @param idx the cell index
+   *
+   * @return the column index
+   */
+  public int getColIdx(final int idx) {
+    return idx % dim;
+  }
+
+  /**
+   * Get the number of straight lines on the board (rows, columns, and diagonals of both directions).
+   *
+   * @return the number of lines
+   */
+  public int getNumLines() {
+    return lines.length;
+  }
+
+  /**
+   * Get the indices of the cells in the given line, in order along the line.
+   *
+   * @param lineIdx the line index
+   *
+   * @return the cell indices (shared; must not be modified)
+   */
+  public int[] getLine(final int lineIdx) {
+    return lines[lineIdx];
+  }
+
+  /**
+   * Get the indices of all lines that are at least as long as the given length.
+   *
+   * @param length the minimum line length
+   *
+   * @return the line indices (shared; must not be modified)
+   */
+  public int[] getLinesAtLeastLength(final int length) {
+    if (length > dim) {
+      return new int[0];
+    }
+    return linesAtLeastLength[Math.max(0, length)];
+  }
+
+  /**
+   * Get the indices of the {@link #NUM_LINES_THROUGH_CELL} lines that contain the given cell, in line order.
+   *
+   * @param idx the cell index
+   *
+   * @return the line indices (shared; must not be modified)
+   */
+  public int[] getLinesThrough(final int idx) {
+    return linesThroughCell[idx];
+  }
+
+  /**
+   * Get the offset of the given cell within each of the lines returned by {@link #getLinesThrough(int)}, such that
+   * {@code getLine(getLinesThrough(idx)[i])[getLineOffsetsThrough(idx)[i]] == idx}.
+   *
+   * @param idx the cell index
+   *
+   * @return the offsets (shared; must not be modified)
+   */
+  public int[] getLineOffsetsThrough(final int idx) {
+    return lineOffsetsThroughCell[idx];
+  }
+
+  /**
+   * Get the indices of the (up to 8) neighbors of the given cell, starting with the north-west neighbor (if it exists)
+   * and proceeding in row-major order.
+   *
+   * @param idx the cell index
+   *
+   * @return the cell indices (shared; must not be modified)
+   */
+  public int[] getNeighbors(final int idx) {
+    return neighbors[idx];
+  }
+
+  /**
+   * Get all windows of the given length: every run of {@code length} consecutive cells along any line. Windows are
+   * identified by their index in the returned array, ordered by line and then by starting offset.
+   *
+   * @param length the window length (typically the length required to win)
+   *
+   * @return the cell indices of each window (shared; must not be modified)
+   */
+  public int[][] getWindows(final int length) {
+    return getWindowsFor(length).windows;
+  }
+
+  /**
+   * Get the indices of the windows of the given length (see {@link #getWindows(int)}) that contain the given cell.
+   *
+   * @param length the window length
+   * @param idx    the cell index
+   *
+   * @return the window indices (shared; must not be modified)
+   */
+  public int[] getWindowsThrough(final int length, final int idx) {
+    return getWindowsFor(length).windowsThroughCell[idx];
+  }
+
+  /**
+   * Get, for each window of {@link #getWindowsThrough(int, int)}, the place value of the given cell in the window's
+   * base-3 pattern: {@code 3^k} if the cell is the {@code k}-th (zero-based) cell of the window.
+   *
+   * @param length the window length
+   * @param idx    the cell index
+   *
+   * @return the place values, in the same order as the window indices (shared; must not be modified)
+   */
+  public long[] getWindowPowersThrough(final int length, final int idx) {
+    return getWindowsFor(length).powersThroughCell[idx];
+  }
+
+  private Windows getWindowsFor(final int length) {
+    return windowsByLength.computeIfAbsent(length, this::constructWindows);
+  }
+
+  private Windows constructWindows(final int length) {
+    final List<int[]> windowList = new ArrayList<>();
+    if (length >= 1) {
+      for (final int lineIdx : getLinesAtLeastLength(length)) {
+        final int[] line = lines[lineIdx];
+        for (int start = 0; start + length <= line.length; start++) {
+          final int[] window = new int[length];
+          System.arraycopy(line, start, window, 0, length);
+          windowList.add(window);
+        }
+      }
+    }
+    final int[][] windows = windowList.toArray(new int[windowList.size()][]);
+    final int[] numThrough = new int[numCells];
+    for (final int[] window : windows) {
+      for (final int idx : window) {
+        numThrough[idx]++;
+      }
+    }
+    final int[][] windowsThroughCell = new int[numCells][];
+    for (int idx = 0; idx < numCells; idx++) {
+      windowsThroughCell[idx] = new int[numThrough[idx]];
+      numThrough[idx] = 0;
+    }
+    for (int windowIdx = 0; windowIdx < windows.length; windowIdx++) {
+      for (final int idx : windows[windowIdx]) {
+        windowsThroughCell[idx][numThrough[idx]++] = windowIdx;
+      }
+    }
+    final long[][] powersThroughCell = new long[numCells][];
+    for (int idx = 0; idx < numCells; idx++) {
+      powersThroughCell[idx] = new long[windowsThroughCell[idx].length];
+      for (int i = 0; i < windowsThroughCell[idx].length; i++) {
+        final int[] window = windows[windowsThroughCell[idx][i]];
+        long power = 1L;
+        for (int pos = 0; pos < window.length && window[pos] != idx; pos++) {
+          power *= 3L;
+        }
+        powersThroughCell[idx][i] = power;
+      }
+    }
+    return new Windows(windows, windowsThroughCell, powersThroughCell);
+  }
+
+  private static final class Windows {
+
+    private final int[][] windows;
+    private final int[][] windowsThroughCell;
+    private final long[][] powersThroughCell;
+
+    private Windows(final int[][] windows, final int[][] windowsThroughCell, final long[][] powersThroughCell) {
+      this.windows = windows;
+      this.windowsThroughCell = windowsThroughCell;
+      this.powersThroughCell = powersThroughCell;
+    }
+  }
+
+  private static int[] constructDiag(final int dim, final int idx) {
+    final int[] diag = new int[dim - Math.abs(idx)];
+    int rowIdx = Math.max(0, 0 - idx);
+    int colIdx = rowIdx + idx;
+    int diagIdx = 0;
+    while (rowIdx < dim && colIdx < dim) {
+      diag[diagIdx] = rowIdx * dim + colIdx;
+      rowIdx++;
+      colIdx++;
+      diagIdx++;
+    }
+    return diag;
+  }
+
+  private static int[] constructAntiDiag(final int dim, final int idx) {
+    final int[] diag = new int[dim - Math.abs(idx)];
+    int rowIdx = Math.min(dim - 1, dim - idx - 1);
+    int colIdx = Math.max(0, 0 - idx);
+    int diagIdx = 0;
+    while (rowIdx >= 0 && colIdx < dim) {
+      diag[diagIdx] = rowIdx * dim + colIdx;
+      rowIdx--;
+      colIdx++;
+      diagIdx++;
+    }
+    return diag;
+  }
+}
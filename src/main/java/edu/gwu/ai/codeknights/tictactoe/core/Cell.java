@@ -12,23 +12,35 @@ import java.util.Objects;
  */
 public class Cell {
 
+  private final Board board;
   private final int rowIdx;
   private final int colIdx;
 
-  private boolean isEmpty;
   private Player player;
 
   /**
-   * Construct a new cell at the given location.
+   * Construct a new cell at the given location, which is not attached to any board.
    *
    * @param rowIdx zero-based row index on the board
    * @param colIdx zero-based column index on the board
    */
   public Cell(final int rowIdx, final int colIdx) {
+    this(null, rowIdx, colIdx);
+  }
+
+  /**
+   * Construct a new cell at the given location on the given board. The player in the cell is then stored by the board
+   * (see {@link #setPlayer(Player)}), so the board can keep its derived state up to date and be copied cheaply.
+   *
+   * @param board  the board that owns this cell (may be {@code null})
+   * @param rowIdx zero-based row index on the board
+   * @param colIdx zero-based column index on the board
+   */
+  Cell(final Board board, final int rowIdx, final int colIdx) {
+    this.board = board;
     this.rowIdx = rowIdx;
     this.colIdx = colIdx;
 
-    isEmpty = true;
     player = null;
   }
 
@@ -56,7 +68,7 @@ public class Cell {
    * @return {@code true} if the cell is empty (not populated), {@code false} otherwise
    */
   public boolean isEmpty() {
-    return isEmpty;
+    return getPlayer() == null;
   }
 
   /**
@@ -65,17 +77,21 @@ public class Cell {
    * @return the player who has populated this cell (may be {@code null})
    */
   public Player getPlayer() {
-    return player;
+    return board != null ? board.getPlayer(board.getGeometry().getIdx(rowIdx, colIdx)) : player;
   }
 
   /**
-   * Populate this cell with the given player.
+   * Populate this cell with the given player, and notify the owning board (if any) of the change.
    *
    * @param player the player who is populating this cell
    */
   public void setPlayer(final Player player) {
-    isEmpty = player == null;
-    this.player = player;
+    if (board != null) {
+      board.setPlayer(this, player);
+    }
+    else {
+      this.player = player;
+    }
   }
 
   /**
@@ -84,7 +100,7 @@ public class Cell {
    * @return {@code true} if the cell is populated, {@code false} otherwise
    */
   public boolean isPopulated() {
-    return player != null;
+    return getPlayer() != null;
   }
 
   /**
@@ -95,7 +111,8 @@ public class Cell {
    * @return {@code true} if the cell is populated by the given player, {@code false} otherwise
    */
   public boolean isPopulatedBy(final Player player) {
-    return this.player != null && this.player.equals(player);
+    final Player curPlayer = getPlayer();
+    return curPlayer != null && curPlayer.equals(player);
   }
 
   /**
@@ -105,7 +122,8 @@ public class Cell {
    */
   @Override
   public String toString() {
-    final char value = player != null ? player.getMarker() : Const.BLANK_SPACE_CHAR;
+    final Player curPlayer = getPlayer();
+    final char value = curPlayer != null ? curPlayer.getMarker() : Const.BLANK_SPACE_CHAR;
     return String.valueOf(value);
   }
 
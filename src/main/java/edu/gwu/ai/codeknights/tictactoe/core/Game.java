@@ -21,7 +21,20 @@ public class Game {
   private final Player player2;
   private boolean isHome;
 
+  private static final byte WIN_UNKNOWN = 0;
+  private static final byte WIN_NO = 1;
+  private static final byte WIN_YES = 2;
+
   private final Board board;
+  private final WindowIndex windowIndex;
+
+  private byte player1WinState;
+  private byte player2WinState;
+  private final Cell[] moveCells;
+  private final Player[] movePlayers;
+  private final byte[] movePlayer1WinStates;
+  private final byte[] movePlayer2WinStates;
+  private int numMoves;
 
   /**
    * Construct a new game with the given board dimension, length required to win, game ID, and players.
@@ -42,6 +55,41 @@ public class Game {
     this.isHome = isHome;
 
     board = new Board(dim);
+    windowIndex = new WindowIndex(board.getGeometry(), winLength);
+    board.setChangeListener(this::cellChanged);
+
+    player1WinState = WIN_NO;
+    player2WinState = WIN_NO;
+    final int numCells = dim * dim;
+    moveCells = new Cell[numCells];
+    movePlayers = new Player[numCells];
+    movePlayer1WinStates = new byte[numCells];
+    movePlayer2WinStates = new byte[numCells];
+    numMoves = 0;
+  }
+
+  private Game(final Game other, final long gameId) {
+    dim = other.dim;
+    winLength = other.winLength;
+    this.gameId = gameId;
+    player1 = other.player1;
+    player2 = other.player2;
+    isHome = other.isHome;
+
+    board = other.board.getCopy();
+    windowIndex = other.windowIndex.getCopy();
+    board.setChangeListener(this::cellChanged);
+
+    player1WinState = other.player1WinState;
+    player2WinState = other.player2WinState;
+    moveCells = new Cell[other.moveCells.length];
+    for (int i = 0; i < other.numMoves; i++) {
+      moveCells[i] = board.getCell(other.moveCells[i].getRowIdx(), other.moveCells[i].getColIdx());
+    }
+    movePlayers = other.movePlayers.clone();
+    movePlayer1WinStates = other.movePlayer1WinStates.clone();
+    movePlayer2WinStates = other.movePlayer2WinStates.clone();
+    numMoves = other.numMoves;
   }
 
   /**
@@ -89,6 +137,15 @@ public class Game {
     return player2;
   }
 
+  /**
+   * Check whether {@link #player1} moves first when both players have played the same number of moves.
+   *
+   * @return {@code true} if {@link #player1} is the home player, {@code false} otherwise
+   */
+  public boolean isHome() {
+    return isHome;
+  }
+
   /**
    * Get the board on which the game is being played.
    *
@@ -98,6 +155,17 @@ public class Game {
     return board;
   }
 
+  /**
+   * Get the index of {@link #getWinLength()}-cell windows on the board (see {@link WindowIndex}), which is kept up to
+   * date as cells change. Sides {@link BitBoard#SIDE_1} and {@link BitBoard#SIDE_2} are {@link #getPlayer1()} and
+   * {@link #getPlayer2()}.
+   *
+   * @return the window index
+   */
+  public WindowIndex getWindowIndex() {
+    return windowIndex;
+  }
+
   public Player getPlayer(int id){
     Player player = null;
     if(this.getPlayer1().getId() == id){
@@ -227,8 +295,133 @@ public class Game {
    * @return {@code true} if the player has won, {@code false} otherwise
    */
   public boolean didPlayerWin(final Player player) {
-    return board.getLinesAtLeastLength(winLength).stream()
+    final byte winState = getWinState(player);
+    if (winState != WIN_UNKNOWN) {
+      return winState == WIN_YES;
+    }
+    final boolean didWin = board.getLinesAtLeastLength(winLength).stream()
       .anyMatch(line -> didPlayerWinOnLine(player, line));
+    setWinState(player, didWin ? WIN_YES : WIN_NO);
+    return didWin;
+  }
+
+  /**
+   * Check whether the given player has populated at least {@link #winLength} contiguous cells in any of the four
+   * straight lines through the cell at {@code (rowIdx,colIdx)}. The cell itself is counted as if it were populated by
+   * the player, so for an empty cell this tells whether the player would win by playing there.
+   *
+   * @param player the player for whom a win will be checked
+   * @param rowIdx zero-based index of the row of the cell
+   * @param colIdx zero-based index of the column of the cell
+   *
+   * @return {@code true} if such a line exists, {@code false} otherwise
+   */
+  public boolean didPlayerWinThrough(final Player player, final int rowIdx, final int colIdx) {
+    final BoardGeometry geometry = board.getGeometry();
+    final int idx = geometry.getIdx(rowIdx, colIdx);
+    final int[] lineIdxs = geometry.getLinesThrough(idx);
+    final int[] offsets = geometry.getLineOffsetsThrough(idx);
+    for (int i = 0; i < lineIdxs.length; i++) {
+      final int[] line = geometry.getLine(lineIdxs[i]);
+      if (line.length < winLength) {
+        continue;
+      }
+      int len = 1;
+      for (int pos = offsets[i] - 1; pos >= 0 && board.isPopulatedBy(line[pos], player); pos--) {
+        len++;
+      }
+      for (int pos = offsets[i] + 1; pos < line.length && board.isPopulatedBy(line[pos], player); pos++) {
+        len++;
+      }
+      if (len >= winLength) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  /**
+   * Keeps the cached win states and the move stack up to date as cells change. Populating an empty cell pushes a move
+   * and only needs a check of the lines through that cell; emptying the cell on top of the stack pops the move and
+   * restores the states from before it. Any other change cannot be undone from the stack, so the stack is cleared, and
+   * removing a winner's cell forces a full check on the next call to {@link #didPlayerWin(Player)}.
+   */
+  private void cellChanged(final Cell cell, final Player oldPlayer, final Player newPlayer) {
+    final int idx = board.getGeometry().getIdx(cell.getRowIdx(), cell.getColIdx());
+    final int oldSide = getSide(oldPlayer);
+    if (oldSide != BitBoard.NO_SIDE) {
+      windowIndex.remove(idx, oldSide);
+    }
+    final int newSide = getSide(newPlayer);
+    if (newSide != BitBoard.NO_SIDE) {
+      windowIndex.place(idx, newSide);
+    }
+
+    if (oldPlayer != null && newPlayer == null && numMoves > 0 && cell.equals(moveCells[numMoves - 1])
+      && oldPlayer.equals(movePlayers[numMoves - 1])) {
+      numMoves--;
+      player1WinState = movePlayer1WinStates[numMoves];
+      player2WinState = movePlayer2WinStates[numMoves];
+      moveCells[numMoves] = null;
+      movePlayers[numMoves] = null;
+      return;
+    }
+    if (oldPlayer != null) {
+      clearMoves();
+      if (getWinState(oldPlayer) == WIN_YES) {
+        setWinState(oldPlayer, WIN_UNKNOWN);
+      }
+    }
+    if (newPlayer != null) {
+      if (oldPlayer == null) {
+        moveCells[numMoves] = cell;
+        movePlayers[numMoves] = newPlayer;
+        movePlayer1WinStates[numMoves] = player1WinState;
+        movePlayer2WinStates[numMoves] = player2WinState;
+        numMoves++;
+      }
+      if (getWinState(newPlayer) == WIN_NO && didPlayerWinThrough(newPlayer, cell.getRowIdx(), cell.getColIdx())) {
+        setWinState(newPlayer, WIN_YES);
+      }
+    }
+  }
+
+  private void clearMoves() {
+    Arrays.fill(moveCells, 0, numMoves, null);
+    Arrays.fill(movePlayers, 0, numMoves, null);
+    numMoves = 0;
+  }
+
+  private int getSide(final Player player) {
+    if (player == null) {
+      return BitBoard.NO_SIDE;
+    }
+    if (player.equals(player1)) {
+      return BitBoard.SIDE_1;
+    }
+    if (player.equals(player2)) {
+      return BitBoard.SIDE_2;
+    }
+    return BitBoard.NO_SIDE;
+  }
+
+  private byte getWinState(final Player player) {
+    if (Objects.equals(player, player1)) {
+      return player1WinState;
+    }
+    if (Objects.equals(player, player2)) {
+      return player2WinState;
+    }
+    return WIN_UNKNOWN;
+  }
+
+  private void setWinState(final Player player, final byte winState) {
+    if (Objects.equals(player, player1)) {
+      player1WinState = winState;
+    }
+    else if (Objects.equals(player, player2)) {
+      player2WinState = winState;
+    }
   }
 
   /**
@@ -264,7 +457,9 @@ public class Game {
    *
    * NOTE: will return an empty set if the given player already won.
    *
-   * NOTE: will make changes to the board; for thread-safe operation, synchronize on {@link #getBoard()}.
+   * NOTE: for {@link #getPlayer1()} and {@link #getPlayer2()}, the cells are read from the window index (see
+   *       {@link #getWindowIndex()}); for any other player, will make changes to the board, so for thread-safe
+   *       operation, synchronize on {@link #getBoard()}.
    *
    * @param player the player for whom winning cells will be found
    *
@@ -272,14 +467,26 @@ public class Game {
    */
   public Set<Cell> getWinningCells(final Player player) {
     final Set<Cell> winners = new HashSet<>();
-    if (!didPlayerWin(player)) {
+    final int side = getSide(player);
+    if (side != BitBoard.NO_SIDE) {
+      if (!didPlayerWin(player)) {
+        final int[] cellIdxs = new int[dim * dim];
+        final int num = windowIndex.collectCompletingCells(side, cellIdxs);
+        for (int i = 0; i < num; i++) {
+          if (board.getPlayer(cellIdxs[i]) == null) {
+            winners.add(board.getCell(cellIdxs[i]));
+          }
+        }
+      }
+    }
+    else if (!didPlayerWin(player)) {
       for (final Cell cell : board.getEmptyCells()) {
         if (cell.getPlayer() == null) {
           boolean didWin = false;
           synchronized (board) {
-            cell.setPlayer(player);
+            makeMove(cell.getRowIdx(), cell.getColIdx(), player);
             didWin = didPlayerWin(player);
-            cell.setPlayer(null);
+            unmakeMove();
           }
           if (didWin) {
             winners.add(cell);
@@ -365,6 +572,67 @@ public class Game {
     board.getCell(rowIdx, colIdx).setPlayer(player);
   }
 
+  /**
+   * Populate the empty cell at {@code (rowIdx,colIdx)} by the next player (see {@link #getNextPlayer()}), pushing the
+   * move onto the move stack so that it can be undone by {@link #unmakeMove()}.
+   *
+   * @param rowIdx zero-based index of the row of the cell
+   * @param colIdx zero-based index of the column of the cell
+   *
+   * @throws IllegalArgumentException if the cell is not empty
+   */
+  public void makeMove(final int rowIdx, final int colIdx) {
+    makeMove(rowIdx, colIdx, getNextPlayer());
+  }
+
+  /**
+   * Populate the empty cell at {@code (rowIdx,colIdx)} by the given player, pushing the move onto the move stack so that
+   * it can be undone by {@link #unmakeMove()}. All derived state (board hash, cached winner, etc.) is updated
+   * incrementally.
+   *
+   * @param rowIdx zero-based index of the row of the cell
+   * @param colIdx zero-based index of the column of the cell
+   * @param player the player who will populate the cell
+   *
+   * @throws IllegalArgumentException if the cell is not empty
+   */
+  public void makeMove(final int rowIdx, final int colIdx, final Player player) {
+    final Cell cell = board.getCell(rowIdx, colIdx);
+    if (!cell.isEmpty()) {
+      throw new IllegalArgumentException("cell is not empty: " + String.valueOf(cell));
+    }
+    cell.setPlayer(player);
+  }
+
+  /**
+   * Undo the most recent move on the move stack, restoring the board and all derived state to what it was before that
+   * move.
+   *
+   * NOTE: populating an empty cell directly (e.g., via {@link Cell#setPlayer(Player)}) also counts as a move; any other
+   * direct change to a cell clears the move stack, since earlier moves can no longer be undone consistently.
+   *
+   * @return the cell that was emptied
+   *
+   * @throws IllegalStateException if there is no move to undo
+   */
+  public Cell unmakeMove() {
+    if (numMoves < 1) {
+      throw new IllegalStateException("no move to undo");
+    }
+    final Cell cell = moveCells[numMoves - 1];
+    cell.setPlayer(null);
+    return cell;
+  }
+
+  /**
+   * Get the number of moves on the move stack, i.e., how many times {@link #unmakeMove()} can be called.
+   *
+   * @return the number of moves that can be undone
+   */
+  public int getNumMoves() {
+    return numMoves;
+  }
+
   /**
    * Delegates to {@link #playInCell(int, int, Player)} to populate a cell by the given player.
    *
@@ -411,61 +679,29 @@ public class Game {
   }
 
   /**
-   * TODO: currently, this is worst case an O(N^2) operation... can it be improved ???
-   *
    * For the given line of cells, find the longest continuous subsequence of cells that are either empty or populated
    * by the player, as long as at least one cell in that subsequence is empty. If multiple subsequences have the same
    * length, choose the one with the most cells already populated by the player.
    *
+   * NOTE: this is a single pass over the line (see {@link OpenSublineScanner}).
+   *
    * @param line   the line to search
    * @param player the player
    *
-   * @return the longest subsequence, or {@code null} if no satisfiable subsequence was found
+   * @return the longest subsequence, or an empty list if no satisfiable subsequence was found
    */
   public List<Cell> getLongestOpenSublineForPlayer(final List<Cell> line, final Player player) {
-    if (line.stream().noneMatch(cell -> cell.isPopulatedBy(player) || cell.isEmpty())) {
-      return Collections.emptyList();
+    final OpenSublineScanner scanner = new OpenSublineScanner();
+    scanner.begin();
+    for (final Cell cell : line) {
+      scanner.accept(cell.isEmpty() ? OpenSublineScanner.EMPTY
+        : cell.isPopulatedBy(player) ? OpenSublineScanner.OWN : OpenSublineScanner.OTHER);
     }
-    int longestLen = 0;
-    final List<List<Cell>> candidateSublines = new ArrayList<>();
-    for (int startIdx = 0; startIdx < line.size(); startIdx++) {
-      for (int endIdx = startIdx + 1; endIdx <= line.size(); endIdx++) {
-        final List<Cell> curSubline = line.subList(startIdx, endIdx);
-        if (curSubline.size() >= longestLen && curSubline.stream().anyMatch(cell -> cell.isPopulatedBy(player))) {
-          boolean hasAtLeastOneEmpty = false;
-          boolean isAllPlayerOrEmpty = true;
-          for (final Cell cell : curSubline) {
-            if (cell.isEmpty()) {
-              hasAtLeastOneEmpty = true;
-            }
-            else if (!cell.isPopulatedBy(player)) {
-              isAllPlayerOrEmpty = false;
-              break;
-            }
-          }
-          if (hasAtLeastOneEmpty && isAllPlayerOrEmpty) {
-            final int curLen = curSubline.size();
-            if (curLen >= longestLen) {
-              if (curLen > longestLen) {
-                candidateSublines.clear();
-              }
-              longestLen = curLen;
-              candidateSublines.add(curSubline);
-            }
-          }
-        }
-      }
-    }
-    int mostPopulated = 0;
-    List<Cell> bestLine = Collections.emptyList();
-    for (final List<Cell> subline : candidateSublines) {
-      final int numPopulated = subline.stream().mapToInt(cell -> cell.isPopulatedBy(player) ? 1 : 0).sum();
-      if (numPopulated > mostPopulated) {
-        mostPopulated = numPopulated;
-        bestLine = subline;
-      }
+    scanner.end();
+    if (scanner.getBestLength() == 0) {
+      return Collections.emptyList();
     }
-    return bestLine;
+    return line.subList(scanner.getBestStart(), scanner.getBestStart() + scanner.getBestLength());
   }
 
   /**
@@ -485,38 +721,40 @@ public class Game {
     final Player nextPlayer = getNextPlayer();
 
     // Consider all lines that could be involved in a win/loss
-    for (final List<Cell> line : board.getLinesAtLeastLength(winLength)) {
+    final BoardGeometry geometry = board.getGeometry();
+    final OpenSublineScanner scanner = new OpenSublineScanner();
+    final int[] lineIdxs = winLength >= 1 ? geometry.getLinesAtLeastLength(winLength) : new int[0];
+    for (final int lineIdx : lineIdxs) {
+      final int[] line = geometry.getLine(lineIdx);
+
+      // Find the player's longest subline in this line (all player tokens or empty)
+      scanner.scan(board, line, player);
+      final boolean didWin = scanner.getLongestOwnRun() >= winLength;
+      final int longestLen = scanner.getBestLength();
+      final int numPopulated = scanner.getBestPopulated();
 
-      // Big plus for wins
-      if (didPlayerWinOnLine(player, line)) {
+      // Find the opponent's longest subline in this line
+      scanner.scan(board, line, opponent);
+      final boolean didLose = scanner.getLongestOwnRun() >= winLength;
+      final int longestOppLen = scanner.getBestLength();
+      final int numOppPopulated = scanner.getBestPopulated();
+
+      // Big plus for wins, big minus for losses
+      if (didWin) {
         score += dim * dim * dim * dim;
       }
-
-      // Big minus for losses
-      else if (didPlayerWinOnLine(opponent, line)) {
+      else if (didLose) {
         score -= dim * dim * dim * dim;
       }
 
-      // Find the player's longest subline in this line (all player tokens or empty)
-      final List<Cell> longestSeq = getLongestOpenSublineForPlayer(line, player);
-      if (longestSeq.size() >= winLength) {
-        // The player could win on this line, add to the score
-        final int numPopulated = longestSeq.stream()
-          .filter(cell -> cell.isPopulatedBy(player))
-          .mapToInt(cell -> 1)
-          .sum();
+      // The player could win on this line, add to the score
+      if (longestLen >= winLength) {
         score += numPopulated * numPopulated;
       }
 
-      // Find the opponent's longest subline in this line
-      final List<Cell> longestOppSeq = getLongestOpenSublineForPlayer(line, opponent);
-      if (longestOppSeq.size() >= winLength) {
-        // The player could lose on this line, subtract from the score
-        final int numPopulated = longestOppSeq.stream()
-          .filter(cell -> cell.isPopulatedBy(opponent))
-          .mapToInt(cell -> 1)
-          .sum();
-        score -= numPopulated * numPopulated;
+      // The player could lose on this line, subtract from the score
+      if (longestOppLen >= winLength) {
+        score -= numOppPopulated * numOppPopulated;
       }
     }
 
@@ -558,12 +796,12 @@ public class Game {
   }
 
   /**
-   * Delegates to {@link Board#getHash()} to compute a unique hash string for the current board state.
+   * Delegates to {@link Board#getZobristKey()} to get a 64-bit hash of the current board state.
    *
-   * @return a unique hash string for the current board state
+   * @return the Zobrist key of the current board state
    */
-  public String getBoardHash() {
-    return board.getHash();
+  public long getBoardHash() {
+    return board.getZobristKey();
   }
 
   /**
@@ -576,20 +814,38 @@ public class Game {
    * @return a copy of the game
    */
   public Game getCopy(final long newGameId, final Player newPlayer1, final Player newPlayer2) {
+    if (newPlayer1 == player1 && newPlayer2 == player2) {
+      // Same players: copy the board contents and derived state directly
+      return new Game(this, newGameId);
+    }
+
     final Game copy = new Game(dim, winLength, newGameId, newPlayer1,
             newPlayer2, isHome);
+
+    // Populate cells that are not on the move stack first, then replay the stack so the copy can undo the same moves
+    final Set<Cell> stackCells = new HashSet<>(Arrays.asList(moveCells).subList(0, numMoves));
     for (final Cell oldCell : board.getAllCells()) {
-      final Cell newCell = copy.getBoard().getCell(oldCell.getRowIdx(), oldCell.getColIdx());
-      if (oldCell.isPopulatedBy(player1)) {
-        newCell.setPlayer(newPlayer1);
-      }
-      else if (oldCell.isPopulatedBy(player2)) {
-        newCell.setPlayer(newPlayer2);
+      if (!stackCells.contains(oldCell)) {
+        copyCell(oldCell, copy, newPlayer1, newPlayer2);
       }
     }
+    copy.clearMoves();
+    for (int i = 0; i < numMoves; i++) {
+      copyCell(moveCells[i], copy, newPlayer1, newPlayer2);
+    }
     return copy;
   }
 
+  private void copyCell(final Cell oldCell, final Game copy, final Player newPlayer1, final Player newPlayer2) {
+    final Cell newCell = copy.getBoard().getCell(oldCell.getRowIdx(), oldCell.getColIdx());
+    if (oldCell.isPopulatedBy(player1)) {
+      newCell.setPlayer(newPlayer1);
+    }
+    else if (oldCell.isPopulatedBy(player2)) {
+      newCell.setPlayer(newPlayer2);
+    }
+  }
+
   /**
    * Delegates to {@link #getCopy(long, Player, Player)} to create an identical copy of the game.
    *
@@ -647,6 +903,6 @@ public class Game {
 
   @Override
   public int hashCode() {
-    return Objects.hash(dim, winLength, gameId, player1, player2, board);
+    return Objects.hash(dim, winLength, gameId, player1, player2, board.getZobristKey());
   }
 }
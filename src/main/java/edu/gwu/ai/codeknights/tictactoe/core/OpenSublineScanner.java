@@ -0,0 +1,144 @@
+package edu.gwu.ai.codeknights.tictactoe.core;
+
+/**
+ * Single-pass scanner that finds, for one player, the best "open subline" of a line: the longest run of consecutive
+ * cells that are empty or populated by the player, containing at least one of each (ties go to the run with the most
+ * cells populated by the player, then to the first such run). It also tracks the longest run of cells populated by the
+ * player, which tells whether the player won on the line.
+ *
+ * The cells of a line are fed in order, either by {@link #scan(Board, int[], Player)} or by {@link #begin()}, one call
+ * to {@link #accept(int)} per cell, and {@link #end()}. Results are returned as primitives, so nothing is allocated.
+ *
+ * NOTE: instances are not thread-safe; reuse one instance per thread.
+ *
+ * @author ajv
+ */
+public final class OpenSublineScanner {
+
+  public static final int EMPTY = 0;
+  public static final int OWN = 1;
+  public static final int OTHER = 2;
+
+  private int pos;
+  private int runStart;
+  private int runLength;
+  private int runPopulated;
+  private int ownRun;
+  private int longestOwnRun;
+
+  private int bestStart;
+  private int bestLength;
+  private int bestPopulated;
+
+  /**
+   * Start scanning a new line.
+   */
+  public void begin() {
+    pos = 0;
+    runStart = 0;
+    runLength = 0;
+    runPopulated = 0;
+    ownRun = 0;
+    longestOwnRun = 0;
+    bestStart = 0;
+    bestLength = 0;
+    bestPopulated = 0;
+  }
+
+  /**
+   * Feed the next cell of the line.
+   *
+   * @param state {@link #EMPTY}, {@link #OWN} (populated by the player), or {@link #OTHER} (populated by anyone else)
+   */
+  public void accept(final int state) {
+    if (state == OTHER) {
+      closeRun();
+      runStart = pos + 1;
+      ownRun = 0;
+    }
+    else {
+      runLength++;
+      if (state == OWN) {
+        runPopulated++;
+        ownRun++;
+        if (ownRun > longestOwnRun) {
+          longestOwnRun = ownRun;
+        }
+      }
+      else {
+        ownRun = 0;
+      }
+    }
+    pos++;
+  }
+
+  /**
+   * Finish scanning the current line; the results are then available from the getters.
+   */
+  public void end() {
+    closeRun();
+  }
+
+  /**
+   * Scan a whole line of the given board for the given player.
+   *
+   * @param board  the board
+   * @param line   the cell indices of the line, in order (see {@link BoardGeometry#getLine(int)})
+   * @param player the player
+   */
+  public void scan(final Board board, final int[] line, final Player player) {
+    begin();
+    for (final int idx : line) {
+      final Player cellPlayer = board.getPlayer(idx);
+      accept(cellPlayer == null ? EMPTY : cellPlayer.equals(player) ? OWN : OTHER);
+    }
+    end();
+  }
+
+  /**
+   * Get the position (within the line) of the first cell of the best open subline.
+   *
+   * @return the start position, or zero if there is no open subline
+   */
+  public int getBestStart() {
+    return bestStart;
+  }
+
+  /**
+   * Get the length of the best open subline.
+   *
+   * @return the length, or zero if there is no open subline
+   */
+  public int getBestLength() {
+    return bestLength;
+  }
+
+  /**
+   * Get the number of cells in the best open subline that are populated by the player.
+   *
+   * @return the number of populated cells, or zero if there is no open subline
+   */
+  public int getBestPopulated() {
+    return bestPopulated;
+  }
+
+  /**
+   * Get the length of the longest run of consecutive cells populated by the player.
+   *
+   * @return the length of the longest run
+   */
+  public int getLongestOwnRun() {
+    return longestOwnRun;
+  }
+
+  private void closeRun() {
+    if (runPopulated > 0 && runPopulated < runLength
+      && (runLength > bestLength || (runLength == bestLength && runPopulated > bestPopulated))) {
+      bestStart = runStart;
+      bestLength = runLength;
+      bestPopulated = runPopulated;
+    }
+    runLength = 0;
+    runPopulated = 0;
+  }
+}
@@ -0,0 +1,192 @@
+package edu.gwu.ai.codeknights.tictactoe.core;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * An incrementally-updated evaluation over every window of {@code winLength} consecutive cells on the board (see
+ * {@link BoardGeometry#getWindows(int)}). Each window's contents are encoded as a base-3 pattern index (one digit per
+ * cell: empty, {@link BitBoard#SIDE_1}, or {@link BitBoard#SIDE_2}), and each pattern has a precomputed score for each
+ * side. The total score of each side is kept up to date as stones are placed and removed, so evaluation only costs the
+ * windows through the changed cell.
+ *
+ * A window that holds any of the opponent's stones is worth nothing to a side. Otherwise, it is worth
+ * {@code 4^k} for {@code k} of the side's stones, plus {@code 4^(k-1)} for each pair of adjacent stones, so that solid
+ * shapes score above broken ones; an open four (or a broken three) shows up in several overlapping windows, and scores
+ * accordingly. A complete window is worth {@link #getCompleteScore()}.
+ *
+ * Sides are identified by {@link BitBoard#SIDE_1} and {@link BitBoard#SIDE_2}.
+ *
+ * NOTE: pattern scores are looked up in a table shared by all instances with the same window length, up to
+ * {@link #MAX_TABLE_WIN_LENGTH}; for longer windows they are computed from the pattern. Instances are not thread-safe.
+ *
+ * @author ajv
+ */
+public final class PatternEvaluator {
+
+  /**
+   * Longest window for which pattern scores are tabulated (3^10 patterns).
+   */
+  public static final int MAX_TABLE_WIN_LENGTH = 10;
+
+  private static final Map<Integer, long[][]> TABLES = new ConcurrentHashMap<>();
+
+  private final int winLength;
+  private final int[][] windowsThroughCell;
+  private final long[][] powersThroughCell;
+  private final long[][] table;
+
+  private final long[] patterns;
+  private final long[] totals;
+
+  /**
+   * Construct a new evaluator for an empty board with the given geometry.
+   *
+   * @param geometry  the board geometry
+   * @param winLength the length required to win (the window length)
+   */
+  public PatternEvaluator(final BoardGeometry geometry, final int winLength) {
+    this.winLength = winLength;
+    final int[][] windows = geometry.getWindows(winLength);
+    windowsThroughCell = new int[geometry.getNumCells()][];
+    powersThroughCell = new long[geometry.getNumCells()][];
+    for (int idx = 0; idx < geometry.getNumCells(); idx++) {
+      windowsThroughCell[idx] = geometry.getWindowsThrough(winLength, idx);
+      powersThroughCell[idx] = geometry.getWindowPowersThrough(winLength, idx);
+    }
+    table = winLength >= 1 && winLength <= MAX_TABLE_WIN_LENGTH
+      ? TABLES.computeIfAbsent(winLength, PatternEvaluator::constructTable)
+      : null;
+
+    patterns = new long[windows.length];
+    totals = new long[2];
+  }
+
+  private PatternEvaluator(final PatternEvaluator other) {
+    winLength = other.winLength;
+    windowsThroughCell = other.windowsThroughCell;
+    powersThroughCell = other.powersThroughCell;
+    table = other.table;
+
+    patterns = other.patterns.clone();
+    totals = other.totals.clone();
+  }
+
+  /**
+   * Get the score of a complete window (a win).
+   *
+   * @return the score
+   */
+  public long getCompleteScore() {
+    return getCompleteScore(winLength);
+  }
+
+  /**
+   * Get the total score of the windows for the given side.
+   *
+   * @param side the side
+   *
+   * @return the total score
+   */
+  public long getTotal(final int side) {
+    return totals[side];
+  }
+
+  /**
+   * Update the scores after a stone of the given side was placed in the given (previously empty) cell.
+   *
+   * @param idx  the cell index
+   * @param side the side that placed the stone
+   */
+  public void place(final int idx, final int side) {
+    update(idx, side + 1);
+  }
+
+  /**
+   * Update the scores after a stone of the given side was removed from the given cell.
+   *
+   * @param idx  the cell index
+   * @param side the side whose stone was removed
+   */
+  public void remove(final int idx, final int side) {
+    update(idx, -(side + 1));
+  }
+
+  /**
+   * Create a copy of this evaluator with the same state.
+   *
+   * @return the copy
+   */
+  public PatternEvaluator getCopy() {
+    return new PatternEvaluator(this);
+  }
+
+  private void update(final int idx, final int digitDelta) {
+    final int[] windowIdxs = windowsThroughCell[idx];
+    final long[] powers = powersThroughCell[idx];
+    for (int i = 0; i < windowIdxs.length; i++) {
+      final int windowIdx = windowIdxs[i];
+      final long oldPattern = patterns[windowIdx];
+      final long newPattern = oldPattern + digitDelta * powers[i];
+      patterns[windowIdx] = newPattern;
+      for (int side = 0; side < 2; side++) {
+        totals[side] += getScore(side, newPattern) - getScore(side, oldPattern);
+      }
+    }
+  }
+
+  private long getScore(final int side, final long pattern) {
+    return table != null ? table[side][(int) pattern] : computeScore(side, pattern, winLength);
+  }
+
+  private static long[][] constructTable(final int winLength) {
+    int numPatterns = 1;
+    for (int i = 0; i < winLength; i++) {
+      numPatterns *= 3;
+    }
+    final long[][] table = new long[2][numPatterns];
+    for (int side = 0; side < 2; side++) {
+      for (int pattern = 0; pattern < numPatterns; pattern++) {
+        table[side][pattern] = computeScore(side, pattern, winLength);
+      }
+    }
+    return table;
+  }
+
+  private static long computeScore(final int side, final long pattern, final int winLength) {
+    final int ownDigit = side + 1;
+    int numOwn = 0;
+    int numAdjacent = 0;
+    boolean prevOwn = false;
+    long rest = pattern;
+    for (int pos = 0; pos < winLength; pos++) {
+      final int digit = (int) (rest % 3L);
+      rest /= 3L;
+      if (digit == 0) {
+        prevOwn = false;
+      }
+      else if (digit == ownDigit) {
+        numOwn++;
+        if (prevOwn) {
+          numAdjacent++;
+        }
+        prevOwn = true;
+      }
+      else {
+        // Blocked by the opponent
+        return 0L;
+      }
+    }
+    if (numOwn == 0) {
+      return 0L;
+    }
+    if (numOwn == winLength) {
+      return getCompleteScore(winLength);
+    }
+    return (1L << (2 * numOwn)) + numAdjacent * (1L << (2 * (numOwn - 1)));
+  }
+
+  private static long getCompleteScore(final int winLength) {
+    return 1L << Math.min(2 * (winLength + 2), 48);
+  }
+}
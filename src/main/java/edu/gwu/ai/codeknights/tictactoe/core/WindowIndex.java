@@ -0,0 +1,321 @@
+package edu.gwu.ai.codeknights.tictactoe.core;
+
+import java.util.Arrays;
+
+/**
+ * An incrementally-updated index over every window of {@code winLength} consecutive cells on the board (see
+ * {@link BoardGeometry#getWindows(int)}). For each window it keeps the number of stones of each side, and it files each
+ * window that is still "open" for a side (contains none of the opponent's stones) in a bucket according to how many of
+ * that side's stones it contains.
+ *
+ * Placing or removing a stone only touches the windows through that cell, and queries such as "has this side completed a
+ * window?" or "how many windows hold {@code winLength-1} of my stones and none of the opponent's?" are constant-time
+ * lookups. The windows in a bucket can be walked with {@link #getFirstOpenWindow(int, int)} and
+ * {@link #getNextOpenWindow(int, int)}.
+ *
+ * Sides are identified by {@link BitBoard#SIDE_1} and {@link BitBoard#SIDE_2}.
+ *
+ * NOTE: instances are not thread-safe.
+ *
+ * @author ajv
+ */
+public final class WindowIndex {
+
+  private static final int NO_WINDOW = -1;
+
+  private final BoardGeometry geometry;
+  private final int winLength;
+  private final int[][] windows;
+
+  private final int[][] counts;
+  private final int[][] heads;
+  private final int[][] sizes;
+  private final int[][] nexts;
+  private final int[][] prevs;
+  private final boolean[] occupied;
+
+  private final int[] marks;
+  private int markStamp;
+
+  /**
+   * Construct a new index for an empty board with the given geometry.
+   *
+   * @param geometry  the board geometry
+   * @param winLength the length required to win (the window length)
+   */
+  public WindowIndex(final BoardGeometry geometry, final int winLength) {
+    this.geometry = geometry;
+    this.winLength = winLength;
+    windows = geometry.getWindows(winLength);
+
+    final int numWindows = windows.length;
+    final int numBuckets = Math.max(0, winLength) + 1;
+    counts = new int[2][numWindows];
+    heads = new int[2][numBuckets];
+    sizes = new int[2][numBuckets];
+    nexts = new int[2][numWindows];
+    prevs = new int[2][numWindows];
+    for (int side = 0; side < 2; side++) {
+      Arrays.fill(heads[side], NO_WINDOW);
+      for (int windowIdx = numWindows - 1; windowIdx >= 0; windowIdx--) {
+        link(side, windowIdx);
+      }
+    }
+
+    occupied = new boolean[geometry.getNumCells()];
+    marks = new int[geometry.getNumCells()];
+    markStamp = 0;
+  }
+
+  private WindowIndex(final WindowIndex other) {
+    geometry = other.geometry;
+    winLength = other.winLength;
+    windows = other.windows;
+
+    counts = deepCopy(other.counts);
+    heads = deepCopy(other.heads);
+    sizes = deepCopy(other.sizes);
+    nexts = deepCopy(other.nexts);
+    prevs = deepCopy(other.prevs);
+    occupied = other.occupied.clone();
+
+    marks = new int[geometry.getNumCells()];
+    markStamp = 0;
+  }
+
+  /**
+   * Get the length required to win (the window length).
+   *
+   * @return the window length
+   */
+  public int getWinLength() {
+    return winLength;
+  }
+
+  /**
+   * Get the number of windows on the board.
+   *
+   * @return the number of windows
+   */
+  public int getNumWindows() {
+    return windows.length;
+  }
+
+  /**
+   * Get the indices of the cells in the given window.
+   *
+   * @param windowIdx the window index
+   *
+   * @return the cell indices (shared; must not be modified)
+   */
+  public int[] getWindow(final int windowIdx) {
+    return windows[windowIdx];
+  }
+
+  /**
+   * Get the number of stones of the given side in the given window.
+   *
+   * @param windowIdx the window index
+   * @param side      the side
+   *
+   * @return the number of stones
+   */
+  public int getCount(final int windowIdx, final int side) {
+    return counts[side][windowIdx];
+  }
+
+  /**
+   * Update the index after a stone of the given side was placed in the given (previously empty) cell.
+   *
+   * @param idx  the cell index
+   * @param side the side that placed the stone
+   */
+  public void place(final int idx, final int side) {
+    final int opponent = BitBoard.getOtherSide(side);
+    occupied[idx] = true;
+    for (final int windowIdx : geometry.getWindowsThrough(winLength, idx)) {
+      if (counts[opponent][windowIdx] == 0) {
+        unlink(side, windowIdx);
+      }
+      if (counts[side][windowIdx] == 0) {
+        unlink(opponent, windowIdx);
+      }
+      counts[side][windowIdx]++;
+      if (counts[opponent][windowIdx] == 0) {
+        link(side, windowIdx);
+      }
+    }
+  }
+
+  /**
+   * Update the index after a stone of the given side was removed from the given cell.
+   *
+   * @param idx  the cell index
+   * @param side the side whose stone was removed
+   */
+  public void remove(final int idx, final int side) {
+    final int opponent = BitBoard.getOtherSide(side);
+    occupied[idx] = false;
+    for (final int windowIdx : geometry.getWindowsThrough(winLength, idx)) {
+      if (counts[opponent][windowIdx] == 0) {
+        unlink(side, windowIdx);
+      }
+      counts[side][windowIdx]--;
+      if (counts[opponent][windowIdx] == 0) {
+        link(side, windowIdx);
+      }
+      if (counts[side][windowIdx] == 0) {
+        link(opponent, windowIdx);
+      }
+    }
+  }
+
+  /**
+   * Count the windows that hold exactly {@code count} stones of the given side and none of the opponent's.
+   *
+   * @param side  the side
+   * @param count the number of stones
+   *
+   * @return the number of such windows
+   */
+  public int countOpenWindows(final int side, final int count) {
+    return count >= 0 && count < sizes[side].length ? sizes[side][count] : 0;
+  }
+
+  /**
+   * Check whether the given side has filled a whole window, i.e., won.
+   *
+   * @param side the side
+   *
+   * @return {@code true} if the side has {@link #getWinLength()} stones in a row, {@code false} otherwise
+   */
+  public boolean hasCompleteWindow(final int side) {
+    return countOpenWindows(side, winLength) > 0;
+  }
+
+  /**
+   * Get the first window that holds exactly {@code count} stones of the given side and none of the opponent's.
+   *
+   * @param side  the side
+   * @param count the number of stones
+   *
+   * @return the window index, or {@code -1} if there is no such window
+   */
+  public int getFirstOpenWindow(final int side, final int count) {
+    return count >= 0 && count < heads[side].length ? heads[side][count] : NO_WINDOW;
+  }
+
+  /**
+   * Get the window after the given one in the same bucket (see {@link #getFirstOpenWindow(int, int)}).
+   *
+   * @param side      the side
+   * @param windowIdx the current window index
+   *
+   * @return the next window index, or {@code -1} if there are no more windows
+   */
+  public int getNextOpenWindow(final int side, final int windowIdx) {
+    return nexts[side][windowIdx];
+  }
+
+  /**
+   * Collect the distinct empty cells that would complete a window (and so win) for the given side.
+   *
+   * @param side the side
+   * @param out  buffer that receives the cell indices (may be {@code null} to only count them)
+   *
+   * @return the number of such cells
+   */
+  public int collectCompletingCells(final int side, final int[] out) {
+    return collectThreatCells(side, winLength - 1, out, 0);
+  }
+
+  /**
+   * Collect the distinct empty cells in windows that hold at least {@code minCount} stones of the given side and none
+   * of the opponent's.
+   *
+   * @param side     the side
+   * @param minCount the minimum number of stones
+   * @param out      buffer that receives the cell indices, after any already written (may be {@code null} to only
+   *                 count them)
+   * @param num      the number of cell indices already in {@code out}; these are not collected again
+   *
+   * @return the total number of cell indices in {@code out}
+   */
+  public int collectThreatCells(final int side, final int minCount, final int[] out, final int num) {
+    final int stamp = nextMarkStamp();
+    if (out != null) {
+      for (int i = 0; i < num; i++) {
+        marks[out[i]] = stamp;
+      }
+    }
+    int total = num;
+    for (int count = Math.max(0, minCount); count < winLength; count++) {
+      for (int windowIdx = heads[side][count]; windowIdx != NO_WINDOW; windowIdx = nexts[side][windowIdx]) {
+        for (final int idx : windows[windowIdx]) {
+          if (marks[idx] != stamp && !occupied[idx]) {
+            marks[idx] = stamp;
+            if (out != null) {
+              out[total] = idx;
+            }
+            total++;
+          }
+        }
+      }
+    }
+    return total;
+  }
+
+  /**
+   * Create a copy of this index with the same state.
+   *
+   * @return the copy
+   */
+  public WindowIndex getCopy() {
+    return new WindowIndex(this);
+  }
+
+  private int nextMarkStamp() {
+    markStamp++;
+    if (markStamp == 0) {
+      Arrays.fill(marks, 0);
+      markStamp = 1;
+    }
+    return markStamp;
+  }
+
+  private void link(final int side, final int windowIdx) {
+    final int count = counts[side][windowIdx];
+    final int head = heads[side][count];
+    nexts[side][windowIdx] = head;
+    prevs[side][windowIdx] = NO_WINDOW;
+    if (head != NO_WINDOW) {
+      prevs[side][head] = windowIdx;
+    }
+    heads[side][count] = windowIdx;
+    sizes[side][count]++;
+  }
+
+  private void unlink(final int side, final int windowIdx) {
+    final int count = counts[side][windowIdx];
+    final int prev = prevs[side][windowIdx];
+    final int next = nexts[side][windowIdx];
+    if (prev != NO_WINDOW) {
+      nexts[side][prev] = next;
+    }
+    else {
+      heads[side][count] = next;
+    }
+    if (next != NO_WINDOW) {
+      prevs[side][next] = prev;
+    }
+    sizes[side][count]--;
+  }
+
+  private static int[][] deepCopy(final int[][] arrays) {
+    final int[][] copy = new int[arrays.length][];
+    for (int i = 0; i < arrays.length; i++) {
+      copy[i] = arrays[i].clone();
+    }
+    return copy;
+  }
+}
@@ -0,0 +1,77 @@
+package edu.gwu.ai.codeknights.tictactoe.core;
+
+/**
+ * Zobrist hashing for board states. Every (cell, marker) pair maps to a fixed pseudo-random 64-bit value, and the key
+ * of a board is the XOR of the values of its populated cells. A key can therefore be updated in constant time whenever
+ * a single cell changes, by XOR-ing the old and new values.
+ *
+ * Values are derived from the player's marker (not the player object), so that two boards showing the same markers in
+ * the same cells have the same key, just like {@link Board#getHash()}.
+ *
+ * @author ajv
+ */
+public final class Zobrist {
+
+  private static final long SEED = 0x5DEECE66DL;
+
+  private Zobrist() {
+
+  }
+
+  /**
+   * Get the pseudo-random value for a cell populated by the given marker.
+   *
+   * @param cellIdx the cell index, {@code rowIdx * dim + colIdx}
+   * @param marker  the marker of the player populating the cell
+   *
+   * @return the 64-bit value to XOR into the key
+   */
+  public static long getKey(final int cellIdx, final char marker) {
+    return mix(((long) cellIdx << 16) | marker);
+  }
+
+  private static long mix(final long value) {
+    // SplitMix64 finalizer
+    long z = value * 0x9E3779B97F4A7C15L + SEED;
+    z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+    z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+    return z ^ (z >>> 31);
+  }
+
+  /**
+   * Get a pseudo-random value for the rules of a game, to XOR into keys that are kept across games (e.g., in a
+   * transposition table), so that the same markers in the same cells do not collide between games with a different board
+   * size or win length, or in which the other player moves first.
+   *
+   * @param dim           the board dimension
+   * @param winLength     the length required to win
+   * @param player1Marker the marker of the first player
+   * @param isHome        whether the first player moves first (see {@link Game#isHome()})
+   *
+   * @return the 64-bit value to XOR into the key
+   */
+  public static long getGameKey(final int dim, final int winLength, final char player1Marker, final boolean isHome) {
+    // Cell values mix non-negative inputs, so set the sign bit to keep the two kinds of values apart
+    return mix(Long.MIN_VALUE | (long) dim << 40 | (long) winLength << 24 | (long) player1Marker << 1 | (isHome ? 1L : 0L));
+  }
+
+  /**
+   * Get the value to XOR into the key when the given cell changes from {@code oldPlayer} to {@code newPlayer}.
+   *
+   * @param cellIdx   the cell index, {@code rowIdx * dim + colIdx}
+   * @param oldPlayer the player who populated the cell before (may be {@code null})
+   * @param newPlayer the player who populates the cell after (may be {@code null})
+   *
+   * @return the 64-bit difference between the two keys
+   */
+  public static long getDelta(final int cellIdx, final Player oldPlayer, final Player newPlayer) {
+    long delta = 0L;
+    if (oldPlayer != null) {
+      delta ^= getKey(cellIdx, oldPlayer.getMarker());
+    }
+    if (newPlayer != null) {
+      delta ^= getKey(cellIdx, newPlayer.getMarker());
+    }
+    return delta;
+  }
+}
@@ -1,8 +1,11 @@
 package edu.gwu.ai.codeknights.tictactoe.filter;
 
+import edu.gwu.ai.codeknights.tictactoe.core.BitBoard;
+import edu.gwu.ai.codeknights.tictactoe.core.BitGame;
 import edu.gwu.ai.codeknights.tictactoe.core.Cell;
 import edu.gwu.ai.codeknights.tictactoe.core.Game;
 
+import java.util.Iterator;
 import java.util.stream.Stream;
 
 public abstract class AbstractCellFilter {
@@ -22,4 +25,34 @@ public abstract class AbstractCellFilter {
   public final Stream<Cell> filterCells(final Game game) {
     return filterCells(game.getBoard().getEmptyCells().stream(), game);
   }
+
+  /**
+   * From a bitboard game state, select the indices of cells matching the same criteria or heuristic as
+   * {@link #filterCells(Game)}. The default implementation converts the state to a {@link Game}, so filters that are
+   * used during search should override it.
+   * @param game a bitboard game state
+   * @param out buffer that receives the selected cell indices (must hold at least {@link BitBoard#getNumCells()})
+   * @return the number of indices written
+   */
+  public int filterIndices(final BitGame game, final int[] out) {
+    return filterIndicesViaGame(game, out);
+  }
+
+  /**
+   * Implementation of {@link #filterIndices(BitGame, int[])} that converts the state to a {@link Game} and delegates to
+   * {@link #filterCells(Game)}
+   * @param game a bitboard game state
+   * @param out buffer that receives the selected cell indices
+   * @return the number of indices written
+   */
+  protected final int filterIndicesViaGame(final BitGame game, final int[] out) {
+    final BitBoard board = game.getBoard();
+    int num = 0;
+    final Iterator<Cell> it = filterCells(game.toGame()).iterator();
+    while (it.hasNext()) {
+      final Cell cell = it.next();
+      out[num++] = board.getIdx(cell.getRowIdx(), cell.getColIdx());
+    }
+    return num;
+  }
 }
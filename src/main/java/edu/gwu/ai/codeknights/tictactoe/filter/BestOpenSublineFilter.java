@@ -1,12 +1,15 @@
 package edu.gwu.ai.codeknights.tictactoe.filter;
 
+import edu.gwu.ai.codeknights.tictactoe.core.BitBoard;
+import edu.gwu.ai.codeknights.tictactoe.core.BitGame;
+import edu.gwu.ai.codeknights.tictactoe.core.Board;
+import edu.gwu.ai.codeknights.tictactoe.core.BoardGeometry;
 import edu.gwu.ai.codeknights.tictactoe.core.Cell;
 import edu.gwu.ai.codeknights.tictactoe.core.Game;
+import edu.gwu.ai.codeknights.tictactoe.core.OpenSublineScanner;
 import edu.gwu.ai.codeknights.tictactoe.core.Player;
 
-import java.util.HashSet;
 import java.util.List;
-import java.util.Set;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
@@ -17,24 +20,77 @@ public class BestOpenSublineFilter extends EmptyCellFilter {
     final List<Cell> inputCells = input.collect(Collectors.toList());
     final int winLength = game.getWinLength();
     final Player player = game.getNextPlayer();
-    final Set<Cell> candidates = new HashSet<>();
+    final Board board = game.getBoard();
+    final BoardGeometry geometry = board.getGeometry();
+    final OpenSublineScanner scanner = new OpenSublineScanner();
+    final int[] lineIdxs = new int[BoardGeometry.NUM_LINES_THROUGH_CELL];
+    final boolean[] candidates = new boolean[geometry.getNumCells()];
     for (final Cell inputCell : inputCells) {
-      final List<List<Cell>> lines = game.getBoard().findLinesThrough(inputCell, winLength);
+      final int numLines = board.findLinesThrough(inputCell.getRowIdx(), inputCell.getColIdx(), winLength, lineIdxs,
+        null);
       int maxLength = 0;
-      List<Cell> maxSubline = null;
-      for (final List<Cell> line : lines) {
-        final List<Cell> subline = game.getLongestOpenSublineForPlayer(line, player);
-        final int len = subline.size();
-        if (subline.size() > maxLength) {
-          maxLength = len;
-          maxSubline = subline;
+      int[] maxLine = null;
+      int maxStart = 0;
+      for (int i = 0; i < numLines; i++) {
+        final int[] line = geometry.getLine(lineIdxs[i]);
+        scanner.scan(board, line, player);
+        if (scanner.getBestLength() > maxLength) {
+          maxLength = scanner.getBestLength();
+          maxLine = line;
+          maxStart = scanner.getBestStart();
         }
       }
-      if (maxSubline != null) {
-        candidates.addAll(maxSubline);
+      for (int pos = maxStart; pos < maxStart + maxLength; pos++) {
+        candidates[maxLine[pos]] = true;
       }
     }
     return super.filterCells(inputCells.stream(), game)
-      .filter(candidates::contains);
+      .filter(cell -> candidates[geometry.getIdx(cell.getRowIdx(), cell.getColIdx())]);
+  }
+
+  @Override
+  public int filterIndices(final BitGame game, final int[] out) {
+    final int winLength = game.getWinLength();
+    final int side = game.getNextSide();
+    final BitBoard board = game.getBoard();
+    final BoardGeometry geometry = BoardGeometry.forDim(game.getDim());
+    final OpenSublineScanner scanner = new OpenSublineScanner();
+    final boolean[] candidates = new boolean[geometry.getNumCells()];
+    for (int idx = 0; idx < geometry.getNumCells(); idx++) {
+      if (!board.isEmpty(idx)) {
+        continue;
+      }
+      int maxLength = 0;
+      int[] maxLine = null;
+      int maxStart = 0;
+      for (final int lineIdx : geometry.getLinesThrough(idx)) {
+        final int[] line = geometry.getLine(lineIdx);
+        if (winLength < 1 || line.length < winLength) {
+          continue;
+        }
+        scanner.begin();
+        for (final int lineCellIdx : line) {
+          final int cellSide = board.getSide(lineCellIdx);
+          scanner.accept(cellSide == BitBoard.NO_SIDE ? OpenSublineScanner.EMPTY
+            : cellSide == side ? OpenSublineScanner.OWN : OpenSublineScanner.OTHER);
+        }
+        scanner.end();
+        if (scanner.getBestLength() > maxLength) {
+          maxLength = scanner.getBestLength();
+          maxLine = line;
+          maxStart = scanner.getBestStart();
+        }
+      }
+      for (int pos = maxStart; pos < maxStart + maxLength; pos++) {
+        candidates[maxLine[pos]] = true;
+      }
+    }
+    int num = 0;
+    for (int idx = 0; idx < geometry.getNumCells(); idx++) {
+      if (candidates[idx] && board.isEmpty(idx)) {
+        out[num++] = idx;
+      }
+    }
+    return num;
   }
 }
@@ -1,5 +1,6 @@
 package edu.gwu.ai.codeknights.tictactoe.filter;
 
+import edu.gwu.ai.codeknights.tictactoe.core.BitGame;
 import edu.gwu.ai.codeknights.tictactoe.core.Cell;
 import edu.gwu.ai.codeknights.tictactoe.core.Game;
 
@@ -11,4 +12,9 @@ public class EmptyCellFilter extends AbstractCellFilter {
   public Stream<Cell> filterCells(final Stream<Cell> input, final Game game) {
     return input.filter(Cell::isEmpty);
   }
+
+  @Override
+  public int filterIndices(final BitGame game, final int[] out) {
+    return game.getBoard().collectEmpty(out);
+  }
 }
@@ -27,6 +27,13 @@ public enum Filter {
     public AbstractCellFilter createFilter() {
       return new PopulatedNeighborFilter();
     }
+  },
+  THREAT("Threat") {
+
+    @Override
+    public AbstractCellFilter createFilter() {
+      return new ThreatFilter();
+    }
   };
 
   private final String name;
@@ -1,5 +1,6 @@
 package edu.gwu.ai.codeknights.tictactoe.filter;
 
+import edu.gwu.ai.codeknights.tictactoe.core.BitGame;
 import edu.gwu.ai.codeknights.tictactoe.core.Cell;
 import edu.gwu.ai.codeknights.tictactoe.core.Game;
 
@@ -12,6 +13,11 @@ public class PopulatedNeighborFilter extends EmptyCellFilter {
     return super.filterCells(input, game).filter(cell -> hasPopulatedNeighbor(cell, game));
   }
 
+  @Override
+  public int filterIndices(final BitGame game, final int[] out) {
+    return game.getBoard().collectPopulatedNeighbors(out);
+  }
+
   public static boolean hasPopulatedNeighbor(final int rowIdx, final int colIdx, final Game game) {
     return game.getBoard().getNeighborsOfCell(rowIdx, colIdx).stream().anyMatch(Cell::isPopulated);
   }
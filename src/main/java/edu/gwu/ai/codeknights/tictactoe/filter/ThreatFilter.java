@@ -0,0 +1,70 @@
+package edu.gwu.ai.codeknights.tictactoe.filter;
+
+import edu.gwu.ai.codeknights.tictactoe.core.BitBoard;
+import edu.gwu.ai.codeknights.tictactoe.core.BitGame;
+import edu.gwu.ai.codeknights.tictactoe.core.Cell;
+import edu.gwu.ai.codeknights.tictactoe.core.Game;
+import edu.gwu.ai.codeknights.tictactoe.core.WindowIndex;
+
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Selects cells using the window index (see {@link WindowIndex}): cells that win immediately; otherwise cells that block
+ * an immediate win by the opponent; otherwise cells in open windows that are one stone away from such a threat, for
+ * either player. If there are none of these, all empty cells are selected.
+ */
+public class ThreatFilter extends EmptyCellFilter {
+
+  @Override
+  public Stream<Cell> filterCells(final Stream<Cell> input, final Game game) {
+    final List<Cell> inputCells = super.filterCells(input, game).collect(Collectors.toList());
+    final int dim = game.getDim();
+    final int side = game.getNextPlayer().equals(game.getPlayer1()) ? BitBoard.SIDE_1 : BitBoard.SIDE_2;
+    final int[] threats = new int[dim * dim];
+    final int num = selectThreats(game.getWindowIndex(), side, threats);
+    if (num == 0) {
+      return inputCells.stream();
+    }
+    final boolean[] isThreat = new boolean[dim * dim];
+    for (int i = 0; i < num; i++) {
+      isThreat[threats[i]] = true;
+    }
+    return inputCells.stream()
+      .filter(cell -> isThreat[cell.getRowIdx() * dim + cell.getColIdx()]);
+  }
+
+  @Override
+  public int filterIndices(final BitGame game, final int[] out) {
+    final int num = selectThreats(game.getWindowIndex(), game.getNextSide(), out);
+    return num > 0 ? num : super.filterIndices(game, out);
+  }
+
+  /**
+   * Select the threat cells for the side to move, in order of urgency (see {@link ThreatFilter}).
+   *
+   * @param index the window index of the game
+   * @param side  the side to move
+   * @param out   buffer that receives the cell indices
+   *
+   * @return the number of cells selected (zero if there are no threats)
+   */
+  public static int selectThreats(final WindowIndex index, final int side, final int[] out) {
+    final int opponent = BitBoard.getOtherSide(side);
+    if (index.hasCompleteWindow(side) || index.hasCompleteWindow(opponent)) {
+      return 0;
+    }
+    int num = index.collectCompletingCells(side, out);
+    if (num > 0) {
+      return num;
+    }
+    num = index.collectCompletingCells(opponent, out);
+    if (num > 0) {
+      return num;
+    }
+    final int minCount = index.getWinLength() - 2;
+    num = index.collectThreatCells(side, minCount, out, 0);
+    return index.collectThreatCells(opponent, minCount, out, num);
+  }
+}
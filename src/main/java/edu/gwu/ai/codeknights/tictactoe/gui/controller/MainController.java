@@ -1,6 +1,7 @@
 package edu.gwu.ai.codeknights.tictactoe.gui.controller;
 
 import edu.gwu.ai.codeknights.tictactoe.chooser.AbstractOnlineChooser;
+import edu.gwu.ai.codeknights.tictactoe.chooser.SearchStats;
 import edu.gwu.ai.codeknights.tictactoe.chooser.StupidMoveChooser;
 import edu.gwu.ai.codeknights.tictactoe.core.Cell;
 import edu.gwu.ai.codeknights.tictactoe.core.Game;
@@ -124,9 +125,10 @@ public class MainController {
      * @param mode     a integer represents one of game modes
      * @param masterId id of local primary player
      * @param opId     id of opponent player
+     * @param numThreads number of threads used by each search of an AI player
      */
     public void setup(long gameId, final int dim, final int winLen, final
-    GameMode mode, int masterId, int opId, boolean isHome, boolean asSpectator) {
+    GameMode mode, int masterId, int opId, boolean isHome, boolean asSpectator, int numThreads) {
         mPlayerStatus.setText(asSpectator ? "Spectating" : "Playing");
         if (!asSpectator) {
             // play game, not as spectator
@@ -145,7 +147,7 @@ public class MainController {
         }
 
         helper.createLocalGame(gameId, dim, winLen, mode, masterId, opId, isHome,
-                asSpectator);
+                asSpectator, numThreads);
         game = helper.getGame();
         this.mode = mode;
 
@@ -289,11 +291,13 @@ public class MainController {
         final Cell cell = player.chooseCell(game);
         game.playInCell(cell, player);
         final long endMs = System.currentTimeMillis();
-        helper.history.set(String.format("[%s][%d, %d]-AI-%dms\n%s",
+        final SearchStats stats = player.getChooser().getLastSearchStats();
+        helper.history.set(String.format("[%s][%d, %d]-AI-%dms%s\n%s",
                 String.valueOf(player.getMarker()),
                 cell.getRowIdx(),
                 cell.getColIdx(),
                 endMs - startMs,
+                stats != null ? "-" + stats.toShortString() : "",
                 helper.history.get()));
         refresh();
     }
@@ -57,6 +57,9 @@ public class StartController {
     @FXML
     private TextField stGameId;
 
+    @FXML
+    private TextField stThreads;
+
     @FXML
     private RadioButton stFirstHome;
 
@@ -77,6 +80,7 @@ public class StartController {
 
         stDim.setText("12");
         stWinLen.setText("6");
+        stThreads.setText(String.valueOf(Const.SEARCH_THREADS_DEFAULT));
 
         stFirstHome.selectedProperty().addListener((observable, oldValue,
                                                     newValue) -> stSecondHome.setSelected(!newValue));
@@ -184,6 +188,11 @@ public class StartController {
             if(dim == 0 || winLen == 0){
                 return;
             }
+            Integer threads = Integer.parseInt(stThreads.getText().trim());
+            if(threads < 1){
+                stErr.setText("Invalid Arguments");
+                return;
+            }
             result = FXMLUtil.loadAsNode("fxml/main.fxml");
             FXMLUtil.addStylesheets(result.getNode(), Const.UNIVERSAL_STYLESHEET_URL);
             primaryStage.setScene(new Scene(result.getNode()));
@@ -191,7 +200,7 @@ public class StartController {
             primaryStage.setOnCloseRequest(event -> System.exit(0));
             MainController controller = (MainController) result.getController();
             controller.setup(gameId, dim, winLen, mode, teamId, opponentId, isHome,
-                    asSpectator);
+                    asSpectator, threads);
             stStart.setDisable(true);
         } catch (IOException e) {
             e.printStackTrace();
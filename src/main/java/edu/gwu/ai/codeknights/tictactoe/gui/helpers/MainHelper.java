@@ -36,7 +36,7 @@ public class MainHelper {
     }
 
     public void createLocalGame(long gameId, int dim, int winLen, GameMode
-            mode, int masterId, int opId, boolean isHome, boolean asSpectator) {
+            mode, int masterId, int opId, boolean isHome, boolean asSpectator, int numThreads) {
 
         // create the choosers for the two players
         // for AI players, use time-limited alpha-beta pruning with a limit of 110 seconds (1min 50sec)
@@ -52,26 +52,32 @@ public class MainHelper {
             case PVE: {
                 masterChooser = new StupidMoveChooser();
                 opChooser = new CaseByCaseChooser(new AbpTimeLimitChooser(chooserTimeLimit,
-                        new EmptyCellFilter()));
+                        new EmptyCellFilter(), numThreads));
                 break;
             }
             case EVP: {
-                masterChooser = new CaseByCaseChooser(new AbpTimeLimitChooser(chooserTimeLimit, new EmptyCellFilter()));
+                masterChooser = new CaseByCaseChooser(new AbpTimeLimitChooser(chooserTimeLimit, new EmptyCellFilter(),
+                        numThreads));
                 opChooser = new StupidMoveChooser();
                 break;
             }
             case EVE: {
-                masterChooser = new CaseByCaseChooser(new AbpTimeLimitChooser(chooserTimeLimit, new EmptyCellFilter()));
-                opChooser = new CaseByCaseChooser(new AbpTimeLimitChooser(chooserTimeLimit, new EmptyCellFilter()));
+                masterChooser = new CaseByCaseChooser(new AbpTimeLimitChooser(chooserTimeLimit, new EmptyCellFilter(),
+                        numThreads));
+                opChooser = new CaseByCaseChooser(new AbpTimeLimitChooser(chooserTimeLimit, new EmptyCellFilter(),
+                        numThreads));
                 break;
             }
             case EVE_ONLINE: {
+                OnlineMoveMaker moveMaker = null;
                 if(asSpectator){
                     masterChooser = new OnlineMoveFetcher();
                 }else{
-                    masterChooser = new OnlineMoveMaker(chooserTimeLimit);
+                    moveMaker = new OnlineMoveMaker(chooserTimeLimit, numThreads);
+                    masterChooser = moveMaker;
                 }
-                opChooser = new OnlineMoveFetcher();
+                // ponder while waiting for the opponent's moves
+                opChooser = new OnlineMoveFetcher(moveMaker);
                 break;
             }
             default:
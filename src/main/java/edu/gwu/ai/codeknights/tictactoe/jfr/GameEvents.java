@@ -0,0 +1,155 @@
+package edu.gwu.ai.codeknights.tictactoe.jfr;
+
+/**
+ * Starts the custom JDK Flight Recorder events of this package, around the hot and slow paths: search iterations, rule
+ * evaluations, filter calls during search, and calls to the online game server. Each {@code begin} method starts the
+ * timing of an event and returns it, and its {@code record} method sets the event's fields and commits it (when a
+ * recording is running, and the event is enabled in its settings).
+ *
+ * NOTE: the event classes live in {@code src/jfr/java}, which the {@code jfr} Maven profile compiles (it is active
+ * when building on Java 11+), so that the main sources still build on any Java 8. This class loads them by name, and
+ * the {@code begin} methods return {@code null} when they were not built, or the {@code jdk.jfr} API is not present
+ * (e.g., on an older Java 8 runtime), so callers must check. When no recording is running, an event costs little more
+ * than its allocation, which the JIT usually removes.
+ *
+ * @author ajv
+ */
+public final class GameEvents {
+
+  private static final String FACTORY_CLASS_NAME = "edu.gwu.ai.codeknights.tictactoe.jfr.JfrEventFactory";
+
+  /**
+   * The factory of the events, or {@code null} if they are not available.
+   */
+  private static final EventFactory FACTORY = loadFactory();
+
+  private GameEvents() {
+  }
+
+  private static EventFactory loadFactory() {
+    try {
+      Class.forName("jdk.jfr.Event", false, GameEvents.class.getClassLoader());
+      return (EventFactory) Class.forName(FACTORY_CLASS_NAME).getDeclaredConstructor().newInstance();
+    }
+    catch (final ReflectiveOperationException | LinkageError e) {
+      return null;
+    }
+  }
+
+  /**
+   * Check whether events are recorded at all (i.e., whether the event classes were built, and the {@code jdk.jfr} API
+   * is present).
+   *
+   * @return {@code true} if the {@code begin} methods return events
+   */
+  public static boolean isAvailable() {
+    return FACTORY != null;
+  }
+
+  /**
+   * Start timing an iterative-deepening iteration.
+   *
+   * @return the event, or {@code null} if events are not available
+   */
+  public static SearchIteration beginSearchIteration() {
+    return FACTORY == null ? null : FACTORY.beginSearchIteration();
+  }
+
+  /**
+   * Start timing a rule evaluation.
+   *
+   * @return the event, or {@code null} if events are not available
+   */
+  public static RuleEvaluation beginRuleEvaluation() {
+    return FACTORY == null ? null : FACTORY.beginRuleEvaluation();
+  }
+
+  /**
+   * Start timing a filter call during search.
+   *
+   * @return the event, or {@code null} if events are not available
+   */
+  public static Filter beginFilter() {
+    return FACTORY == null ? null : FACTORY.beginFilter();
+  }
+
+  /**
+   * Start timing a call to the online game server.
+   *
+   * @return the event, or {@code null} if events are not available
+   */
+  public static OnlineCall beginOnlineCall() {
+    return FACTORY == null ? null : FACTORY.beginOnlineCall();
+  }
+
+  interface EventFactory {
+
+    SearchIteration beginSearchIteration();
+
+    RuleEvaluation beginRuleEvaluation();
+
+    Filter beginFilter();
+
+    OnlineCall beginOnlineCall();
+  }
+
+  public interface SearchIteration {
+
+    /**
+     * Set the results of the iteration and commit the event.
+     *
+     * @param gameId    the game id
+     * @param depth     the depth of the iteration
+     * @param numNodes  the number of nodes visited by the iteration
+     * @param completed whether the iteration completed, rather than being stopped
+     */
+    void record(long gameId, int depth, long numNodes, boolean completed);
+  }
+
+  public interface RuleEvaluation {
+
+    /**
+     * Set the result of the rule and commit the event.
+     *
+     * @param gameId   the game id
+     * @param rule     the name of the rule
+     * @param numCells the number of cells the rule chose from
+     * @param matched  whether the rule chose a cell
+     */
+    void record(long gameId, String rule, int numCells, boolean matched);
+  }
+
+  public interface Filter {
+
+    /**
+     * Check whether the event would be committed (it is enabled, and above its duration threshold), to skip preparing
+     * its fields otherwise.
+     *
+     * @return {@code true} if the event should be recorded
+     */
+    boolean shouldCommit();
+
+    /**
+     * Set the result of the filter call and commit the event.
+     *
+     * @param gameId   the game id
+     * @param filter   the name of the filter
+     * @param depth    the remaining depth of the node
+     * @param numCells the number of cells selected
+     */
+    void record(long gameId, String filter, int depth, int numCells);
+  }
+
+  public interface OnlineCall {
+
+    /**
+     * Set the result of the call and commit the event.
+     *
+     * @param gameId     the game id
+     * @param call       the name of the call
+     * @param httpStatus the HTTP status code, or -1 if there was no response
+     * @param success    whether the server reported success
+     */
+    void record(long gameId, String call, int httpStatus, boolean success);
+  }
+}
@@ -18,4 +18,45 @@ public class Const {
     public static final String API_TARGET_DEFAULT = "6";
 
     public static final int CHOOSER_TIME_LIMIT_DEFAULT = 110;
+
+    /**
+     * size of the transposition table of each alpha-beta chooser, in megabytes
+     * */
+    public static final int TRANSPOSITION_TABLE_SIZE_MB_DEFAULT = 16;
+
+    /**
+     * number of threads used by each alpha-beta search (the calling thread, plus helpers)
+     * */
+    public static final int SEARCH_THREADS_DEFAULT = 1;
+
+    /**
+     * time limit (in milliseconds) for the threat-space search that looks for a forced win before the full search
+     * */
+    public static final long THREAT_SPACE_TIME_LIMIT_MS_DEFAULT = 1000;
+
+    /**
+     * time limit (in milliseconds) for the proof-number search that tries to solve endgames and tactical positions
+     * */
+    public static final long PROOF_NUMBER_TIME_LIMIT_MS_DEFAULT = 2000;
+
+    /**
+     * size of the proof-number search node table, in megabytes
+     * */
+    public static final int PROOF_NUMBER_TABLE_SIZE_MB_DEFAULT = 32;
+
+    /**
+     * the proof-number search is tried once at most this many cells are empty
+     * */
+    public static final int PROOF_NUMBER_MAX_EMPTY_DEFAULT = 24;
+
+    /**
+     * maximum number of nodes in the Monte Carlo search tree (once reached, playouts start from existing leaves)
+     * */
+    public static final int MCTS_MAX_NODES_DEFAULT = 500000;
+
+    /**
+     * whether searches evaluate positions with the incremental window-pattern scores (instead of scanning every line);
+     * off until a match shows that the pattern scores play at least as well
+     * */
+    public static final boolean PATTERN_EVALUATION_DEFAULT = false;
 }
@@ -0,0 +1,83 @@
+package edu.gwu.ai.codeknights.tictactoe.chooser;
+
+import edu.gwu.ai.codeknights.tictactoe.core.BitBoard;
+import edu.gwu.ai.codeknights.tictactoe.core.BitGame;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Solves small positions by searching every move, to check the choosers that claim to find forced wins.
+ */
+final class ExhaustiveSolver {
+
+  private final Map<Long, Boolean> winMemo;
+
+  ExhaustiveSolver() {
+    winMemo = new HashMap<>();
+  }
+
+  /**
+   * Check whether the given side, to move, can force a win.
+   *
+   * @param game the game (restored before returning)
+   * @param side the side to move
+   *
+   * @return {@code true} if the side can force a win
+   */
+  boolean canWin(final BitGame game, final int side) {
+    final long key = game.getBoardHash() * 2L + side;
+    final Boolean memo = winMemo.get(key);
+    if (memo != null) {
+      return memo;
+    }
+    boolean result = false;
+    final BitBoard board = game.getBoard();
+    for (int idx = 0; idx < board.getNumCells() && !result; idx++) {
+      if (board.isEmpty(idx)) {
+        game.makeMove(idx, side);
+        result = isWonAfterMove(game, side);
+        game.unmakeMove();
+      }
+    }
+    winMemo.put(key, result);
+    return result;
+  }
+
+  /**
+   * Check whether the given side, to move, can avoid losing (win or draw).
+   *
+   * @param game the game (restored before returning)
+   * @param side the side to move
+   *
+   * @return {@code true} if the side can avoid losing
+   */
+  boolean canAvoidLoss(final BitGame game, final int side) {
+    final BitBoard board = game.getBoard();
+    for (int idx = 0; idx < board.getNumCells(); idx++) {
+      if (board.isEmpty(idx)) {
+        game.makeMove(idx, side);
+        final boolean result = !isLostAfterMove(game, side);
+        game.unmakeMove();
+        if (result) {
+          return true;
+        }
+      }
+    }
+    return false;
+  }
+
+  /**
+   * Check whether the given side, which just moved, has won or can force a win against every defense.
+   */
+  boolean isWonAfterMove(final BitGame game, final int side) {
+    return game.didSideWin(side) || !game.isGameOver() && !canAvoidLoss(game, BitBoard.getOtherSide(side));
+  }
+
+  /**
+   * Check whether the given side, which just moved, will lose against the best play of the other side.
+   */
+  boolean isLostAfterMove(final BitGame game, final int side) {
+    return !game.didSideWin(side) && !game.isGameOver() && canWin(game, BitBoard.getOtherSide(side));
+  }
+}
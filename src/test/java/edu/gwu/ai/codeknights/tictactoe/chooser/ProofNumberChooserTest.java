@@ -0,0 +1,56 @@
+package edu.gwu.ai.codeknights.tictactoe.chooser;
+
+import edu.gwu.ai.codeknights.tictactoe.core.BitGame;
+import edu.gwu.ai.codeknights.tictactoe.core.Cell;
+import edu.gwu.ai.codeknights.tictactoe.core.Game;
+import edu.gwu.ai.codeknights.tictactoe.core.TestGames;
+import org.junit.Test;
+
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class ProofNumberChooserTest {
+
+  @Test
+  public void resultsMatchExhaustiveSolver() {
+    final Random random = new Random(5L);
+    int numSolved = 0;
+    for (int trial = 0; trial < 150; trial++) {
+      final Game game = TestGames.createRandomGame(random, 5, 4, 14);
+      if (game.isGameOver()) {
+        continue;
+      }
+      final ProofNumberChooser chooser = new ProofNumberChooser(20000L, 16);
+      final Cell cell = chooser.chooseCell(game.getBoard().getEmptyCells().stream(), game);
+      final int result = chooser.getLastResult();
+      if (result == ProofNumberChooser.RESULT_UNKNOWN) {
+        continue;
+      }
+      numSolved++;
+
+      // Compare the result, then check that the chosen cell keeps it
+      final BitGame bitGame = new BitGame(game);
+      final int side = bitGame.getNextSide();
+      final ExhaustiveSolver solver = new ExhaustiveSolver();
+      final int expected = solver.canWin(bitGame, side) ? ProofNumberChooser.RESULT_WIN
+        : solver.canAvoidLoss(bitGame, side) ? ProofNumberChooser.RESULT_DRAW : ProofNumberChooser.RESULT_LOSS;
+      assertEquals(game.toString(), expected, result);
+      if (result == ProofNumberChooser.RESULT_LOSS) {
+        assertNull(game.toString(), cell);
+        continue;
+      }
+      bitGame.makeMove(bitGame.getBoard().getIdx(cell.getRowIdx(), cell.getColIdx()), side);
+      if (result == ProofNumberChooser.RESULT_WIN) {
+        assertTrue(game.toString(), solver.isWonAfterMove(bitGame, side));
+      }
+      else {
+        assertFalse(game.toString(), solver.isLostAfterMove(bitGame, side));
+      }
+    }
+    assertTrue("no position solved", numSolved > 0);
+  }
+}
@@ -0,0 +1,36 @@
+package edu.gwu.ai.codeknights.tictactoe.chooser;
+
+import edu.gwu.ai.codeknights.tictactoe.core.BitGame;
+import edu.gwu.ai.codeknights.tictactoe.core.Cell;
+import edu.gwu.ai.codeknights.tictactoe.core.Game;
+import edu.gwu.ai.codeknights.tictactoe.core.TestGames;
+import org.junit.Test;
+
+import java.util.Random;
+
+import static org.junit.Assert.assertTrue;
+
+public class ThreatSpaceChooserTest {
+
+  @Test
+  public void reportedWinsAreForcedWins() {
+    final Random random = new Random(5L);
+    int numFound = 0;
+    for (int trial = 0; trial < 200; trial++) {
+      final Game game = TestGames.createRandomGame(random, 5, 4, 14);
+      if (game.isGameOver()) {
+        continue;
+      }
+      final Cell cell = new ThreatSpaceChooser(ThreatSpaceChooser.MAX_THREES_DEFAULT, 5000L)
+        .chooseCell(game.getBoard().getEmptyCells().stream(), game);
+      if (cell != null) {
+        numFound++;
+        final BitGame bitGame = new BitGame(game);
+        final int side = bitGame.getNextSide();
+        bitGame.makeMove(bitGame.getBoard().getIdx(cell.getRowIdx(), cell.getColIdx()), side);
+        assertTrue(game.toString(), new ExhaustiveSolver().isWonAfterMove(bitGame, side));
+      }
+    }
+    assertTrue("no forced win found", numFound > 0);
+  }
+}
@@ -0,0 +1,81 @@
+package edu.gwu.ai.codeknights.tictactoe.chooser;
+
+import org.junit.Test;
+
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+
+public class TranspositionTableTest {
+
+  @Test
+  public void storedEntryRoundTrips() {
+    final TranspositionTable table = new TranspositionTable(1);
+    final Random random = new Random(23L);
+    for (int trial = 0; trial < 1000; trial++) {
+      final long key = random.nextLong();
+      final long score = random.nextInt();
+      final int depth = random.nextInt(256);
+      final int flag = 1 + random.nextInt(3);
+      final int move = random.nextInt(8000) - 1;
+      table.store(key, score, depth, flag, move);
+      final long entry = table.probe(key);
+      assertEquals(score, TranspositionTable.getScore(entry));
+      assertEquals(depth, TranspositionTable.getDepth(entry));
+      assertEquals(flag, TranspositionTable.getFlag(entry));
+      assertEquals(move, TranspositionTable.getMove(entry));
+    }
+  }
+
+  @Test
+  public void probeMissesOtherKeysAndClearedEntries() {
+    final TranspositionTable table = new TranspositionTable(1);
+    table.store(42L, 7L, 3, TranspositionTable.FLAG_EXACT, 5);
+    assertEquals(0L, table.probe(43L));
+    assertEquals(0L, table.probe(42L + table.getCapacity()));
+    assertNotEquals(0L, table.probe(42L));
+    table.clear();
+    assertEquals(0L, table.probe(42L));
+  }
+
+  @Test
+  public void scoresOutsideIntRangeAreNotStored() {
+    final TranspositionTable table = new TranspositionTable(1);
+    table.store(42L, Integer.MAX_VALUE + 1L, 3, TranspositionTable.FLAG_EXACT, 5);
+    assertEquals(0L, table.probe(42L));
+  }
+
+  @Test
+  public void deeperBoundOfSameSearchIsKept() {
+    final TranspositionTable table = new TranspositionTable(1);
+    table.store(42L, 7L, 5, TranspositionTable.FLAG_LOWER, 5);
+    table.store(42L, 8L, 2, TranspositionTable.FLAG_UPPER, 6);
+    assertEquals(5, TranspositionTable.getDepth(table.probe(42L)));
+
+    // An exact score replaces it
+    table.store(42L, 9L, 2, TranspositionTable.FLAG_EXACT, 6);
+    assertEquals(9L, TranspositionTable.getScore(table.probe(42L)));
+
+    // So does any entry from a later search
+    table.store(42L, 7L, 5, TranspositionTable.FLAG_LOWER, 5);
+    table.newSearch();
+    table.store(42L, 8L, 2, TranspositionTable.FLAG_UPPER, 6);
+    assertEquals(2, TranspositionTable.getDepth(table.probe(42L)));
+  }
+
+  @Test
+  public void entriesOfOlderSearchesAreReplacedFirst() {
+    // Keys that differ by a multiple of the capacity share a bucket
+    final TranspositionTable table = new TranspositionTable(1);
+    final long stride = table.getCapacity();
+    for (int i = 0; i < 8; i++) {
+      table.store(1L + i * stride, i, 100, TranspositionTable.FLAG_EXACT, i);
+    }
+    table.newSearch();
+    table.store(1L + 100 * stride, 100L, 0, TranspositionTable.FLAG_EXACT, 0);
+    table.store(1L + 101 * stride, 101L, 0, TranspositionTable.FLAG_EXACT, 0);
+    assertNotEquals(0L, table.probe(1L + 100 * stride));
+    assertNotEquals(0L, table.probe(1L + 101 * stride));
+  }
+}
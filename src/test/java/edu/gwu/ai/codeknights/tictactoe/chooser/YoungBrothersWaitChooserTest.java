@@ -0,0 +1,38 @@
+package edu.gwu.ai.codeknights.tictactoe.chooser;
+
+import edu.gwu.ai.codeknights.tictactoe.core.Cell;
+import edu.gwu.ai.codeknights.tictactoe.core.Game;
+import edu.gwu.ai.codeknights.tictactoe.core.TestGames;
+import org.junit.Test;
+
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class YoungBrothersWaitChooserTest {
+
+  @Test
+  public void scoreMatchesSequentialSearchAtSameDepth() {
+    final Random random = new Random(5L);
+    for (int trial = 0; trial < 60; trial++) {
+      final int dim = 4 + random.nextInt(3);
+      final Game game = TestGames.createRandomGame(random, dim, 4, 2 + random.nextInt(dim * dim / 2));
+      if (game.isGameOver()) {
+        continue;
+      }
+      final int maxDepth = 2 + random.nextInt(3);
+
+      // Fresh choosers each time, so that no transposition-table entry from an earlier position is reused
+      final AlphaBetaPruningChooser sequential = new AlphaBetaPruningChooser(null, 1, 1);
+      sequential.setMaxDepth(maxDepth);
+      sequential.chooseCell(game);
+      final YoungBrothersWaitChooser ybw = new YoungBrothersWaitChooser(60, null, 1, 4);
+      ybw.setMaxDepth(maxDepth);
+      final Cell cell = ybw.chooseCell(game);
+
+      assertEquals(game + " (depth " + maxDepth + ")", sequential.getBestScore(), ybw.getBestScore());
+      assertTrue(game + " (depth " + maxDepth + ")", sequential.getBestCells().contains(cell));
+    }
+  }
+}
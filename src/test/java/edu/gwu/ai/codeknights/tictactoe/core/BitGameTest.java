@@ -0,0 +1,65 @@
+package edu.gwu.ai.codeknights.tictactoe.core;
+
+import org.junit.Test;
+
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+
+public class BitGameTest {
+
+  @Test
+  public void incrementalPatternScoresMatchFreshGame() {
+    final Random random = new Random(13L);
+    for (int trial = 0; trial < 500; trial++) {
+      final int dim = 3 + random.nextInt(10);
+      final Game game = TestGames.createRandomGame(random, dim, 1 + random.nextInt(dim), random.nextInt(dim));
+      BitGame bitGame = new BitGame(game);
+      if (random.nextBoolean()) {
+        // Create the evaluator now, so that the moves below update it
+        bitGame.evaluateSidePatterns(BitBoard.SIDE_1);
+      }
+      final int numMoves = random.nextInt(bitGame.getBoard().countEmpty() + 1);
+      for (int i = 0; i < numMoves; i++) {
+        int idx;
+        do {
+          idx = random.nextInt(dim * dim);
+        } while (!bitGame.getBoard().isEmpty(idx));
+        bitGame.makeMove(idx, random.nextInt(2));
+        if (random.nextInt(4) == 0) {
+          bitGame = bitGame.getCopy();
+        }
+      }
+      final int numUnmakes = random.nextInt(numMoves + 1);
+      for (int i = 0; i < numUnmakes; i++) {
+        bitGame.unmakeMove();
+      }
+
+      final BitGame fresh = new BitGame(bitGame.toGame());
+      for (int side = 0; side < 2; side++) {
+        assertEquals(fresh.evaluateSidePatterns(side), bitGame.evaluateSidePatterns(side));
+      }
+    }
+  }
+
+  @Test
+  public void winnerAndHashFollowGame() {
+    final Random random = new Random(17L);
+    for (int trial = 0; trial < 500; trial++) {
+      final int dim = 3 + random.nextInt(6);
+      final Game game = TestGames.createGame(dim, 3 + random.nextInt(dim - 2), random.nextBoolean());
+      final BitGame bitGame = new BitGame(game);
+      while (!game.isGameOver()) {
+        final List<Cell> emptyCells = game.getBoard().getEmptyCells();
+        final Cell cell = emptyCells.get(random.nextInt(emptyCells.size()));
+        game.makeMove(cell.getRowIdx(), cell.getColIdx());
+        bitGame.makeMove(bitGame.getBoard().getIdx(cell.getRowIdx(), cell.getColIdx()));
+        assertEquals(game.isGameOver(), bitGame.isGameOver());
+        assertEquals(game.getBoard().toString(), new BitGame(game).getBoardHash(), bitGame.getBoardHash());
+      }
+      assertEquals(game.didPlayer1Win(), bitGame.didSideWin(BitBoard.SIDE_1));
+      assertEquals(game.didPlayer2Win(), bitGame.didSideWin(BitBoard.SIDE_2));
+    }
+  }
+}
@@ -0,0 +1,98 @@
+package edu.gwu.ai.codeknights.tictactoe.core;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+
+public class OpenSublineScannerTest {
+
+  private static final int NUM_BOARDS = 3000;
+
+  /**
+   * The quadratic search that {@link Game#getLongestOpenSublineForPlayer(List, Player)} used before
+   * {@link OpenSublineScanner}, kept as the reference: among the sublines of only empty cells and the player's cells,
+   * with at least one of each, the longest; ties go to the most populated, then to the first.
+   */
+  private static List<Cell> findLongestOpenSublineQuadratic(final List<Cell> line, final Player player) {
+    if (line.stream().noneMatch(cell -> cell.isPopulatedBy(player) || cell.isEmpty())) {
+      return Collections.emptyList();
+    }
+    int longestLen = 0;
+    final List<List<Cell>> candidateSublines = new ArrayList<>();
+    for (int startIdx = 0; startIdx < line.size(); startIdx++) {
+      for (int endIdx = startIdx + 1; endIdx <= line.size(); endIdx++) {
+        final List<Cell> curSubline = line.subList(startIdx, endIdx);
+        if (curSubline.size() >= longestLen && curSubline.stream().anyMatch(cell -> cell.isPopulatedBy(player))) {
+          boolean hasAtLeastOneEmpty = false;
+          boolean isAllPlayerOrEmpty = true;
+          for (final Cell cell : curSubline) {
+            if (cell.isEmpty()) {
+              hasAtLeastOneEmpty = true;
+            }
+            else if (!cell.isPopulatedBy(player)) {
+              isAllPlayerOrEmpty = false;
+              break;
+            }
+          }
+          if (hasAtLeastOneEmpty && isAllPlayerOrEmpty) {
+            final int curLen = curSubline.size();
+            if (curLen >= longestLen) {
+              if (curLen > longestLen) {
+                candidateSublines.clear();
+              }
+              longestLen = curLen;
+              candidateSublines.add(curSubline);
+            }
+          }
+        }
+      }
+    }
+    int mostPopulated = 0;
+    List<Cell> bestLine = Collections.emptyList();
+    for (final List<Cell> subline : candidateSublines) {
+      final int numPopulated = subline.stream().mapToInt(cell -> cell.isPopulatedBy(player) ? 1 : 0).sum();
+      if (numPopulated > mostPopulated) {
+        mostPopulated = numPopulated;
+        bestLine = subline;
+      }
+    }
+    return bestLine;
+  }
+
+  @Test
+  public void longestOpenSublineMatchesQuadraticSearch() {
+    final Random random = new Random(9L);
+    for (int trial = 0; trial < NUM_BOARDS; trial++) {
+      final int dim = 3 + random.nextInt(8);
+      final Game game = TestGames.createRandomGame(random, dim, 3 + random.nextInt(dim - 2),
+        random.nextInt(dim * dim + 1));
+      for (final List<Cell> line : game.getBoard().getAllLines()) {
+        for (final Player player : new Player[] {game.getPlayer1(), game.getPlayer2()}) {
+          final List<Cell> expected = findLongestOpenSublineQuadratic(line, player);
+          final List<Cell> actual = game.getLongestOpenSublineForPlayer(line, player);
+          assertEquals(String.valueOf(game), expected, actual);
+        }
+      }
+    }
+  }
+
+  @Test
+  public void bitGameUtilityMatchesGame() {
+    final Random random = new Random(10L);
+    for (int trial = 0; trial < NUM_BOARDS; trial++) {
+      final int dim = 3 + random.nextInt(8);
+      final Game game = TestGames.createRandomGame(random, dim, 3 + random.nextInt(dim - 2),
+        random.nextInt(dim * dim + 1));
+      final BitGame bitGame = new BitGame(game);
+      assertEquals(String.valueOf(game), game.evaluatePlayerUtility(game.getPlayer1()),
+        bitGame.evaluatePlayerUtility(game.getPlayer1()));
+      assertEquals(String.valueOf(game), game.evaluatePlayerUtility(game.getPlayer2()),
+        bitGame.evaluatePlayerUtility(game.getPlayer2()));
+    }
+  }
+}
@@ -0,0 +1,43 @@
+package edu.gwu.ai.codeknights.tictactoe.core;
+
+import edu.gwu.ai.codeknights.tictactoe.util.Const;
+
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Games for tests: empty, or with random moves played.
+ */
+public final class TestGames {
+
+  private TestGames() {
+
+  }
+
+  public static Game createGame(final int dim, final int winLength, final boolean isHome) {
+    final Player player1 = new Player(1, Const.MASTER_PLAYER_CHAR);
+    final Player player2 = new Player(2, Const.OPPONENT_PLAYER_CHAR);
+    return new Game(dim, winLength, 0L, player1, player2, isHome);
+  }
+
+  /**
+   * Create a game and play random moves (alternating, as {@link Game#getNextPlayer()} says), stopping early if the game
+   * is over.
+   *
+   * @param random    the source of randomness
+   * @param dim       the board dimension
+   * @param winLength the length required to win
+   * @param numMoves  the number of moves to play
+   *
+   * @return the game
+   */
+  public static Game createRandomGame(final Random random, final int dim, final int winLength, final int numMoves) {
+    final Game game = createGame(dim, winLength, random.nextBoolean());
+    for (int i = 0; i < numMoves && !game.isGameOver(); i++) {
+      final List<Cell> emptyCells = game.getBoard().getEmptyCells();
+      final Cell cell = emptyCells.get(random.nextInt(emptyCells.size()));
+      game.makeMove(cell.getRowIdx(), cell.getColIdx());
+    }
+    return game;
+  }
+}
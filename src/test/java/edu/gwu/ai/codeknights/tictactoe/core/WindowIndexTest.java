@@ -0,0 +1,95 @@
+package edu.gwu.ai.codeknights.tictactoe.core;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Random;
+import java.util.stream.IntStream;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+public class WindowIndexTest {
+
+  @Test
+  public void matchesCountsFromScratch() {
+    final Random random = new Random(19L);
+    for (int trial = 0; trial < 300; trial++) {
+      final int dim = 1 + random.nextInt(10);
+      final int winLength = 1 + random.nextInt(dim);
+      final BoardGeometry geometry = BoardGeometry.forDim(dim);
+      final int[] sides = new int[dim * dim];
+      Arrays.fill(sides, BitBoard.NO_SIDE);
+      WindowIndex index = new WindowIndex(geometry, winLength);
+
+      // Place and remove random stones (sometimes on a copy), then compare with counts from scratch
+      for (int step = 0; step < 3 * dim * dim; step++) {
+        final int idx = random.nextInt(dim * dim);
+        if (sides[idx] == BitBoard.NO_SIDE) {
+          sides[idx] = random.nextInt(2);
+          index.place(idx, sides[idx]);
+        }
+        else {
+          index.remove(idx, sides[idx]);
+          sides[idx] = BitBoard.NO_SIDE;
+        }
+        if (random.nextInt(8) == 0) {
+          index = index.getCopy();
+        }
+      }
+      assertIndexMatches(geometry.getWindows(winLength), sides, winLength, index);
+    }
+  }
+
+  private static void assertIndexMatches(final int[][] windows, final int[] sides, final int winLength,
+                                         final WindowIndex index) {
+    assertEquals(windows.length, index.getNumWindows());
+    for (int side = 0; side < 2; side++) {
+      final int[] numOpen = new int[winLength + 1];
+      final boolean[][] threatCells = new boolean[winLength + 1][sides.length];
+      for (int windowIdx = 0; windowIdx < windows.length; windowIdx++) {
+        int numOwn = 0;
+        int numOther = 0;
+        for (final int idx : windows[windowIdx]) {
+          numOwn += sides[idx] == side ? 1 : 0;
+          numOther += sides[idx] == BitBoard.getOtherSide(side) ? 1 : 0;
+        }
+        assertEquals(numOwn, index.getCount(windowIdx, side));
+        if (numOther == 0) {
+          numOpen[numOwn]++;
+          for (int minCount = 0; minCount <= numOwn; minCount++) {
+            for (final int idx : windows[windowIdx]) {
+              threatCells[minCount][idx] |= sides[idx] == BitBoard.NO_SIDE;
+            }
+          }
+        }
+      }
+      for (int count = 0; count <= winLength; count++) {
+        assertEquals(numOpen[count], index.countOpenWindows(side, count));
+        int numWalked = 0;
+        for (int windowIdx = index.getFirstOpenWindow(side, count); windowIdx != -1;
+             windowIdx = index.getNextOpenWindow(side, windowIdx)) {
+          assertEquals(count, index.getCount(windowIdx, side));
+          assertEquals(0, index.getCount(windowIdx, BitBoard.getOtherSide(side)));
+          numWalked++;
+        }
+        assertEquals(numOpen[count], numWalked);
+      }
+      assertEquals(numOpen[winLength] > 0, index.hasCompleteWindow(side));
+      for (int minCount = 0; minCount < winLength; minCount++) {
+        final int[] out = new int[sides.length];
+        final int num = index.collectThreatCells(side, minCount, out, 0);
+        final boolean[] actual = new boolean[sides.length];
+        for (int i = 0; i < num; i++) {
+          actual[out[i]] = true;
+        }
+        assertArrayEquals(toArray(threatCells[minCount]), toArray(actual));
+        assertEquals(num, index.collectThreatCells(side, minCount, null, 0));
+      }
+    }
+  }
+
+  private static int[] toArray(final boolean[] flags) {
+    return IntStream.range(0, flags.length).filter(i -> flags[i]).toArray();
+  }
+}
@@ -0,0 +1,67 @@
+package edu.gwu.ai.codeknights.tictactoe.core;
+
+import org.junit.Test;
+
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+
+public class ZobristTest {
+
+  private static long getGameKey(final Game game) {
+    return Zobrist.getGameKey(game.getDim(), game.getWinLength(), game.getPlayer1().getMarker(), game.isHome());
+  }
+
+  @Test
+  public void bitGameKeyIsBoardKeyWithGameKey() {
+    final Random random = new Random(1L);
+    for (int trial = 0; trial < 100; trial++) {
+      final Game game = TestGames.createGame(3 + random.nextInt(8), 3, random.nextBoolean());
+      final BitGame bitGame = new BitGame(game);
+      final int numCells = game.getDim() * game.getDim();
+      int numMoves = 0;
+      for (; numMoves < numCells && !game.isGameOver(); numMoves++) {
+        int idx;
+        do {
+          idx = random.nextInt(numCells);
+        }
+        while (!bitGame.getBoard().isEmpty(idx));
+        bitGame.makeMove(idx);
+        game.makeMove(idx / game.getDim(), idx % game.getDim());
+        assertEquals(game.getBoard().getZobristKey() ^ getGameKey(game), bitGame.getBoardHash());
+        assertEquals(bitGame.getBoardHash(), new BitGame(game).getBoardHash());
+      }
+      for (; numMoves > 0; numMoves--) {
+        bitGame.unmakeMove();
+      }
+      assertEquals(getGameKey(game), bitGame.getBoardHash());
+    }
+  }
+
+  @Test
+  public void sameMarkersInOtherGameHaveOtherKey() {
+    final Game game = TestGames.createGame(6, 4, true);
+    game.makeMove(0, 0);
+    game.makeMove(0, 1);
+    final long key = new BitGame(game).getBoardHash();
+
+    final Game otherFirst = TestGames.createGame(6, 4, false);
+    otherFirst.getBoard().getCell(0, 0).setPlayer(otherFirst.getPlayer1());
+    otherFirst.getBoard().getCell(0, 1).setPlayer(otherFirst.getPlayer2());
+    assertEquals(game.getBoard().getZobristKey(), otherFirst.getBoard().getZobristKey());
+    assertNotEquals(key, new BitGame(otherFirst).getBoardHash());
+
+    final Game otherWinLength = TestGames.createGame(6, 5, true);
+    otherWinLength.makeMove(0, 0);
+    otherWinLength.makeMove(0, 1);
+    assertNotEquals(key, new BitGame(otherWinLength).getBoardHash());
+
+    // Cell indices 0 and 1 are the same cells on a 7x7 board
+    final Game otherDim = TestGames.createGame(7, 4, true);
+    otherDim.makeMove(0, 0);
+    otherDim.makeMove(0, 1);
+    assertEquals(game.getBoard().getZobristKey(), otherDim.getBoard().getZobristKey());
+    assertNotEquals(key, new BitGame(otherDim).getBoardHash());
+  }
+}
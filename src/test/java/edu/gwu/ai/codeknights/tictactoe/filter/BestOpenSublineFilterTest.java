@@ -0,0 +1,33 @@
+package edu.gwu.ai.codeknights.tictactoe.filter;
+
+import edu.gwu.ai.codeknights.tictactoe.core.BitGame;
+import edu.gwu.ai.codeknights.tictactoe.core.Game;
+import edu.gwu.ai.codeknights.tictactoe.core.TestGames;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.junit.Assert.assertArrayEquals;
+
+public class BestOpenSublineFilterTest {
+
+  @Test
+  public void bitGamePathMatchesGamePath() {
+    final BestOpenSublineFilter filter = new BestOpenSublineFilter();
+    final Random random = new Random(11L);
+    for (int trial = 0; trial < 3000; trial++) {
+      final int dim = 3 + random.nextInt(8);
+      final Game game = TestGames.createRandomGame(random, dim, 3 + random.nextInt(dim - 2),
+        random.nextInt(dim * dim + 1));
+      final int[] expected = filter.filterCells(game)
+        .mapToInt(cell -> cell.getRowIdx() * dim + cell.getColIdx())
+        .sorted()
+        .toArray();
+      final int[] out = new int[dim * dim];
+      final int[] actual = Arrays.copyOf(out, filter.filterIndices(new BitGame(game), out));
+      Arrays.sort(actual);
+      assertArrayEquals(String.valueOf(game), expected, actual);
+    }
+  }
+}